@@ -0,0 +1,23 @@
+package kienminh.tetrisgame.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Chạy toàn bộ benchmark kèm GC profiler (gc.alloc.rate.norm = số byte cấp phát mỗi op).
+ * Tham số đầu tiên (tùy chọn) là regex lọc benchmark, vd "BoardBenchmark.clearLines".
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "kienminh.tetrisgame.benchmark.*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
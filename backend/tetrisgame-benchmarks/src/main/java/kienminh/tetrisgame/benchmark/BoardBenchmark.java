@@ -0,0 +1,92 @@
+package kienminh.tetrisgame.benchmark;
+
+import kienminh.tetrisgame.model.game.Block;
+import kienminh.tetrisgame.model.game.Board;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot path của Board: collision (qua move/rotate), clearLines, snapshot, copy block.
+ * fill = % số hàng dưới cùng đã có block.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    private static final long SEED = 42L;
+
+    @Param({"0", "25", "50", "75"})
+    public int fill;
+
+    private Board board;
+    private Block block;
+    private int[][] fullRowsGrid;
+    private int[][] partialGrid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Boards.board(fill, SEED);
+        block = board.getCurrentBlock().copy();
+        partialGrid = Boards.partialGrid(board.getWidth(), board.getHeight(), fill, SEED);
+        fullRowsGrid = Boards.gridWithFullRows(board.getWidth(), board.getHeight(), Math.max(fill, 20), 4, SEED);
+    }
+
+    /** Block có thể đã bị khóa/xoay lệch sau nhiều lần gọi – đặt lại giữa các iteration */
+    @Setup(Level.Iteration)
+    public void resetBlock() {
+        board.setCurrentBlock(block.copy());
+    }
+
+    @Benchmark
+    public boolean moveLeftRight() {
+        // Đi rồi về: block quay lại chỗ cũ, mỗi lần gọi là 2 lần kiểm tra collision
+        return board.moveLeft() & board.moveRight();
+    }
+
+    @Benchmark
+    public Block rotate() {
+        board.rotateBlock();
+        return board.getCurrentBlock();
+    }
+
+    @Benchmark
+    public int ghostY() {
+        return board.ghostY();
+    }
+
+    /** Chi phí dựng lại grid – trừ đi khỏi clearLines để ra chi phí clear thuần */
+    @Benchmark
+    public void setGridBaseline() {
+        board.setGrid(Boards.copy(partialGrid));
+    }
+
+    @Benchmark
+    public int clearLines() {
+        board.setGrid(Boards.copy(fullRowsGrid));
+        return board.clearLines();
+    }
+
+    /** Cùng version: trả lại snapshot đã cache */
+    @Benchmark
+    public int[][] snapshotCached() {
+        return board.getBoardSnapshot();
+    }
+
+    /** Board vừa đổi (move) nên snapshot phải dựng lại */
+    @Benchmark
+    public void snapshotAfterMove(Blackhole bh) {
+        bh.consume(board.moveLeft() | board.moveRight());
+        bh.consume(board.getBoardSnapshot());
+    }
+
+    @Benchmark
+    public Block blockCopy() {
+        return block.copy();
+    }
+}
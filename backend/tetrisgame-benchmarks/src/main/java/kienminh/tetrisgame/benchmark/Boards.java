@@ -0,0 +1,53 @@
+package kienminh.tetrisgame.benchmark;
+
+import kienminh.tetrisgame.model.game.Board;
+
+import java.util.Random;
+
+/** Dựng board có sẵn chồng block ở một mức fill nhất định cho các benchmark */
+final class Boards {
+    private Boards() {}
+
+    /**
+     * Grid với fillPercent % số hàng dưới cùng đã có block; mỗi hàng thiếu đúng một ô
+     * nên không có hàng nào đầy (clearLines không ăn mất phần đã dựng).
+     */
+    static int[][] partialGrid(int width, int height, int fillPercent, long seed) {
+        Random random = new Random(seed);
+        int[][] grid = new int[height][width];
+        int filledRows = height * fillPercent / 100;
+        for (int y = height - filledRows; y < height; y++) {
+            int hole = random.nextInt(width);
+            for (int x = 0; x < width; x++) {
+                if (x != hole) grid[y][x] = 1 + random.nextInt(7);
+            }
+        }
+        return grid;
+    }
+
+    /** Như partialGrid nhưng thêm fullRows hàng đầy nằm xen giữa phần đã dựng */
+    static int[][] gridWithFullRows(int width, int height, int fillPercent, int fullRows, long seed) {
+        int[][] grid = partialGrid(width, height, fillPercent, seed);
+        int filledRows = Math.max(height * fillPercent / 100, fullRows);
+        // Trải các hàng đầy đều trong vùng đã fill để compaction phải dời cả phần phía trên
+        int step = Math.max(1, filledRows / fullRows);
+        for (int i = 0; i < fullRows; i++) {
+            int y = height - 1 - i * step;
+            for (int x = 0; x < width; x++) grid[y][x] = 1 + (x % 7);
+        }
+        return grid;
+    }
+
+    static Board board(int fillPercent, long seed) {
+        Board board = new Board();
+        board.init(seed);
+        board.setGrid(partialGrid(board.getWidth(), board.getHeight(), fillPercent, seed));
+        return board;
+    }
+
+    static int[][] copy(int[][] grid) {
+        int[][] copy = new int[grid.length][];
+        for (int y = 0; y < grid.length; y++) copy[y] = grid[y].clone();
+        return copy;
+    }
+}
@@ -0,0 +1,49 @@
+package kienminh.tetrisgame.benchmark;
+
+import kienminh.tetrisgame.model.game.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** tick (gravity) và hard drop qua GameState, gồm cả lock + clearLines + spawn */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+
+    @Param({"0", "25", "50", "75"})
+    public int fill;
+
+    private GameState state;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        state = new GameState(seed);
+        restart();
+    }
+
+    /** Ván mới với board đã fill sẵn; seed đổi mỗi lần để chuỗi block không lặp */
+    private void restart() {
+        state.start(++seed);
+        state.setGrid(Boards.partialGrid(
+                state.getBoard().getWidth(), state.getBoard().getHeight(), fill, seed));
+    }
+
+    @Benchmark
+    public long tick() {
+        if (!state.isPlaying()) restart();
+        state.tick();
+        return state.getVersion();
+    }
+
+    @Benchmark
+    public long drop() {
+        if (!state.isPlaying()) restart();
+        state.drop();
+        return state.getVersion();
+    }
+}
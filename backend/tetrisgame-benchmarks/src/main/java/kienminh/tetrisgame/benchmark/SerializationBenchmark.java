@@ -0,0 +1,52 @@
+package kienminh.tetrisgame.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kienminh.tetrisgame.dto.GameStateDTO;
+import kienminh.tetrisgame.model.game.GameState;
+import kienminh.tetrisgame.util.GameMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Đường gửi state cho client: GameMapper.toDTO rồi Jackson serialize */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private static final long SEED = 42L;
+
+    @Param({"0", "25", "50", "75"})
+    public int fill;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private GameState state;
+    private GameStateDTO dto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        state = new GameState(SEED);
+        state.setGrid(Boards.partialGrid(
+                state.getBoard().getWidth(), state.getBoard().getHeight(), fill, SEED));
+        dto = GameMapper.toDTO(state);
+    }
+
+    @Benchmark
+    public GameStateDTO toDTO() {
+        return GameMapper.toDTO(state);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public byte[] toDTOAndSerialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(GameMapper.toDTO(state));
+    }
+}
@@ -1,28 +1,25 @@
 package kienminh.tetrisgame.config;
 
-import kienminh.tetrisgame.util.JwtUtil;
+import kienminh.tetrisgame.service.impl.JwtSessionService;
+import kienminh.tetrisgame.util.JwtPrincipal;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
-import io.jsonwebtoken.JwtException;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final JwtSessionService jwtSessionService;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
-        this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+    public JwtAuthenticationFilter(JwtSessionService jwtSessionService) {
+        this.jwtSessionService = jwtSessionService;
     }
 
     @Override
@@ -47,29 +44,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         // ✅ Extract token from Authorization header
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String token = null;
 
+        // ✅ Authenticate from signed claims – no user lookup per request
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(token);
-            } catch (JwtException e) {
-                System.out.println("JWT parse failed: " + e.getMessage());
-            }
-        }
-
-        // ✅ Authenticate user if token is valid
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            if (jwtUtil.validateToken(token)) {
+            JwtPrincipal principal = jwtSessionService.authenticate(authHeader.substring(7));
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
+                        new UsernamePasswordAuthenticationToken(principal, null, List.of());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -1,7 +1,7 @@
 package kienminh.tetrisgame.config;
 
 import kienminh.tetrisgame.service.impl.AuthServiceImpl;
-import kienminh.tetrisgame.util.JwtUtil;
+import kienminh.tetrisgame.service.impl.JwtSessionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,7 +27,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final JwtUtil jwtUtil;
+    private final JwtSessionService jwtSessionService;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -48,8 +48,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(AuthServiceImpl userDetailsService) {
-        return new JwtAuthenticationFilter(jwtUtil, userDetailsService);
+    public JwtAuthenticationFilter jwtAuthenticationFilter() {
+        return new JwtAuthenticationFilter(jwtSessionService);
     }
 
     @Bean
@@ -94,7 +94,8 @@ public class SecurityConfig {
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**",
                                 "/ws",
-                                "/ws/**"
+                                "/ws/**",
+                                "/stream/**"
                         ).permitAll()
 
                         // ✅ ALL OTHER /api/** endpoints require authentication
@@ -0,0 +1,38 @@
+package kienminh.tetrisgame.config;
+
+import kienminh.tetrisgame.websocket.GameStreamHandler;
+import kienminh.tetrisgame.websocket.GameStreamHandshakeInterceptor;
+import kienminh.tetrisgame.websocket.RoomStreamHandler;
+import kienminh.tetrisgame.websocket.RoomStreamHandshakeInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Các endpoint WebSocket thô (không STOMP, không SockJS):
+ * /stream/room – spectator xem room (JSON), /stream/game – giao thức nhị phân cho client native.
+ * Đặt ngoài /ws để không đụng mapping /ws/** của SockJS.
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class StreamConfig implements WebSocketConfigurer {
+
+    private final RoomStreamHandler roomStreamHandler;
+    private final RoomStreamHandshakeInterceptor handshakeInterceptor;
+    private final GameStreamHandler gameStreamHandler;
+    private final GameStreamHandshakeInterceptor gameStreamHandshakeInterceptor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(roomStreamHandler, "/stream/room")
+                .addInterceptors(handshakeInterceptor)
+                .setAllowedOriginPatterns(WebSocketConfig.ALLOWED_ORIGINS);
+
+        registry.addHandler(gameStreamHandler, "/stream/game")
+                .addInterceptors(gameStreamHandshakeInterceptor)
+                .setAllowedOriginPatterns(WebSocketConfig.ALLOWED_ORIGINS);
+    }
+}
@@ -11,22 +11,18 @@ import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 
-import kienminh.tetrisgame.util.JwtUtil;
+import kienminh.tetrisgame.service.impl.JwtSessionService;
+import kienminh.tetrisgame.util.JwtPrincipal;
 
 @Component
 public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
 
-    private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final JwtSessionService jwtSessionService;
 
-    public WebSocketAuthChannelInterceptor(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
-        this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+    public WebSocketAuthChannelInterceptor(JwtSessionService jwtSessionService) {
+        this.jwtSessionService = jwtSessionService;
     }
 
     @Override
@@ -52,19 +48,9 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
 
             try {
                 // ✅ Validate and authenticate token
-                String username = jwtUtil.extractUsername(token);
-                if (jwtUtil.validateToken(token)) {
-
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                    UsernamePasswordAuthenticationToken auth =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails,
-                                    null,
-                                    userDetails.getAuthorities()
-                            );
-
-                    accessor.setUser(auth);
+                JwtPrincipal principal = jwtSessionService.authenticate(token);
+                if (principal != null) {
+                    accessor.setUser(new UsernamePasswordAuthenticationToken(principal, null, List.of()));
                 }
             } catch (Exception e) {
                 // ✅ Log and set as anonymous on error
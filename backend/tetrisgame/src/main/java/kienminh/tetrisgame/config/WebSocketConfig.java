@@ -10,6 +10,15 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // ✅ Specify your frontend URLs here (for development and production)
+    static final String[] ALLOWED_ORIGINS = {
+            "http://localhost:5173",      // Vite dev server
+            "http://localhost:3000",      // Alternative dev port
+            "http://127.0.0.1:5173",
+            "http://127.0.0.1:3000",
+            "https://tetris-game-final-fe.onrender.com"
+    };
+
     private final kienminh.tetrisgame.config.WebSocketAuthChannelInterceptor authInterceptor;
 
     public WebSocketConfig(kienminh.tetrisgame.config.WebSocketAuthChannelInterceptor authInterceptor) {
@@ -20,14 +29,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // ✅ Register WebSocket endpoint with specific allowed origins
         registry.addEndpoint("/ws")
-                // ✅ Specify your frontend URLs here (for development and production)
-                .setAllowedOriginPatterns(
-                        "http://localhost:5173",      // Vite dev server
-                        "http://localhost:3000",      // Alternative dev port
-                        "http://127.0.0.1:5173",
-                        "http://127.0.0.1:3000",
-                        "https://tetris-game-final-fe.onrender.com"
-                )
+                .setAllowedOriginPatterns(ALLOWED_ORIGINS)
                 // ✅ Enable SockJS for better browser compatibility
                 .withSockJS();
     }
@@ -39,6 +41,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
         // ✅ Prefix for messages sent from server to client
         registry.enableSimpleBroker("/topic", "/queue");
+
+        // ✅ Keep per-session order: delta frames and input ACKs are only valid in sequence
+        registry.setPreservePublishOrder(true);
     }
 
     @Override
@@ -58,7 +58,7 @@ public class AuthController {
         }
 
         String token = authHeader.substring(7); // loại bỏ "Bearer "
-        authService.logout(token); // chỉ log token, không blacklist
+        authService.logout(token); // token bị thu hồi tới khi hết hạn
 
         return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
     }
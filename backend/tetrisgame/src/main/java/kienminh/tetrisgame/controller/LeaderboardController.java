@@ -0,0 +1,34 @@
+package kienminh.tetrisgame.controller;
+
+import kienminh.tetrisgame.leaderboard.LeaderboardWindow;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+@RequiredArgsConstructor
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+
+    /** Số dòng bảng xếp hạng giữ trong bộ nhớ – limit lớn hơn không có thêm dữ liệu */
+    @Value("${leaderboard.size:100}")
+    private int maxLimit;
+
+    /** 🏆 Top player theo điểm cao nhất trong ngày / tuần / toàn thời gian – phục vụ từ bộ nhớ, không query DB */
+    @GetMapping
+    public ResponseEntity<?> getLeaderboard(
+            @RequestParam(defaultValue = "ALL_TIME") LeaderboardWindow window,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + maxLimit));
+        }
+        return ResponseEntity.ok(leaderboardService.getTop(window, limit));
+    }
+}
@@ -1,11 +1,14 @@
 package kienminh.tetrisgame.controller;
 
 import kienminh.tetrisgame.dto.PlayerDTO;
+import kienminh.tetrisgame.dto.ScoreRankDTO;
 import kienminh.tetrisgame.model.entity.Player;
 import kienminh.tetrisgame.model.entity.User;
 import kienminh.tetrisgame.repository.PlayerRepository;
 import kienminh.tetrisgame.service.interfaces.PlayerService;
 import kienminh.tetrisgame.service.interfaces.AuthService;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
+import kienminh.tetrisgame.util.JwtPrincipal;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,13 +19,16 @@ import org.springframework.web.bind.annotation.*;
         private final PlayerService playerService;
         private final AuthService authService;
         private final PlayerRepository playerRepository;
+        private final LeaderboardService leaderboardService;
 
         public PlayerController(PlayerService playerService,
                                 AuthService authService,
-                                PlayerRepository playerRepository) {
+                                PlayerRepository playerRepository,
+                                LeaderboardService leaderboardService) {
             this.playerService = playerService;
             this.authService = authService;
             this.playerRepository = playerRepository;
+            this.leaderboardService = leaderboardService;
         }
 
         @PutMapping("/{playerId}/status")
@@ -39,8 +45,31 @@ import org.springframework.web.bind.annotation.*;
          */
         @GetMapping("/me")
         public ResponseEntity<PlayerDTO> getCurrentPlayer() {
-            User currentUser = authService.getAuthenticatedUser(); // ✅ lấy user từ token
-            Player player = playerService.getCurrentPlayer(currentUser); // tự tạo nếu chưa có
+            JwtPrincipal principal = authService.getPrincipal(); // ✅ playerId có sẵn trong token
+            Player player = playerRepository.findById(principal.playerId())
+                    .orElseGet(() -> {
+                        User currentUser = authService.getAuthenticatedUser();
+                        return playerService.getCurrentPlayer(currentUser); // tự tạo nếu chưa có
+                    });
             return ResponseEntity.ok(new PlayerDTO(player));
         }
+
+        /**
+         * 🏅 Hạng của player đang đăng nhập theo điểm cao nhất (histogram trong bộ nhớ, O(log n))
+         * Không chạm DB: playerId lấy từ token.
+         */
+        @GetMapping("/me/rank")
+        public ResponseEntity<ScoreRankDTO> getCurrentPlayerRank() {
+            return rankResponse(authService.getPrincipal().playerId());
+        }
+
+        @GetMapping("/{playerId}/rank")
+        public ResponseEntity<ScoreRankDTO> getPlayerRank(@PathVariable Long playerId) {
+            return rankResponse(playerId);
+        }
+
+        private ResponseEntity<ScoreRankDTO> rankResponse(Long playerId) {
+            ScoreRankDTO rank = leaderboardService.rankOfPlayer(playerId);
+            return rank != null ? ResponseEntity.ok(rank) : ResponseEntity.notFound().build();
+        }
     }
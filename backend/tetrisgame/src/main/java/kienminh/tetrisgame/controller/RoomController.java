@@ -5,9 +5,9 @@ import kienminh.tetrisgame.model.entity.Player;
 import kienminh.tetrisgame.model.entity.User;
 import kienminh.tetrisgame.service.impl.PlayerServiceImpl;
 import kienminh.tetrisgame.service.impl.RoomServiceImpl;
+import kienminh.tetrisgame.service.interfaces.AuthService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -19,15 +19,16 @@ public class RoomController {
 
     private final RoomServiceImpl roomService;
     private final PlayerServiceImpl playerService;
+    private final AuthService authService;
 
     /**
      * 🔹 Tạo phòng mới (JWT xác thực)
      */
     @PostMapping("/create")
     public ResponseEntity<RoomDTO> createRoom(
-            @RequestParam String roomName,
-            @AuthenticationPrincipal User currentUser
+            @RequestParam String roomName
     ) {
+        User currentUser = authService.getAuthenticatedUser();
         RoomDTO room = roomService.createRoom(roomName, currentUser);
         return ResponseEntity.ok(room);
     }
@@ -37,9 +38,9 @@ public class RoomController {
      */
     @PostMapping("/{roomId}/join")
     public ResponseEntity<RoomDTO> joinRoom(
-            @PathVariable Long roomId,
-            @AuthenticationPrincipal User currentUser
+            @PathVariable Long roomId
     ) {
+        User currentUser = authService.getAuthenticatedUser();
         Player player = playerService.getCurrentPlayer(currentUser);
         RoomDTO updatedRoom = roomService.joinRoom(roomId, player);
         return ResponseEntity.ok(updatedRoom);
@@ -50,9 +51,9 @@ public class RoomController {
      */
     @PostMapping("/{roomId}/leave")
     public ResponseEntity<String> leaveRoom(
-            @PathVariable Long roomId,
-            @AuthenticationPrincipal User currentUser
+            @PathVariable Long roomId
     ) {
+        User currentUser = authService.getAuthenticatedUser();
         // Lấy Player hiện tại của người dùng
         Player player = playerService.getCurrentPlayer(currentUser);
 
@@ -3,6 +3,7 @@
     import kienminh.tetrisgame.dto.GameStateDTO;
     import kienminh.tetrisgame.model.game.GameState;
     import kienminh.tetrisgame.service.interfaces.GameService;
+    import kienminh.tetrisgame.service.interfaces.LeaderboardService;
     import kienminh.tetrisgame.service.interfaces.PlayerService;
     import kienminh.tetrisgame.util.GameMapper;
     import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@
 
         private final GameService soloGameService;
         private final PlayerService playerService;
+        private final LeaderboardService leaderboardService;
 
         @PostMapping("/start/{userId}")
         public ResponseEntity<GameStateDTO> start(@PathVariable Long userId) {
@@ -53,7 +55,7 @@
                                 .body(Map.of("error", "Invalid action: " + action));
                 }
 
-                return ResponseEntity.ok(GameMapper.toDTO(state));
+                return ResponseEntity.ok(toDTO(playerId, state));
 
             } catch (IllegalStateException e) {
                 // Game chưa start
@@ -62,11 +64,20 @@
             }
         }
 
+        /** Ván đã kết thúc: kèm hạng của điểm cuối ván */
+        private GameStateDTO toDTO(Long playerId, GameState state) {
+            GameStateDTO dto = GameMapper.toDTO(state);
+            if (dto != null && "GAME_OVER".equals(dto.getStatus())) {
+                dto.setRank(leaderboardService.rankOf(playerId, dto.getScore()));
+            }
+            return dto;
+        }
+
         @GetMapping("/{playerId}/state")
         public ResponseEntity<?> state(@PathVariable Long playerId) {
             try {
                 GameState state = soloGameService.getState(playerId);
-                return ResponseEntity.ok(GameMapper.toDTO(state));
+                return ResponseEntity.ok(toDTO(playerId, state));
             } catch (IllegalStateException e) {
                 return ResponseEntity.status(400)
                         .body(Map.of("error", "Game not started"));
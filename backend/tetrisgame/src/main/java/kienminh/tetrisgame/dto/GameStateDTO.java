@@ -1,5 +1,6 @@
 package kienminh.tetrisgame.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,4 +16,8 @@ import lombok.NoArgsConstructor;
         private String currentBlock; // loại block đang rơi
         private String nextBlock;    // loại block tiếp theo
         private Long playerId;
+        private long version;        // version của GameState, client bỏ qua frame cũ/trùng
+
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private ScoreRankDTO rank;   // hạng của điểm cuối ván, chỉ có khi GAME_OVER
     }
@@ -0,0 +1,27 @@
+package kienminh.tetrisgame.dto;
+
+import kienminh.tetrisgame.model.game.enums.GameAction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Batch input gửi qua STOMP (khóa ngắn vì gửi theo từng phím) */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InputBatchDTO {
+    private long s;          // seq của input đầu tiên trong batch, tăng liên tục phía client
+    private long t;          // thời điểm client gửi (ms), server gửi lại trong ACK để đo RTT
+    private List<String> a;  // LEFT / RIGHT / ROTATE / TICK / DROP theo thứ tự bấm
+
+    public List<GameAction> actions() {
+        return a == null ? List.of() : a.stream().map(name -> GameAction.valueOf(name.trim().toUpperCase())).toList();
+    }
+
+    /** Seq của input cuối cùng – giá trị server ACK sau khi áp dụng cả batch */
+    public long lastSeq() {
+        return s + (a == null ? 0 : a.size()) - 1;
+    }
+}
@@ -0,0 +1,22 @@
+package kienminh.tetrisgame.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntryDTO {
+    private int rank;            // hạng, bắt đầu từ 1
+    private Long playerId;
+    private String username;
+    private int score;           // điểm cao nhất của player
+    private int level;
+    private int lines;
+    private long durationMs;     // thời lượng ván đạt điểm này
+    private String mode;         // SOLO / MULTI
+    private Instant finishedAt;
+}
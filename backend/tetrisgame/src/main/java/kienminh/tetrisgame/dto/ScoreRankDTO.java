@@ -0,0 +1,15 @@
+package kienminh.tetrisgame.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoreRankDTO {
+    private int score;
+    private long rank;           // hạng theo điểm cao nhất của mỗi player, bắt đầu từ 1
+    private long players;        // tổng số player đã có điểm (tính cả player này)
+    private double topPercent;   // "top 7%" → 7.0
+}
@@ -0,0 +1,186 @@
+package kienminh.tetrisgame.engine;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Game loop chia shard, mỗi shard một thread duy nhất ghi vào các ván của nó.
+ * Mỗi ván được gắn cố định vào một shard theo hash của key (playerId hoặc roomId).
+ * Input và gravity của ván đi qua mailbox MPSC của shard, được áp dụng tuần tự
+ * theo đúng thứ tự nhận, nên GameState không cần khóa.
+ * Khi shutdown, các lời gọi submit/call còn nằm trong mailbox kết thúc bằng RejectedExecutionException.
+ */
+@Component
+public class GameLoop {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameLoop.class);
+
+    private final Shard[] shards;
+
+    public GameLoop() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameLoop(int shardCount) {
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be >= 1");
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].thread.start();
+        }
+        logger.info("🎮 Game loop started with {} shards", shardCount);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /** Shard sở hữu key: trộn bit để ID liên tiếp không dồn vào vài shard */
+    public int shardOf(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) Long.remainderUnsigned(mixed ^ (mixed >>> 32), shards.length);
+    }
+
+    /** Thread hiện tại có phải worker của shard sở hữu key không */
+    public boolean isOwner(long key) {
+        return Thread.currentThread() == shards[shardOf(key)].thread;
+    }
+
+    /** Đưa task vào mailbox của shard sở hữu key (fire-and-forget) */
+    public void execute(long key, Runnable task) {
+        shards[shardOf(key)].enqueue(task);
+    }
+
+    /** Chạy action trên shard sở hữu key và trả kết quả qua future */
+    public <T> CompletableFuture<T> submit(long key, Supplier<T> action) {
+        PendingCall<T> call = new PendingCall<>(action);
+        execute(key, call);
+        return call.future;
+    }
+
+    /**
+     * Chạy action trên shard sở hữu key và chờ kết quả.
+     * Nếu đang đứng sẵn trên shard đó (vd trong tick task) thì chạy luôn, tránh tự chờ chính mình.
+     */
+    public <T> T call(long key, Supplier<T> action) {
+        if (isOwner(key)) return action.get();
+        try {
+            return submit(key, action).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("🛑 Shutting down game loop...");
+        for (Shard shard : shards) shard.stop();
+        for (Shard shard : shards) shard.awaitStop();
+    }
+
+    /** Task của submit/call: future luôn được hoàn tất, kể cả khi task bị bỏ lúc shutdown */
+    private static final class PendingCall<T> implements Runnable {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Supplier<T> action;
+
+        PendingCall(Supplier<T> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            try {
+                future.complete(action.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        void reject() {
+            future.completeExceptionally(new RejectedExecutionException("Game loop is shut down"));
+        }
+    }
+
+    /** Một worker + mailbox; chỉ thread của shard đọc mailbox */
+    private static final class Shard implements Runnable {
+        private static final long STOP_TIMEOUT_MILLIS = 1_000;
+
+        private final int index;
+        private final MpscMailbox<Runnable> mailbox = new MpscMailbox<>();
+        private final Thread thread;
+        private final AtomicLong processed = new AtomicLong();
+        private volatile boolean sleeping;
+        private volatile boolean running = true;
+
+        Shard(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "game-shard-" + index);
+            thread.setDaemon(true);
+        }
+
+        void enqueue(Runnable task) {
+            if (!running) throw new RejectedExecutionException("Game loop is shut down");
+            mailbox.offer(task);
+            // Ghi mailbox trước rồi mới đọc cờ: worker hoặc thấy task, hoặc được unpark
+            if (sleeping) LockSupport.unpark(thread);
+            // Shutdown chen giữa kiểm tra running và offer: worker có thể đã dọn mailbox xong
+            if (!running) reject(task);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Runnable task = mailbox.poll();
+                if (task == null) {
+                    sleeping = true;
+                    task = mailbox.poll();
+                    if (task == null) {
+                        LockSupport.park(this);
+                        sleeping = false;
+                        continue;
+                    }
+                    sleeping = false;
+                }
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    logger.error("❌ Shard {} task error: {}", index, e.getMessage(), e);
+                }
+                long seq = processed.incrementAndGet();
+                if (logger.isTraceEnabled()) logger.trace("Shard {} applied task #{}", index, seq);
+            }
+
+            // Task còn lại không chạy nữa: báo lỗi cho các thread đang chờ call()
+            for (Runnable task = mailbox.poll(); task != null; task = mailbox.poll()) reject(task);
+        }
+
+        private static void reject(Runnable task) {
+            if (task instanceof PendingCall<?> call) call.reject();
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        /** Chờ worker dọn mailbox; task đang chạy quá lâu thì không chờ tiếp */
+        void awaitStop() {
+            try {
+                thread.join(STOP_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package kienminh.tetrisgame.engine;
+
+import kienminh.tetrisgame.model.game.GameState;
+import kienminh.tetrisgame.model.game.enums.GameAction;
+import lombok.Builder;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Chạy GameState không cần scheduler: gravity và input được đẩy theo đồng hồ ảo,
+ * nên một ván chạy nhanh nhất CPU cho phép. Các ván được chia shard trên ForkJoinPool.
+ * Dùng cho capacity planning và regression test engine (cùng seed → cùng checksum).
+ */
+@Getter
+@Builder
+public class HeadlessSimulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessSimulator.class);
+
+    /** Sinh input cho một ván; step là số thứ tự lần input, random có seed riêng theo ván */
+    @FunctionalInterface
+    public interface InputScript {
+        /** @return action cần áp dụng, hoặc null nếu bỏ qua lượt input này */
+        GameAction next(GameState state, long step, Random random);
+
+        /** Input ngẫu nhiên: chủ yếu di chuyển/xoay, thỉnh thoảng hard drop */
+        static InputScript random() {
+            GameAction[] weighted = {
+                    GameAction.LEFT, GameAction.LEFT, GameAction.RIGHT, GameAction.RIGHT,
+                    GameAction.ROTATE, GameAction.ROTATE, GameAction.TICK, GameAction.DROP
+            };
+            return (state, step, random) -> weighted[random.nextInt(weighted.length)];
+        }
+
+        /** Lặp lại một chuỗi action cố định */
+        static InputScript scripted(GameAction... actions) {
+            return (state, step, random) -> actions[(int) (step % actions.length)];
+        }
+    }
+
+    @Builder.Default
+    private final int games = 10_000;
+
+    @Builder.Default
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Số ván tối đa một shard chạy tuần tự trước khi không chia nữa */
+    @Builder.Default
+    private final int gamesPerShard = 64;
+
+    @Builder.Default
+    private final long seed = 42L;
+
+    /** Khoảng thời gian ảo giữa hai lần input (ms) */
+    @Builder.Default
+    private final long inputIntervalMs = 100;
+
+    /** Giới hạn block mỗi ván để input "quá giỏi" không chạy mãi */
+    @Builder.Default
+    private final int maxPiecesPerGame = 1_000;
+
+    @Builder.Default
+    private final InputScript inputScript = InputScript.random();
+
+    public SimulationReport run() {
+        if (inputIntervalMs <= 0) throw new IllegalArgumentException("inputIntervalMs must be > 0");
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long start = System.nanoTime();
+            SimulationReport report = pool.invoke(new ShardTask(0, games));
+            return report.withElapsedNanos(System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Chạy một ván theo đồng hồ ảo cho tới game over hoặc chạm maxPiecesPerGame */
+    SimulationReport runGame(int index) {
+        long gameSeed = seed + index;
+        GameState state = new GameState(gameSeed);
+        Random random = new Random(~gameSeed);
+
+        long now = 0;
+        long nextGravity = GameState.tickIntervalForLevel(state.getLevel());
+        long nextInput = inputIntervalMs;
+        long step = 0;
+
+        while (state.isPlaying() && state.getPieces() < maxPiecesPerGame) {
+            if (nextInput <= nextGravity) {
+                now = nextInput;
+                GameAction action = inputScript.next(state, step++, random);
+                if (action != null) action.apply(state);
+                nextInput += inputIntervalMs;
+            } else {
+                now = nextGravity;
+                state.tick();
+                // Level mới chỉ ảnh hưởng tới lần rơi kế tiếp
+                nextGravity = now + GameState.tickIntervalForLevel(state.getLevel());
+            }
+        }
+
+        long checksum = gameSeed * 31 + state.getScore();
+        checksum = checksum * 31 + state.getLines();
+        checksum = checksum * 31 + state.getPieces();
+        return new SimulationReport(1, state.getPieces(), state.getLines(), state.getScore(), now,
+                Long.rotateLeft(checksum, index & 63), 0);
+    }
+
+    private class ShardTask extends RecursiveTask<SimulationReport> {
+        private final int from;
+        private final int to;
+
+        ShardTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationReport compute() {
+            if (to - from <= gamesPerShard) {
+                SimulationReport report = SimulationReport.empty();
+                for (int i = from; i < to; i++) report = report.merge(runGame(i));
+                return report;
+            }
+            int mid = (from + to) >>> 1;
+            ShardTask left = new ShardTask(from, mid);
+            left.fork();
+            SimulationReport right = new ShardTask(mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /** java -cp target/classes kienminh.tetrisgame.engine.HeadlessSimulator [games] [parallelism] [seed] */
+    public static void main(String[] args) {
+        HeadlessSimulatorBuilder builder = HeadlessSimulator.builder();
+        if (args.length > 0) builder.games(Integer.parseInt(args[0]));
+        if (args.length > 1) builder.parallelism(Integer.parseInt(args[1]));
+        if (args.length > 2) builder.seed(Long.parseLong(args[2]));
+        HeadlessSimulator simulator = builder.build();
+
+        // Warm-up để JIT không làm lệch số liệu
+        HeadlessSimulator.builder().games(Math.min(simulator.getGames(), 1_000))
+                .parallelism(simulator.getParallelism()).build().run();
+
+        SimulationReport report = simulator.run();
+        logger.info("🧪 Headless simulation ({} threads): {}", simulator.getParallelism(), report);
+    }
+}
@@ -0,0 +1,49 @@
+package kienminh.tetrisgame.engine;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hàng đợi nhiều producer – một consumer, không khóa (kiểu Vyukov):
+ * producer chỉ cần một getAndSet trên tail, consumer đọc head mà không CAS.
+ * Thứ tự lấy ra đúng bằng thứ tự getAndSet thành công.
+ * Việc nối next là volatile store (không phải release): GameLoop đọc cờ sleeping ngay sau offer,
+ * và cặp "ghi next rồi đọc sleeping" / "ghi sleeping rồi đọc next" chỉ đúng khi cả hai đều volatile.
+ */
+final class MpscMailbox<T> {
+
+    private static final class Node<T> {
+        T value;
+        volatile Node<T> next;
+
+        Node(T value) { this.value = value; }
+    }
+
+    private final AtomicReference<Node<T>> tail;
+    private Node<T> head;   // chỉ consumer đụng tới
+
+    MpscMailbox() {
+        Node<T> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    /** Gọi được từ mọi thread */
+    void offer(T value) {
+        Node<T> node = new Node<>(value);
+        Node<T> prev = tail.getAndSet(node);
+        prev.next = node;
+    }
+
+    /**
+     * Chỉ consumer được gọi. Có thể trả về null trong tích tắc producer đã getAndSet
+     * nhưng chưa nối next – consumer chỉ cần thử lại sau.
+     */
+    T poll() {
+        Node<T> next = head.next;
+        if (next == null) return null;
+        T value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+}
@@ -0,0 +1,58 @@
+package kienminh.tetrisgame.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Kết quả một lượt chạy headless (một shard hoặc cả batch sau khi merge) */
+@Getter
+@AllArgsConstructor
+public class SimulationReport {
+
+    private final long games;
+    private final long pieces;
+    private final long lines;
+    private final long totalScore;
+    private final long virtualMillis;   // tổng thời gian game đã "chơi" theo đồng hồ ảo
+    private final long checksum;        // hash kết quả từng ván – đổi khi hành vi engine đổi
+    private final long elapsedNanos;    // thời gian thật (chỉ có ý nghĩa ở report tổng)
+
+    public static SimulationReport empty() {
+        return new SimulationReport(0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public SimulationReport merge(SimulationReport other) {
+        return new SimulationReport(
+                games + other.games,
+                pieces + other.pieces,
+                lines + other.lines,
+                totalScore + other.totalScore,
+                virtualMillis + other.virtualMillis,
+                checksum + other.checksum,
+                Math.max(elapsedNanos, other.elapsedNanos));
+    }
+
+    public SimulationReport withElapsedNanos(long nanos) {
+        return new SimulationReport(games, pieces, lines, totalScore, virtualMillis, checksum, nanos);
+    }
+
+    public double gamesPerSecond() { return perSecond(games); }
+    public double piecesPerSecond() { return perSecond(pieces); }
+    public double linesPerSecond() { return perSecond(lines); }
+
+    /** Bao nhiêu lần nhanh hơn thời gian thực */
+    public double speedup() {
+        return elapsedNanos == 0 ? 0 : virtualMillis * 1_000_000.0 / elapsedNanos;
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "games=%d pieces=%d lines=%d elapsed=%.1fms | %.0f games/s, %.0f pieces/s, %.0f lines/s, x%.0f realtime | checksum=%016x",
+                games, pieces, lines, elapsedNanos / 1_000_000.0,
+                gamesPerSecond(), piecesPerSecond(), linesPerSecond(), speedup(), checksum);
+    }
+}
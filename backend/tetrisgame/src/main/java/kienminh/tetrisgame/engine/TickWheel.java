@@ -0,0 +1,170 @@
+package kienminh.tetrisgame.engine;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Timing wheel dùng chung cho mọi ván (solo + multi).
+ * Một thread duy nhất quay wheel mỗi FRAME_MS; mỗi frame lấy các task tới hạn của slot hiện tại
+ * và đưa từng task sang shard sở hữu ván của nó trong {@link GameLoop}.
+ * Task tự trả về delay cho lần kế tiếp (vd theo level hiện tại), nên đổi tốc độ rơi
+ * không phải hủy/đặt lại gì trên scheduler.
+ */
+@Component
+public class TickWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TickWheel.class);
+
+    /** Độ phân giải của wheel; mọi interval theo level (1000..200ms) đều là bội của 50 */
+    public static final long FRAME_MS = 50;
+
+    /** Giá trị task trả về khi không muốn chạy lại nữa */
+    public static final long STOP = -1;
+
+    /** 512 slot x 50ms ≈ 25.6s một vòng; delay dài hơn chỉ cần nằm chờ thêm vòng */
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    @FunctionalInterface
+    public interface Task {
+        /** @return delay (ms) tới lần chạy kế tiếp, hoặc STOP */
+        long run();
+    }
+
+    /** Entry của một task trên wheel; giữ lại để cancel */
+    public static final class Handle {
+        private final long key;     // key của ván, quyết định shard chạy task
+        private final Task task;
+        private volatile boolean cancelled;
+        private long deadline;      // frame tới hạn
+        private long lastDelayMs;
+
+        private Handle(long key, Task task) {
+            this.key = key;
+            this.task = task;
+        }
+
+        public void cancel() { cancelled = true; }
+
+        public boolean isCancelled() { return cancelled; }
+    }
+
+    @SuppressWarnings("unchecked")
+    private final List<Handle>[] slots = new List[WHEEL_SIZE];
+
+    /** Task mới / vừa chạy xong chờ wheel thread đặt vào slot (wheel thread là consumer duy nhất) */
+    private final Queue<Handle> pending = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService wheelThread;
+    private final GameLoop gameLoop;
+
+    /** Frame hiện tại – chỉ wheel thread ghi */
+    private volatile long frame;
+
+    public TickWheel(GameLoop gameLoop) {
+        for (int i = 0; i < WHEEL_SIZE; i++) slots[i] = new ArrayList<>();
+        this.gameLoop = gameLoop;
+        this.wheelThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tick-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        wheelThread.scheduleAtFixedRate(this::advance, FRAME_MS, FRAME_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Task lặp của ván có key: chạy sau delayMs, sau đó theo delay mà chính task trả về */
+    public Handle schedule(long key, Task task, long delayMs) {
+        Handle handle = new Handle(key, task);
+        handle.lastDelayMs = delayMs;
+        handle.deadline = frame + toFrames(delayMs);
+        pending.add(handle);
+        return handle;
+    }
+
+    /** Task chạy một lần */
+    public Handle scheduleOnce(long key, Runnable runnable, long delayMs) {
+        return schedule(key, () -> {
+            runnable.run();
+            return STOP;
+        }, delayMs);
+    }
+
+    /** Làm tròn lên theo frame, tối thiểu 1 frame */
+    static long toFrames(long delayMs) {
+        return Math.max(1, (delayMs + FRAME_MS - 1) / FRAME_MS);
+    }
+
+    /** Một vòng quay: nhận task mới rồi dispatch các task tới hạn của slot hiện tại */
+    private void advance() {
+        try {
+            long now = ++frame;
+
+            Handle handle;
+            while ((handle = pending.poll()) != null) {
+                if (handle.cancelled) continue;
+                // Task trễ (shard bận lâu hơn delay) thì chạy ngay frame này
+                if (handle.deadline < now) handle.deadline = now;
+                slots[(int) (handle.deadline & MASK)].add(handle);
+            }
+
+            List<Handle> slot = slots[(int) (now & MASK)];
+            for (int i = slot.size() - 1; i >= 0; i--) {
+                Handle h = slot.get(i);
+                if (h.cancelled) {
+                    removeAt(slot, i);
+                } else if (h.deadline <= now) {
+                    removeAt(slot, i);
+                    dispatch(h, now);
+                }
+                // Còn lại: tới hạn ở vòng sau
+            }
+        } catch (Exception e) {
+            logger.error("❌ Tick wheel error: {}", e.getMessage(), e);
+        }
+    }
+
+    private void dispatch(Handle handle, long firedFrame) {
+        try {
+            gameLoop.execute(handle.key, () -> runTask(handle, firedFrame));
+        } catch (RejectedExecutionException e) {
+            // Đang shutdown
+        }
+    }
+
+    private void runTask(Handle handle, long firedFrame) {
+        if (handle.cancelled) return;
+        long next;
+        try {
+            next = handle.task.run();
+        } catch (Exception e) {
+            logger.error("❌ Tick task error: {}", e.getMessage(), e);
+            next = handle.lastDelayMs;
+        }
+        if (next < 0 || handle.cancelled) return;
+
+        // Tính từ frame đã fire (không phải lúc chạy xong) để nhịp không bị trôi
+        handle.lastDelayMs = next;
+        handle.deadline = firedFrame + toFrames(next);
+        pending.add(handle);
+    }
+
+    /** Xóa không giữ thứ tự: đổi chỗ với phần tử cuối */
+    private static void removeAt(List<Handle> slot, int i) {
+        int last = slot.size() - 1;
+        if (i != last) slot.set(i, slot.get(last));
+        slot.remove(last);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("🛑 Shutting down tick wheel...");
+        wheelThread.shutdownNow();
+    }
+}
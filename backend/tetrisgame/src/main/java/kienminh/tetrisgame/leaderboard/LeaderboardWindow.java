@@ -0,0 +1,6 @@
+package kienminh.tetrisgame.leaderboard;
+
+/** Khoảng thời gian của bảng xếp hạng: 24 giờ / 7 ngày gần nhất (trượt) hoặc toàn thời gian */
+public enum LeaderboardWindow {
+    DAILY, WEEKLY, ALL_TIME
+}
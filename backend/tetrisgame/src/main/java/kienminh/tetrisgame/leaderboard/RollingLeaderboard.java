@@ -0,0 +1,65 @@
+package kienminh.tetrisgame.leaderboard;
+
+import kienminh.tetrisgame.dto.LeaderboardEntryDTO;
+import kienminh.tetrisgame.model.game.FinishedGame;
+
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Bảng xếp hạng cửa sổ trượt ghép từ các bucket thời gian: mỗi bucket là một TopKLeaderboard
+ * của các ván kết thúc trong khoảng đó. Top của cả cửa sổ được giữ riêng và cập nhật tăng dần
+ * khi ghi (O(log K)). Khi bucket cũ nhất hết hạn, chỉ gộp lại top K của các bucket còn sống
+ * (bucketCount × K dòng) – không tính lại từ lịch sử.
+ * Gộp như vậy vẫn đúng: player đứng trong top K của cửa sổ thì cũng đứng trong top K của bucket
+ * chứa ván tốt nhất của họ.
+ */
+public final class RollingLeaderboard {
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int capacity;
+
+    /** Chỉ số bucket (finishedAt / bucketMillis) → top của bucket */
+    private final TreeMap<Long, TopKLeaderboard> buckets = new TreeMap<>();
+    private TopKLeaderboard window;
+
+    public RollingLeaderboard(long bucketMillis, int bucketCount, int capacity) {
+        if (bucketMillis < 1 || bucketCount < 1) throw new IllegalArgumentException("bucketMillis and bucketCount must be >= 1");
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+        this.capacity = capacity;
+        this.window = new TopKLeaderboard(capacity);
+    }
+
+    public synchronized void offer(FinishedGame game, String username, long now) {
+        roll(now);
+        long bucket = game.finishedAt().toEpochMilli() / bucketMillis;
+        if (bucket < firstLiveBucket(now)) return;   // ván đã ra khỏi cửa sổ (vd phát lại từ file spill)
+        buckets.computeIfAbsent(bucket, key -> new TopKLeaderboard(capacity)).offer(game, username);
+        window.offer(game, username);
+    }
+
+    /** Top của cửa sổ tại thời điểm now; O(1) trừ lần đầu sau khi có bucket hết hạn */
+    public List<LeaderboardEntryDTO> snapshot(long now) {
+        TopKLeaderboard current;
+        synchronized (this) {
+            roll(now);
+            current = window;
+        }
+        return current.snapshot();
+    }
+
+    private long firstLiveBucket(long now) {
+        return now / bucketMillis - bucketCount + 1;
+    }
+
+    /** Bỏ bucket hết hạn và gộp lại top từ các bucket còn sống */
+    private void roll(long now) {
+        if (buckets.isEmpty() || buckets.firstKey() >= firstLiveBucket(now)) return;
+        buckets.headMap(firstLiveBucket(now)).clear();
+        TopKLeaderboard merged = new TopKLeaderboard(capacity);
+        for (TopKLeaderboard bucket : buckets.values()) bucket.mergeInto(merged);
+        window = merged;
+    }
+}
@@ -0,0 +1,67 @@
+package kienminh.tetrisgame.leaderboard;
+
+import java.util.Arrays;
+
+/**
+ * Đếm số điểm theo bucket bằng Fenwick tree: thêm/bớt và "bao nhiêu điểm cao hơn x" đều O(log n).
+ * Mỗi bucket rộng {@link #STEP} điểm – điểm Tetris của server luôn là bội số của 10 nên đếm vẫn chính xác.
+ * Số bucket tự nhân đôi khi gặp điểm lớn hơn (dựng lại cây O(n), hiếm khi xảy ra).
+ * Không thread-safe.
+ */
+public final class ScoreHistogram {
+
+    public static final int STEP = 10;
+    private static final int INITIAL_BUCKETS = 1 << 12;
+
+    private long[] tree;     // Fenwick, index 1..n
+    private long[] counts;   // số điểm của từng bucket, để dựng lại cây khi nới rộng
+    private long total;
+
+    public ScoreHistogram() {
+        counts = new long[INITIAL_BUCKETS];
+        tree = new long[INITIAL_BUCKETS + 1];
+    }
+
+    public void add(int score, long delta) {
+        int bucket = bucketOf(score);
+        ensureCapacity(bucket);
+        counts[bucket] += delta;
+        total += delta;
+        for (int i = bucket + 1; i < tree.length; i += i & -i) tree[i] += delta;
+    }
+
+    /** Số điểm thuộc bucket cao hơn bucket của score */
+    public long countAbove(int score) {
+        int bucket = bucketOf(score);
+        if (bucket >= counts.length) return 0;
+        return total - prefix(bucket + 1);
+    }
+
+    public long total() {
+        return total;
+    }
+
+    /** Tổng các bucket 0..n-1 */
+    private long prefix(int n) {
+        long sum = 0;
+        for (int i = n; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    private static int bucketOf(int score) {
+        return Math.max(0, score) / STEP;
+    }
+
+    private void ensureCapacity(int bucket) {
+        if (bucket < counts.length) return;
+        int size = counts.length;
+        while (size <= bucket) size <<= 1;
+        counts = Arrays.copyOf(counts, size);
+        tree = new long[size + 1];
+        for (int i = 1; i <= size; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= size) tree[parent] += tree[i];
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package kienminh.tetrisgame.leaderboard;
+
+import kienminh.tetrisgame.dto.LeaderboardEntryDTO;
+import kienminh.tetrisgame.model.game.FinishedGame;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Top K player theo điểm cao nhất, cập nhật tăng dần từng ván: O(log K) mỗi lần ghi.
+ * Mỗi player giữ tối đa một dòng (ván tốt nhất). Player bị đẩy ra khỏi top không cần nhớ:
+ * ngưỡng vào top chỉ tăng, nên ván cũ của họ không bao giờ quay lại top.
+ * Đọc không khóa qua danh sách bất biến, dựng lại (lười) ở lần đọc đầu tiên sau khi top đổi.
+ */
+public final class TopKLeaderboard {
+
+    private record Entry(String username, FinishedGame game) {}
+
+    /** Điểm giảm dần; bằng điểm thì ai đạt trước đứng trước */
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry e) -> -e.game().score())
+            .thenComparing(e -> e.game().finishedAt())
+            .thenComparingLong(e -> e.game().playerId());
+
+    private final int capacity;
+    private final TreeSet<Entry> ranked = new TreeSet<>(ORDER);
+    private final Map<Long, Entry> byPlayer = new HashMap<>();
+
+    /** null = top đã đổi từ lần dựng trước */
+    private volatile List<LeaderboardEntryDTO> snapshot = List.of();
+
+    public TopKLeaderboard(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.capacity = capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** @return true nếu top thay đổi */
+    public synchronized boolean offer(FinishedGame game, String username) {
+        Entry entry = new Entry(username, game);
+        Entry current = byPlayer.get(game.playerId());
+        if (current != null) {
+            if (ORDER.compare(entry, current) >= 0) return false;   // không tốt hơn ván đang giữ
+            ranked.remove(current);
+        } else if (ranked.size() >= capacity) {
+            Entry last = ranked.last();
+            if (ORDER.compare(entry, last) >= 0) return false;
+            ranked.pollLast();
+            byPlayer.remove(last.game().playerId());
+        }
+        ranked.add(entry);
+        byPlayer.put(game.playerId(), entry);
+        snapshot = null;
+        return true;
+    }
+
+    /** Đưa toàn bộ top của bảng này vào target (gộp các bucket thời gian) */
+    public synchronized void mergeInto(TopKLeaderboard target) {
+        for (Entry entry : ranked) target.offer(entry.game(), entry.username());
+    }
+
+    /** Top hiện tại, hạng tăng dần – không khóa khi top không đổi kể từ lần đọc trước */
+    public List<LeaderboardEntryDTO> snapshot() {
+        List<LeaderboardEntryDTO> current = snapshot;
+        return current != null ? current : buildSnapshot();
+    }
+
+    private synchronized List<LeaderboardEntryDTO> buildSnapshot() {
+        if (snapshot != null) return snapshot;
+        List<LeaderboardEntryDTO> rows = new ArrayList<>(ranked.size());
+        int rank = 1;
+        for (Entry entry : ranked) {
+            FinishedGame game = entry.game();
+            rows.add(new LeaderboardEntryDTO(rank++, game.playerId(), entry.username(), game.score(),
+                    game.level(), game.lines(), game.durationMs(), game.mode().name(), game.finishedAt()));
+        }
+        snapshot = List.copyOf(rows);
+        return snapshot;
+    }
+}
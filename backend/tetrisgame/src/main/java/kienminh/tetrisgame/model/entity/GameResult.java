@@ -0,0 +1,50 @@
+package kienminh.tetrisgame.model.entity;
+
+import jakarta.persistence.*;
+import kienminh.tetrisgame.model.game.enums.GameMode;
+import lombok.*;
+
+import java.time.Instant;
+
+// ===================== GameResult =====================
+/** Lịch sử ván đã chơi: chỉ insert, không bao giờ update (ghi theo lô từ UserScoreService) */
+@Entity
+@Table(name = "game_results", indexes = {
+        @Index(name = "idx_game_results_player", columnList = "player_id"),
+        @Index(name = "idx_game_results_score", columnList = "score"),
+        @Index(name = "idx_game_results_finished_at", columnList = "finished_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GameResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "player_id", nullable = false)
+    private Player player;
+
+    @Column(nullable = false)
+    private int score;
+
+    @Column(nullable = false)
+    private int level;
+
+    @Column(name = "lines_cleared", nullable = false)
+    private int linesCleared;
+
+    @Column(name = "duration_ms", nullable = false)
+    private long durationMs;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private GameMode mode;
+
+    @Column(name = "finished_at", nullable = false)
+    private Instant finishedAt;
+}
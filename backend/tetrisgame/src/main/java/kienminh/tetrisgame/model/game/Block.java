@@ -3,8 +3,10 @@ package kienminh.tetrisgame.model.game;
 import kienminh.tetrisgame.model.game.enums.BlockType;
 import lombok.*;
 
-import java.util.Arrays;
-
+/**
+ * Block đang rơi: chỉ gồm (type, rotation, x, y).
+ * Shape và mask lấy từ bảng xoay tính sẵn trong {@link BlockType}, xoay không cấp phát bộ nhớ.
+ */
 @Getter
 @Setter
 @NoArgsConstructor
@@ -12,29 +14,37 @@ import java.util.Arrays;
 @Builder
 public class Block {
     private BlockType type;
-    private int[][] shape;
+    private int rotation;          // 0..3, theo chiều kim đồng hồ
     private int x;
     private int y;
 
+    /** Hướng xoay hiện tại */
+    public BlockType.Orientation orientation() {
+        return type.orientation(rotation);
+    }
+
+    /** Shape của hướng xoay hiện tại (dùng chung, không được sửa) */
+    public int[][] getShape() {
+        return orientation().getShape();
+    }
+
+    /** Mask theo hàng dùng cho collision/lock trên bitboard (không được sửa mảng trả về) */
+    public int[] rowMasks() {
+        return orientation().getRowMasks();
+    }
+
     /** Rotate clockwise */
     public void rotate() {
-        int rows = shape.length;
-        int cols = shape[0].length;
-        int[][] rotated = new int[cols][rows];
-        for (int i = 0; i < rows; i++)
-            for (int j = 0; j < cols; j++)
-                rotated[j][rows - 1 - i] = shape[i][j];
-        shape = rotated;
+        rotation = (rotation + 1) & (BlockType.ROTATIONS - 1);
     }
 
     /** Rotate counter-clockwise */
     public void rotateCounter() {
-        for (int i = 0; i < 3; i++) rotate();
+        rotation = (rotation + BlockType.ROTATIONS - 1) & (BlockType.ROTATIONS - 1);
     }
 
-    /** Deep copy block */
+    /** Copy block */
     public Block copy() {
-        int[][] s = Arrays.stream(shape).map(int[]::clone).toArray(int[][]::new);
-        return Block.builder().type(type).shape(s).x(x).y(y).build();
+        return Block.builder().type(type).rotation(rotation).x(x).y(y).build();
     }
 }
@@ -4,34 +4,176 @@ import kienminh.tetrisgame.model.game.enums.BlockType;
 import lombok.*;
 
 import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
-@Builder
 public class Board {
 
+    /** Giá trị trả về của shiftRow khi block lọt ra ngoài trái/phải */
+    private static final int OUT_OF_BOUNDS = -1;
+
     private int width = 10;
     private int height = 20;
-    private int[][] grid;          // grid[y][x], 0=empty, >0 filled (type id)
+    private int[][] grid;          // grid[y][x], 0=empty, >0 filled (type id) – chỉ là color plane
     private Block currentBlock;
     private Block nextBlock;
 
+    /** Bitboard: rows[y] có bit x = 1 nếu ô (x, y) đã bị chiếm. Mọi logic nóng chạy trên mask này */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int[] rows;
+
+    /** Mask của một hàng đầy (width bit thấp) */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int fullRowMask;
+
+    /** Hàng cao nhất còn ô (height nếu board trống) – rows phía trên luôn rỗng */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int stackTop;
+
+    /** Số hàng đã đầy sau các lần lock chưa được clear, và hàng thấp nhất trong số đó */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int pendingFullRows;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int lowestFullRow;
+
+    /** Chiều cao stack của từng cột (0 = cột trống) và số ô đã chiếm trong cột – cập nhật khi lock/clear */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int[] columnHeights;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int[] columnFill;
+
+    /** Tổng chiều cao các cột và tổng số ô đã chiếm → holes = aggregateHeight - filledCells */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int aggregateHeight;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int filledCells;
+
+    /** Nguồn random có seed cho chuỗi block */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Random random;
+
+    /** Tăng mỗi khi board thay đổi (move/rotate/lock/clear/spawn) */
+    @Setter(AccessLevel.NONE)
+    private long version;
+
+    /** Snapshot đã dựng cho version gần nhất – mọi reader dùng chung đến lần thay đổi tiếp theo */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile CachedSnapshot snapshotCache;
+
+    /** Tăng khi phần stack đã khóa đổi (lock/clear/thay grid) – block rơi không tính */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long stackVersion;
+
+    /** Bản copy bất biến của stack; các snapshot theo từng bước move dùng chung các hàng của nó */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile CachedSnapshot stackCache;
+
+    /**
+     * Copy-on-write theo hàng: ownedRows[y] = false nghĩa là grid[y] đang được stackCache dùng chung,
+     * phải clone trước khi ghi. Nhờ vậy stack copy chỉ là copy mảng tham chiếu.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean[] ownedRows;
+
+    private record CachedSnapshot(long version, int[][] cells) {}
+
     /** Khởi tạo board và spawn block đầu tiên */
     public void init() {
+        init(ThreadLocalRandom.current().nextLong());
+    }
+
+    /** Khởi tạo board với chuỗi block xác định bởi seed */
+    public void init(long seed) {
+        random = new Random(seed);
         grid = new int[height][width];
         for (int i = 0; i < height; i++) Arrays.fill(grid[i], 0);
+        rebuildMasks();
 
         nextBlock = randomBlock();
         spawnBlock(); // set currentBlock
     }
 
+    /**
+     * Gán color plane từ ngoài vào (restore/benchmark) và dựng lại bitboard tương ứng.
+     * Board của một GameState thì gọi {@link GameState#setGrid} để snapshot được publish lại.
+     */
+    public void setGrid(int[][] grid) {
+        this.grid = grid;
+        rebuildMasks();
+        version++;
+    }
+
+    public void setCurrentBlock(Block currentBlock) {
+        this.currentBlock = currentBlock;
+        version++;
+    }
+
+    /** Dựng lại rows[] từ grid – chỉ chạy khi grid bị thay thế, không nằm trên hot path */
+    private void rebuildMasks() {
+        if (width < 1 || width >= Integer.SIZE) {
+            throw new IllegalStateException("Board width must be between 1 and " + (Integer.SIZE - 1));
+        }
+        fullRowMask = (1 << width) - 1;
+        stackVersion++;
+        stackTop = height;
+        pendingFullRows = 0;
+        lowestFullRow = -1;
+        aggregateHeight = 0;
+        filledCells = 0;
+        if (grid == null) {
+            rows = null;
+            columnHeights = null;
+            columnFill = null;
+            return;
+        }
+        rows = new int[height];
+        ownedRows = new boolean[height];
+        columnHeights = new int[width];
+        columnFill = new int[width];
+        for (int y = height - 1; y >= 0; y--) {
+            int mask = 0;
+            for (int x = 0; x < width; x++) {
+                if (grid[y][x] != 0) {
+                    mask |= 1 << x;
+                    columnFill[x]++;
+                    columnHeights[x] = height - y;
+                }
+            }
+            rows[y] = mask;
+            filledCells += Integer.bitCount(mask);
+            if (mask != 0) stackTop = y;
+            if (mask == fullRowMask) {
+                pendingFullRows++;
+                lowestFullRow = Math.max(lowestFullRow, y);
+            }
+        }
+        for (int h : columnHeights) aggregateHeight += h;
+    }
+
     /** Sinh block ngẫu nhiên */
     private Block randomBlock() {
-        BlockType t = BlockType.random();
-        int[][] s = Arrays.stream(t.getShape()).map(int[]::clone).toArray(int[][]::new);
-        return Block.builder().type(t).shape(s).x(0).y(0).build();
+        BlockType type = random != null ? BlockType.random(random) : BlockType.random();
+        return Block.builder().type(type).rotation(0).x(0).y(0).build();
     }
 
     /**
@@ -40,12 +182,14 @@ public class Board {
      */
     public boolean spawnBlock() {
         currentBlock = nextBlock.copy();
-        currentBlock.setX(width / 2 - currentBlock.getShape()[0].length / 2);
-        currentBlock.setY(-currentBlock.getShape().length + 1); // allow negative y
+        BlockType.Orientation o = currentBlock.orientation();
+        currentBlock.setX(o.spawnX(width));
+        currentBlock.setY(o.spawnY()); // allow negative y
         nextBlock = randomBlock();
+        version++;
 
         // ✅ Check if spawn position collides → game over
-        return !collision(currentBlock.getX(), currentBlock.getY(), currentBlock.getShape(), true);
+        return !collision(currentBlock.getX(), currentBlock.getY(), currentBlock.rowMasks(), true);
     }
 
     /** Di chuyển block sang trái */
@@ -70,91 +214,145 @@ public class Board {
         return true;
     }
 
-    /** Drop block xuống đáy */
+    /** Drop block xuống đáy – khoảng rơi tính một lần từ column heights */
     public void dropDown() {
-        while (currentBlock != null && moveDown()) {
-            // loop until locked
+        if (currentBlock == null) return;
+        int distance = dropDistance();
+        if (distance > 0) {
+            currentBlock.setY(currentBlock.getY() + distance);
+            version++;
         }
+        lockBlock();
     }
 
-    /** Xoay block hiện tại */
+    /** Hàng y của ghost piece (vị trí block nếu hard drop), hoặc -1 nếu không có block */
+    public int ghostY() {
+        if (currentBlock == null) return -1;
+        return currentBlock.getY() + dropDistance();
+    }
+
+    /**
+     * Số hàng block hiện tại có thể rơi. O(width) từ column heights: ô thấp nhất của mỗi cột
+     * chỉ có thể chạm đỉnh stack của cột đó. Nếu block đã nằm dưới đỉnh stack (luồn dưới mái)
+     * thì quay về dò từng bước.
+     */
+    private int dropDistance() {
+        BlockType.Orientation o = currentBlock.orientation();
+        int[] bottoms = o.getColumnBottoms();
+        int bx = currentBlock.getX();
+        int by = currentBlock.getY();
+
+        int distance = Integer.MAX_VALUE;
+        for (int c = 0; c < bottoms.length; c++) {
+            if (bottoms[c] < 0) continue;
+            int surface = height - columnHeights[bx + c];  // hàng trên cùng đã chiếm (height nếu trống)
+            int cellY = by + bottoms[c];
+            if (cellY >= surface) return stepDropDistance();
+            distance = Math.min(distance, surface - cellY - 1);
+        }
+        return distance == Integer.MAX_VALUE ? 0 : distance;
+    }
+
+    private int stepDropDistance() {
+        int[] masks = currentBlock.rowMasks();
+        int x = currentBlock.getX();
+        int y = currentBlock.getY();
+        int distance = 0;
+        while (!collision(x, y + distance + 1, masks, true)) distance++;
+        return distance;
+    }
+
+    /** Xoay block hiện tại – thử hướng mới trên bảng xoay trước, chỉ commit khi hợp lệ */
     public void rotateBlock() {
         if (currentBlock == null) return;
 
+        int rotation = currentBlock.getRotation() + 1;
+        int[] masks = currentBlock.getType().orientation(rotation).getRowMasks();
+        int x = currentBlock.getX();
+        int y = currentBlock.getY();
+
+        // wall kicks: thử tại chỗ, rồi dịch trái/phải
+        int kickX;
+        if (!collision(x, y, masks, true)) kickX = x;
+        else if (!collision(x - 1, y, masks, true)) kickX = x - 1;
+        else if (!collision(x + 1, y, masks, true)) kickX = x + 1;
+        else return; // không xoay được → giữ nguyên
+
         currentBlock.rotate();
-        if (collision(currentBlock.getX(), currentBlock.getY(), currentBlock.getShape(), true)) {
-            // wall kicks: thử dịch trái/phải
-            if (!move(currentBlock.getX() - 1, currentBlock.getY()) &&
-                    !move(currentBlock.getX() + 1, currentBlock.getY())) {
-                currentBlock.rotateCounter(); // rollback
-            }
-        }
+        currentBlock.setX(kickX);
+        version++;
     }
 
     /** Kiểm tra collision và di chuyển block */
     private boolean move(int newX, int newY) {
         if (currentBlock == null) return false;
-        if (!collision(newX, newY, currentBlock.getShape(), true)) {
+        if (!collision(newX, newY, currentBlock.rowMasks(), true)) {
             currentBlock.setX(newX);
             currentBlock.setY(newY);
+            version++;
             return true;
         }
         return false;
     }
 
     /**
-     * ✅ IMPROVED: Collision detection with proper out-of-bounds checks
+     * Collision detection trên bitboard: mỗi hàng của block là một mask đã dịch sẵn,
+     * va chạm = AND với hàng tương ứng của board.
      * @param x position x
      * @param y position y
-     * @param shape block matrix
+     * @param masks mask theo hàng của block (xem {@link Block#rowMasks()})
      * @param allowAbove allow block above board (spawn area)
      */
-    private boolean collision(int x, int y, int[][] shape, boolean allowAbove) {
-        for (int i = 0; i < shape.length; i++) {
-            for (int j = 0; j < shape[i].length; j++) {
-                if (shape[i][j] == 0) continue;
-
-                int nx = x + j;
-                int ny = y + i;
-
-                // ✅ Check left/right boundaries
-                if (nx < 0 || nx >= width) return true;
+    private boolean collision(int x, int y, int[] masks, boolean allowAbove) {
+        for (int i = 0; i < masks.length; i++) {
+            int mask = masks[i];
+            if (mask == 0) continue;
 
-                // ✅ Check bottom boundary (hard collision)
-                if (ny >= height) return true;
+            // ✅ Check left/right boundaries
+            int shifted = shiftRow(mask, x);
+            if (shifted == OUT_OF_BOUNDS) return true;
 
-                // ✅ Check if block is way above spawn area (top out)
-                // If any block part is more than 2 rows above the visible board, it's out
-                if (ny < -shape.length && !allowAbove) return true;
+            int ny = y + i;
 
-                // ✅ Check above board only if NOT allowed
-                if (ny < 0 && !allowAbove) return true;
+            // ✅ Check bottom boundary (hard collision)
+            if (ny >= height) return true;
 
-                // ✅ Check grid collision (only if within bounds)
-                if (ny >= 0 && grid[ny][nx] != 0) return true;
+            // ✅ Above board: chỉ hợp lệ khi cho phép (spawn area)
+            if (ny < 0) {
+                if (!allowAbove) return true;
+                continue;
             }
+
+            // ✅ Check grid collision
+            if ((rows[ny] & shifted) != 0) return true;
         }
         return false;
     }
 
+    /** Dịch mask của một hàng block tới cột x; OUT_OF_BOUNDS nếu có ô nằm ngoài board */
+    private int shiftRow(int mask, int x) {
+        if (x >= 0) {
+            if (x >= Integer.SIZE) return OUT_OF_BOUNDS;
+            int shifted = mask << x;
+            if ((shifted >>> x) != mask || (shifted & ~fullRowMask) != 0) return OUT_OF_BOUNDS;
+            return shifted;
+        }
+        if (-x >= Integer.SIZE || (mask & ((1 << -x) - 1)) != 0) return OUT_OF_BOUNDS;
+        return mask >>> -x;
+    }
+
     /** ✅ NEW: Check if block is completely out of bounds (top out detection) */
     public boolean isBlockTopOut() {
         if (currentBlock == null) return false;
 
-        int[][] shape = currentBlock.getShape();
-        int x = currentBlock.getX();
+        int[] masks = currentBlock.rowMasks();
         int y = currentBlock.getY();
 
         // If all parts of the block are above the visible board
-        for (int i = 0; i < shape.length; i++) {
-            for (int j = 0; j < shape[i].length; j++) {
-                if (shape[i][j] != 0) {
-                    int ny = y + i;
-                    // If block is still in spawn area or visible area
-                    if (ny >= -shape.length) {
-                        return false; // Block is still within acceptable bounds
-                    }
-                }
+        for (int i = 0; i < masks.length; i++) {
+            // If block is still in spawn area or visible area
+            if (masks[i] != 0 && y + i >= -masks.length) {
+                return false; // Block is still within acceptable bounds
             }
         }
 
@@ -162,77 +360,197 @@ public class Board {
         return true;
     }
 
-    /** Ghi block vào grid khi chạm đáy */
+    /** Ghi block vào bitboard (và color plane) khi chạm đáy */
     private void lockBlock() {
         if (currentBlock == null) return;
 
-        int[][] shape = currentBlock.getShape();
+        int[] masks = currentBlock.rowMasks();
         int id = currentBlock.getType().ordinal() + 1;
 
-        for (int i = 0; i < shape.length; i++) {
-            for (int j = 0; j < shape[i].length; j++) {
-                if (shape[i][j] != 0) {
-                    int x = currentBlock.getX() + j;
-                    int y = currentBlock.getY() + i;
-
-                    // ✅ Check if lock position is out of bounds
-                    if (y >= height || y < 0 || x < 0 || x >= width) {
-                        // Block locked out of bounds = GAME OVER
-                        continue; // Don't write to grid
-                    }
-
-                    grid[y][x] = id;
+        for (int i = 0; i < masks.length; i++) {
+            if (masks[i] == 0) continue;
+            int y = currentBlock.getY() + i;
+
+            // ✅ Check if lock position is out of bounds
+            // Block locked out of bounds = GAME OVER → không ghi vào grid
+            if (y >= height || y < 0) continue;
+            int shifted = shiftRow(masks[i], currentBlock.getX());
+            if (shifted == OUT_OF_BOUNDS) continue;
+
+            rows[y] |= shifted;
+            int[] gridRow = ownRow(y);
+            for (int bits = shifted; bits != 0; bits &= bits - 1) {
+                int x = Integer.numberOfTrailingZeros(bits);
+                gridRow[x] = id;
+                columnFill[x]++;
+                filledCells++;
+                if (height - y > columnHeights[x]) {
+                    aggregateHeight += height - y - columnHeights[x];
+                    columnHeights[x] = height - y;
                 }
             }
+
+            // Ghi nhận ngay hàng vừa đầy để clearLines() không phải quét cả board
+            if (y < stackTop) stackTop = y;
+            if (rows[y] == fullRowMask) {
+                pendingFullRows++;
+                if (y > lowestFullRow) lowestFullRow = y;
+            }
         }
 
         // Không clearLines() và không spawn ở đây – để GameState xử lý tiếp
         currentBlock = null;
+        stackVersion++;
+        version++;
     }
 
-    /** Xóa các dòng đầy */
+    /**
+     * Xóa các dòng đầy trong một lượt compaction.
+     * Chỉ đụng tới các hàng từ đỉnh stack đến hàng đầy thấp nhất, mỗi hàng được dời tối đa một lần.
+     */
     public int clearLines() {
-        int linesCleared = 0;
+        if (pendingFullRows == 0) return 0;
 
-        for (int row = height - 1; row >= 0; row--) {
-            boolean full = true;
-            for (int col = 0; col < width; col++) {
-                if (grid[row][col] == 0) { full = false; break; }
-            }
-            if (full) {
-                for (int r = row; r > 0; r--) {
-                    System.arraycopy(grid[r - 1], 0, grid[r], 0, width);
-                }
-                Arrays.fill(grid[0], 0);
+        int linesCleared = 0;
+        int highestCleared = height;
+        int write = lowestFullRow;
+        for (int read = lowestFullRow; read >= stackTop; read--) {
+            if (rows[read] == fullRowMask) {
                 linesCleared++;
-                row++; // re-check row after cascade
+                highestCleared = read;
+                continue;
+            }
+            if (write != read) {
+                // Dời cả tham chiếu hàng (kèm quyền sở hữu) thay vì copy từng ô
+                rows[write] = rows[read];
+                grid[write] = grid[read];
+                ownedRows[write] = ownedRows[read];
             }
+            write--;
+        }
+
+        // Các hàng trên cùng vừa được giải phóng
+        for (int y = write; y >= stackTop; y--) {
+            rows[y] = 0;
+            grid[y] = new int[width];
+            ownedRows[y] = true;
         }
 
+        stackTop += linesCleared;
+        pendingFullRows = 0;
+        lowestFullRow = -1;
+        updateColumnsAfterClear(linesCleared, highestCleared);
+        stackVersion++;
+        version++;
         return linesCleared;
     }
 
-    /** Snapshot để render frontend */
-    public int[][] getBoardSnapshot() {
-        int[][] copy = new int[height][width];
-        for (int i = 0; i < height; i++) copy[i] = Arrays.copyOf(grid[i], width);
-
-        if (currentBlock != null) {
-            int[][] shape = currentBlock.getShape();
-            int id = currentBlock.getType().ordinal() + 1;
-
-            for (int i = 0; i < shape.length; i++) {
-                for (int j = 0; j < shape[i].length; j++) {
-                    if (shape[i][j] != 0) {
-                        int x = currentBlock.getX() + j;
-                        int y = currentBlock.getY() + i;
-                        if (y >= 0 && y < height && x >= 0 && x < width) copy[y][x] = id;
+    /**
+     * Cập nhật column cache sau khi xóa {@code cleared} hàng đầy (mỗi hàng có đúng một ô ở mọi cột).
+     * Cột có đỉnh nằm trên hàng bị xóa cao nhất chỉ cần trừ chiều cao; cột có đỉnh nằm trong hàng bị xóa
+     * thì dò lại từ đỉnh stack mới xuống.
+     */
+    private void updateColumnsAfterClear(int cleared, int highestCleared) {
+        filledCells -= cleared * width;
+        for (int x = 0; x < width; x++) {
+            columnFill[x] -= cleared;
+            int oldHeight = columnHeights[x];
+            int newHeight;
+            if (height - oldHeight < highestCleared) {
+                newHeight = oldHeight - cleared;
+            } else {
+                newHeight = 0;
+                for (int y = stackTop; y < height; y++) {
+                    if ((rows[y] & (1 << x)) != 0) {
+                        newHeight = height - y;
+                        break;
                     }
                 }
             }
+            aggregateHeight += newHeight - oldHeight;
+            columnHeights[x] = newHeight;
+        }
+    }
+
+    // --- Column cache (read-only) cho scoring, bot và analytics ---
+
+    /** Chiều cao stack của cột x (0 = trống) */
+    public int columnHeight(int x) {
+        return columnHeights[x];
+    }
+
+    /** Số ô trống nằm dưới đỉnh stack của cột x */
+    public int columnHoles(int x) {
+        return columnHeights[x] - columnFill[x];
+    }
+
+    /** Tổng số hole trên board */
+    public int totalHoles() {
+        return aggregateHeight - filledCells;
+    }
+
+    /** Tổng chiều cao các cột */
+    public int aggregateHeight() {
+        return aggregateHeight;
+    }
+
+    /** Chiều cao cột cao nhất */
+    public int maxHeight() {
+        return height - stackTop;
+    }
+
+    /**
+     * Snapshot để render frontend.
+     * Chỉ dựng lại khi board đã đổi version; giữa hai lần thay đổi mọi reader nhận cùng một mảng,
+     * vì vậy mảng trả về là read-only. Như mọi method khác của Board, chỉ writer của ván được gọi –
+     * thread khác đọc qua {@link GameSnapshot}.
+     */
+    public int[][] getBoardSnapshot() {
+        CachedSnapshot cached = snapshotCache;
+        if (cached != null && cached.version() == version) return cached.cells();
+
+        int[][] cells = frame().cells();
+        snapshotCache = new CachedSnapshot(version, cells);
+        return cells;
+    }
+
+    /**
+     * Khung hình bất biến của trạng thái hiện tại (stack copy dùng chung + block đang rơi).
+     * Rẻ để tạo ở mỗi bước: stack chỉ copy lại sau lock/clear, mảng ô dựng lười khi có người đọc.
+     */
+    public BoardFrame frame() {
+        int[][] stack = stackSnapshot();
+        if (currentBlock == null) return new BoardFrame(stack, 0, 0, new int[0]);
+
+        int[] masks = currentBlock.rowMasks();
+        int[] shifted = new int[masks.length];
+        for (int i = 0; i < masks.length; i++) {
+            if (masks[i] == 0) continue;
+            int row = shiftRow(masks[i], currentBlock.getX());
+            shifted[i] = row == OUT_OF_BOUNDS ? 0 : row;
         }
+        return new BoardFrame(stack, currentBlock.getType().ordinal() + 1, currentBlock.getY(), shifted);
+    }
+
+    /** Copy của phần stack đã khóa, dựng lại chỉ khi stack đổi */
+    private int[][] stackSnapshot() {
+        CachedSnapshot cached = stackCache;
+        if (cached != null && cached.version() == stackVersion) return cached.cells();
 
-        return copy;
+        // Các hàng từ giờ dùng chung với stack copy; lần ghi sau sẽ clone (ownRow)
+        int[][] cells = grid.clone();
+        Arrays.fill(ownedRows, false);
+        stackCache = new CachedSnapshot(stackVersion, cells);
+        return cells;
+    }
+
+    /** Hàng y của grid để ghi: clone trước nếu đang dùng chung với stack copy */
+    private int[] ownRow(int y) {
+        if (!ownedRows[y]) {
+            grid[y] = grid[y].clone();
+            ownedRows[y] = true;
+        }
+        return grid[y];
     }
 
     /** Kiểm tra còn block đang chơi */
@@ -0,0 +1,59 @@
+package kienminh.tetrisgame.model.game;
+
+/**
+ * Khung hình bất biến của board: stack đã khóa (dùng chung giữa các frame) + block đang rơi.
+ * Mảng ô để render chỉ được dựng khi có người đọc, nên writer publish frame gần như miễn phí.
+ */
+public final class BoardFrame {
+
+    private final int[][] stack;        // read-only, chia sẻ với Board cho tới lần lock/clear kế tiếp
+    private final int pieceId;          // 0 nếu không có block đang rơi
+    private final int pieceY;
+    private final int[] pieceRows;      // mask từng hàng block đã dịch tới cột x (0 = không vẽ)
+
+    private volatile int[][] cells;
+
+    BoardFrame(int[][] stack, int pieceId, int pieceY, int[] pieceRows) {
+        this.stack = stack;
+        this.pieceId = pieceId;
+        this.pieceY = pieceY;
+        this.pieceRows = pieceRows;
+    }
+
+    /** Stack đã khóa (không gồm block đang rơi) – read-only, hàng không đổi dùng chung giữa các frame */
+    public int[][] stack() { return stack; }
+
+    /** Loại block đang rơi (ordinal + 1, như giá trị ô), 0 nếu không có */
+    public int pieceId() { return pieceId; }
+
+    /** Hàng trên cùng của bounding box block đang rơi (có thể âm khi vừa spawn) */
+    public int pieceY() { return pieceY; }
+
+    /** Mask cột của từng hàng block, đã dịch tới cột x – read-only */
+    public int[] pieceRows() { return pieceRows; }
+
+    /** Board đã vẽ block đang rơi; dựng một lần rồi dùng chung – không được sửa mảng trả về */
+    public int[][] cells() {
+        int[][] result = cells;
+        if (result == null) {
+            result = build();
+            cells = result;
+        }
+        return result;
+    }
+
+    /** Chỉ các hàng block đi qua được copy riêng, các hàng còn lại trỏ thẳng vào stack */
+    private int[][] build() {
+        int[][] copy = stack.clone();
+        for (int i = 0; i < pieceRows.length; i++) {
+            int y = pieceY + i;
+            if (pieceRows[i] == 0 || y < 0 || y >= copy.length) continue;
+            int[] row = stack[y].clone();
+            for (int bits = pieceRows[i]; bits != 0; bits &= bits - 1) {
+                row[Integer.numberOfTrailingZeros(bits)] = pieceId;
+            }
+            copy[y] = row;
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,19 @@
+package kienminh.tetrisgame.model.game;
+
+import kienminh.tetrisgame.model.game.enums.GameMode;
+
+import java.time.Instant;
+
+/**
+ * Kết quả bất biến của một ván đã kết thúc. Chụp trên shard lúc game over (không đụng DB),
+ * sau đó được ghi vào lịch sử và bảng xếp hạng ở thread khác.
+ */
+public record FinishedGame(long playerId, int score, int level, int lines, long durationMs,
+                           GameMode mode, Instant finishedAt) {
+
+    public static FinishedGame of(long playerId, GameState state, GameMode mode) {
+        long now = System.currentTimeMillis();
+        return new FinishedGame(playerId, state.getScore(), state.getLevel(), state.getLines(),
+                Math.max(0, now - state.getStartedAt()), mode, Instant.ofEpochMilli(now));
+    }
+}
@@ -0,0 +1,31 @@
+package kienminh.tetrisgame.model.game;
+
+import kienminh.tetrisgame.model.game.enums.GameStatus;
+
+/**
+ * Ảnh chụp bất biến của một ván, được GameState publish sau mỗi thay đổi.
+ * Thread nào cũng đọc được mà không cần khóa; mảng board dùng chung, không được sửa.
+ */
+public record GameSnapshot(
+        BoardFrame frame,
+        int score,
+        int level,
+        GameStatus status,
+        String currentBlock,
+        String nextBlock,
+        long version,
+        long seed,          // seed chuỗi block của ván
+        int pieces,         // số block đã lock = index của block đang rơi trong chuỗi theo seed
+        long inputSeq       // seq input client cuối cùng đã áp dụng (0 = client không đánh seq)
+) {
+    private static final int[][] EMPTY_BOARD = new int[0][0];
+
+    /** Board đã vẽ block đang rơi (dựng lười ở lần đọc đầu tiên) */
+    public int[][] board() {
+        return frame != null ? frame.cells() : EMPTY_BOARD;
+    }
+
+    public boolean isGameOver() {
+        return status == GameStatus.GAME_OVER;
+    }
+}
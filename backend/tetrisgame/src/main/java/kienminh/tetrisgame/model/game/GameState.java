@@ -3,9 +3,19 @@ package kienminh.tetrisgame.model.game;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import kienminh.tetrisgame.model.entity.Player;
 import kienminh.tetrisgame.model.game.enums.GameStatus;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trạng thái một ván. Không thread-safe: trên server mọi thay đổi đi qua shard
+ * sở hữu ván trong GameLoop (single-writer), nên không cần khóa.
+ * Thread khác chỉ đọc qua {@link #snapshot()}: mọi thay đổi phải đi qua method của GameState
+ * (không sửa Board trực tiếp) để snapshot được publish lại.
+ */
 @Getter
 @Setter
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -16,52 +26,201 @@ public class GameState {
     private int level;
     private GameStatus status;
     private Player player;
+
+    @Setter(AccessLevel.NONE)
     private String nextBlock;
 
+    /** Seed của chuỗi block – cùng seed và cùng input cho ra cùng một ván */
+    @Setter(AccessLevel.NONE)
+    private long seed;
+
+    /** Tổng số dòng đã xóa và số block đã lock trong ván */
+    @Setter(AccessLevel.NONE)
+    private int lines;
+
+    @Setter(AccessLevel.NONE)
+    private int pieces;
+
+    /** Thời điểm bắt đầu ván (epoch ms) – chỉ để ghi thời lượng ván, không ảnh hưởng luật chơi */
+    @Setter(AccessLevel.NONE)
+    private long startedAt;
+
+    /** Seq của input client cuối cùng đã áp dụng – client dùng để đối chiếu phần đã dự đoán */
+    @Setter(AccessLevel.NONE)
+    private long inputSeq;
+
+    /**
+     * Version tăng đơn điệu mỗi khi trạng thái game thay đổi (kể cả qua start/reset).
+     * Mỗi GameState mới bắt đầu từ {@link #nextVersionBase()}, nên ván mới của cùng player
+     * luôn có version lớn hơn ván cũ – client bỏ frame theo version không coi ván mới là cũ.
+     */
+    @Setter(AccessLevel.NONE)
+    private long version = nextVersionBase();
+
+    /** Board version đã được tính vào version ở lần commit gần nhất */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long seenBoardVersion;
+
+    /** Ảnh chụp bất biến mới nhất, publish lại mỗi khi version tăng */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile GameSnapshot snapshot;
+
+    /**
+     * Micro giây epoch, ép tăng ngặt giữa các GameState; vẫn nhỏ hơn 2^53 nên số JSON phía JS không mất chính xác.
+     * Ván nào publish nhanh hơn đồng hồ thì đẩy mốc lên theo version của nó (xem {@link #publish()}).
+     */
+    private static final AtomicLong VERSION_BASE = new AtomicLong();
+
+    /** Mốc mới luôn vượt version đã publish của mọi ván trước */
+    private static long nextVersionBase() {
+        long now = System.currentTimeMillis() * 1000;
+        return VERSION_BASE.accumulateAndGet(now, (last, t) -> Math.max(last + 1, t));
+    }
+
     public GameState() {
         start();
     }
 
+    public GameState(long seed) {
+        start(seed);
+    }
+
     public void start() {
+        start(ThreadLocalRandom.current().nextLong());
+    }
+
+    public void start(long seed) {
+        this.seed = seed;
         this.board = new Board();
-        board.init();
+        board.init(seed);
         this.score = 0;
         this.level = 1;
+        this.lines = 0;
+        this.pieces = 0;
+        this.startedAt = System.currentTimeMillis();
         this.status = GameStatus.PLAYING;
         updateNextBlock();
+        seenBoardVersion = board.getVersion();
+        publish();
     }
 
     public void reset() {
         start();
     }
 
+    public void setStatus(GameStatus status) {
+        if (this.status == status) return;
+        this.status = status;
+        publish();
+    }
+
+    public void setBoard(Board board) {
+        this.board = board;
+        seenBoardVersion = board != null ? board.getVersion() : 0;
+        publish();
+    }
+
+    public void setScore(int score) {
+        if (this.score == score) return;
+        this.score = score;
+        publish();
+    }
+
+    public void setLevel(int level) {
+        if (this.level == level) return;
+        this.level = level;
+        publish();
+    }
+
+    /** Thay stack của board (restore/benchmark) và publish snapshot mới */
+    public void setGrid(int[][] grid) {
+        board.setGrid(grid);
+        commit();
+    }
+
+    /** Ghi nhận thay đổi của board sau một action: chỉ tăng version khi board thực sự đổi */
+    private void commit() {
+        long boardVersion = board.getVersion();
+        if (boardVersion != seenBoardVersion) {
+            seenBoardVersion = boardVersion;
+            publish();
+        }
+    }
+
+    /** Tăng version và publish ảnh chụp mới qua volatile (chỉ writer của ván gọi) */
+    private void publish() {
+        version++;
+        // Thường chỉ là một lần đọc volatile: mốc theo đồng hồ đã vượt xa version của ván
+        if (version > VERSION_BASE.get()) VERSION_BASE.accumulateAndGet(version, Math::max);
+        Block current = board != null ? board.getCurrentBlock() : null;
+        snapshot = new GameSnapshot(board != null ? board.frame() : null, score, level, status,
+                current != null ? current.getType().name() : null, nextBlock, version, seed, pieces, inputSeq);
+    }
+
+    /** Ảnh chụp mới nhất – đọc không khóa từ thread bất kỳ */
+    public GameSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Ghi nhận seq của input cuối trong batch sắp áp dụng. Gọi trước các action để snapshot
+     * của batch mang seq này; batch không đổi gì thì seq đi theo snapshot kế tiếp.
+     */
+    public void acknowledgeInput(long seq) {
+        if (seq > inputSeq) inputSeq = seq;
+    }
+
     private void updateNextBlock() {
         Block next = board.getNextBlockCopy();
         this.nextBlock = next != null ? next.getType().name() : null;
     }
 
-    public synchronized void moveLeft() {
+    public void moveLeft() {
         if (!isPlaying()) return;
         board.moveLeft();
+        commit();
     }
 
-    public synchronized void moveRight() {
+    public void moveRight() {
         if (!isPlaying()) return;
         board.moveRight();
+        commit();
     }
 
-    public synchronized void rotate() {
+    public void rotate() {
         if (!isPlaying()) return;
         board.rotateBlock();
+        commit();
     }
 
-    public synchronized void drop() {
+    public void drop() {
         if (!isPlaying()) return;
+        try {
+            dropBlock();
+        } finally {
+            commit();
+        }
+    }
+
+    public void tick() {
+        if (!isPlaying()) return;
+        try {
+            gravityStep();
+        } finally {
+            commit();
+        }
+    }
+
+    private void dropBlock() {
         board.dropDown();
+        pieces++;
 
         int lines = board.clearLines();
         if (lines > 0) {
             score += computeScoreForLines(lines);
+            this.lines += lines;
         }
 
         score += 10;
@@ -82,15 +241,15 @@ public class GameState {
         }
     }
 
-    public synchronized void tick() {
-        if (!isPlaying()) return;
-
+    private void gravityStep() {
         boolean moved = board.moveDown();
         if (!moved) {
             // Block hit ground or obstacle
+            pieces++;
             int lines = board.clearLines();
             if (lines > 0) {
                 score += computeScoreForLines(lines);
+                this.lines += lines;
                 levelUpCheck();
             }
 
@@ -122,6 +281,11 @@ public class GameState {
         };
     }
 
+    /** Khoảng thời gian rơi một hàng theo level (level càng cao rơi càng nhanh, min 200ms) */
+    public static long tickIntervalForLevel(int level) {
+        return Math.max(200, 1000 - (level - 1) * 150);
+    }
+
     private void levelUpCheck() {
         int newLevel = score / 1000 + 1;
         if (newLevel > level) level = newLevel;
@@ -1,5 +1,7 @@
 package kienminh.tetrisgame.model.game.enums;
 
+import java.util.Arrays;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 public enum BlockType {
@@ -11,12 +13,90 @@ public enum BlockType {
     J(new int[][] {{1,0,0},{1,1,1}}),
     L(new int[][] {{0,0,1},{1,1,1}});
 
+    /** Số hướng xoay của mỗi block */
+    public static final int ROTATIONS = 4;
+
+    private static final BlockType[] VALUES = values();
+
     private final int[][] shape;
-    BlockType(int[][] shape) { this.shape = shape; }
+    private final Orientation[] orientations;
+
+    BlockType(int[][] shape) {
+        this.shape = shape;
+        this.orientations = new Orientation[ROTATIONS];
+        int[][] current = shape;
+        for (int r = 0; r < ROTATIONS; r++) {
+            orientations[r] = new Orientation(current);
+            current = rotateClockwise(current);
+        }
+    }
+
     public int[][] getShape() { return shape; }
 
+    /** Hướng xoay đã tính sẵn; rotation được lấy modulo 4 */
+    public Orientation orientation(int rotation) {
+        return orientations[rotation & (ROTATIONS - 1)];
+    }
+
     public static BlockType random() {
         var vals = values();
         return vals[ThreadLocalRandom.current().nextInt(vals.length)];
     }
+
+    /** Block tiếp theo từ một nguồn random có seed (chuỗi block tái lập được) */
+    public static BlockType random(Random random) {
+        return VALUES[random.nextInt(VALUES.length)];
+    }
+
+    private static int[][] rotateClockwise(int[][] shape) {
+        int rows = shape.length;
+        int cols = shape[0].length;
+        int[][] rotated = new int[cols][rows];
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < cols; j++)
+                rotated[j][rows - 1 - i] = shape[i][j];
+        return rotated;
+    }
+
+    /**
+     * Một hướng xoay của block: shape, mask theo hàng và bounding box.
+     * Được dùng chung cho mọi Block cùng loại – không được sửa các mảng trả về.
+     */
+    public static final class Orientation {
+        private final int[][] shape;
+        private final int[] rowMasks;
+        private final int[] columnBottoms;
+        private final int width;
+        private final int height;
+
+        private Orientation(int[][] shape) {
+            this.shape = shape;
+            this.height = shape.length;
+            this.width = shape[0].length;
+            this.rowMasks = new int[height];
+            this.columnBottoms = new int[width];
+            Arrays.fill(columnBottoms, -1);
+            for (int i = 0; i < height; i++) {
+                for (int j = 0; j < width; j++) {
+                    if (shape[i][j] != 0) {
+                        rowMasks[i] |= 1 << j;
+                        columnBottoms[j] = i;
+                    }
+                }
+            }
+        }
+
+        public int[][] getShape() { return shape; }
+        public int[] getRowMasks() { return rowMasks; }
+        /** Hàng thấp nhất có ô trong từng cột của bounding box (-1 nếu cột trống) */
+        public int[] getColumnBottoms() { return columnBottoms; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+
+        /** Cột spawn trên board rộng boardWidth (căn giữa theo bounding box) */
+        public int spawnX(int boardWidth) { return boardWidth / 2 - width / 2; }
+
+        /** Hàng spawn: chỉ hàng dưới cùng của block nằm trong board */
+        public int spawnY() { return -height + 1; }
+    }
 }
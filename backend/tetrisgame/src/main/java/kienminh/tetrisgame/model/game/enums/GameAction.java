@@ -0,0 +1,19 @@
+package kienminh.tetrisgame.model.game.enums;
+
+import kienminh.tetrisgame.model.game.GameState;
+
+/** Các input người chơi có thể gửi tới một ván */
+public enum GameAction {
+    LEFT, RIGHT, ROTATE, TICK, DROP;
+
+    /** Áp dụng action lên state (state tự bỏ qua nếu không còn PLAYING) */
+    public void apply(GameState state) {
+        switch (this) {
+            case LEFT -> state.moveLeft();
+            case RIGHT -> state.moveRight();
+            case ROTATE -> state.rotate();
+            case TICK -> state.tick();
+            case DROP -> state.drop();
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package kienminh.tetrisgame.model.game.enums;
+
+public enum GameMode {
+    SOLO, MULTI
+}
@@ -0,0 +1,38 @@
+package kienminh.tetrisgame.repository;
+
+import kienminh.tetrisgame.model.entity.GameResult;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface GameResultRepository extends JpaRepository<GameResult, Long> {
+
+    /**
+     * Ván tốt nhất của từng player (đúng một dòng mỗi player), điểm giảm dần – dựng lại bảng xếp hạng lúc khởi động.
+     * Nhiều ván bằng điểm cao nhất thì giữ ván đạt trước (rồi id nhỏ hơn), cùng thứ tự với TopKLeaderboard,
+     * nên giới hạn trang đếm player chứ không đếm ván trùng điểm.
+     */
+    @Query("SELECT r FROM GameResult r JOIN FETCH r.player p JOIN FETCH p.user " +
+            "WHERE NOT EXISTS (SELECT r2.id FROM GameResult r2 WHERE r2.player = r.player AND (" +
+            "r2.score > r.score OR (r2.score = r.score AND (r2.finishedAt < r.finishedAt " +
+            "OR (r2.finishedAt = r.finishedAt AND r2.id < r.id))))) " +
+            "ORDER BY r.score DESC, r.finishedAt ASC, p.id ASC")
+    List<GameResult> findBestPerPlayer(Pageable pageable);
+
+    /** Các ván kết thúc từ thời điểm since – dựng lại bảng xếp hạng ngày/tuần lúc khởi động */
+    @Query("SELECT r FROM GameResult r JOIN FETCH r.player p JOIN FETCH p.user WHERE r.finishedAt >= :since")
+    List<GameResult> findFinishedSince(@Param("since") Instant since);
+
+    /** Điểm cao nhất của mọi player – dựng lại histogram xếp hạng lúc khởi động */
+    @Query("SELECT r.player.id AS playerId, MAX(r.score) AS score FROM GameResult r GROUP BY r.player.id")
+    List<PlayerBest> findBestScores();
+
+    interface PlayerBest {
+        Long getPlayerId();
+        Integer getScore();
+    }
+}
@@ -2,11 +2,13 @@ package kienminh.tetrisgame.service.impl;
 
 
 import kienminh.tetrisgame.dto.UserDTO;
+import kienminh.tetrisgame.model.entity.Player;
 import kienminh.tetrisgame.model.entity.User;
 import kienminh.tetrisgame.repository.UserRepository;
 import kienminh.tetrisgame.service.interfaces.AuthService;
+import kienminh.tetrisgame.service.interfaces.PlayerService;
+import kienminh.tetrisgame.util.JwtPrincipal;
 import kienminh.tetrisgame.util.JwtUtil;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -20,13 +22,19 @@ public class    AuthServiceImpl implements AuthService, UserDetailsService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final JwtSessionService jwtSessionService;
+    private final PlayerService playerService;
 
     public AuthServiceImpl(UserRepository userRepository,
                            PasswordEncoder passwordEncoder,
-                           JwtUtil jwtUtil) {
+                           JwtUtil jwtUtil,
+                           JwtSessionService jwtSessionService,
+                           PlayerService playerService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.jwtSessionService = jwtSessionService;
+        this.playerService = playerService;
     }
 
     @Override
@@ -54,20 +62,15 @@ public class    AuthServiceImpl implements AuthService, UserDetailsService {
             throw new IllegalArgumentException("Invalid password");
         }
 
-        return jwtUtil.generateToken(username);
+        // userId + playerId đi vào claim để các request sau không phải tra DB
+        Player player = playerService.getCurrentPlayer(user);
+        return jwtUtil.generateToken(user.getId(), player.getId(), user.getUsername());
     }
 
     @Override
     public UserDTO getCurrentUser() {
-        var auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
-            return null;
-        }
-
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .map(u -> new UserDTO(u.getId(), u.getUsername(), u.getLastScore()))
-                .orElse(null);
+        User user = getAuthenticatedUser();
+        return user == null ? null : new UserDTO(user.getId(), user.getUsername(), user.getLastScore());
     }
 
     @Override
@@ -79,19 +82,21 @@ public class    AuthServiceImpl implements AuthService, UserDetailsService {
 
     @Override
     public User getAuthenticatedUser() {
-        var auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
-            return null;
-        }
+        JwtPrincipal principal = getPrincipal();
+        return principal == null ? null : userRepository.findById(principal.userId()).orElse(null);
+    }
 
-        String username = auth.getName();
-        return userRepository.findByUsername(username).orElse(null);
+    @Override
+    public JwtPrincipal getPrincipal() {
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) return null;
+        return auth.getPrincipal() instanceof JwtPrincipal principal ? principal : null;
     }
 
     @Override
     public void logout(String token) {
-        // Không làm gì nếu không blacklist
-        System.out.println("User logged out, token: " + token);
+        // Token bị từ chối tới khi hết hạn
+        jwtSessionService.revoke(token);
     }
 
 }
\ No newline at end of file
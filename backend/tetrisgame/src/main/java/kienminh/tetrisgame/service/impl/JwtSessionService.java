@@ -0,0 +1,133 @@
+package kienminh.tetrisgame.service.impl;
+
+import io.jsonwebtoken.JwtException;
+import kienminh.tetrisgame.model.entity.Player;
+import kienminh.tetrisgame.repository.PlayerRepository;
+import kienminh.tetrisgame.repository.UserRepository;
+import kienminh.tetrisgame.util.JwtPrincipal;
+import kienminh.tetrisgame.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Xác thực token không đọc DB trên đường nóng: principal dựng từ claim đã ký.
+ * Thu hồi kiểm tra trong bộ nhớ:
+ * - token đã logout (theo jti) bị từ chối tới khi hết hạn;
+ * - user bị xóa bị từ chối sau tối đa user-check-ttl: trạng thái tồn tại của user được cache ngắn hạn,
+ *   nên mỗi user tốn tối đa một query mỗi TTL thay vì một query mỗi request.
+ * Token cũ chưa có uid/pid được tra một lần theo username rồi cache (LRU, tối đa MAX_LEGACY_PRINCIPALS user);
+ * khi user của mục cache không còn, mục đó bị bỏ để lần sau tra lại theo username.
+ * Danh sách thu hồi chỉ nằm trong process này.
+ */
+@Service
+public class JwtSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtSessionService.class);
+
+    private static final int MAX_LEGACY_PRINCIPALS = 10_000;
+
+    private record UserCheck(boolean active, long checkedAt) {}
+
+    private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+    private final PlayerRepository playerRepository;
+    private final long userCheckTtlMillis;
+
+    /** jti của token đã logout → hạn của token (xóa khỏi danh sách khi token tự hết hạn) */
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, UserCheck> userChecks = new ConcurrentHashMap<>();
+    /** Principal đầy đủ của token cũ (không có uid/pid), theo username; username lạ không làm map phình vô hạn */
+    private final Map<String, JwtPrincipal> legacyPrincipals = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+                    return size() > MAX_LEGACY_PRINCIPALS;
+                }
+            });
+
+    public JwtSessionService(JwtUtil jwtUtil,
+                             UserRepository userRepository,
+                             PlayerRepository playerRepository,
+                             @Value("${jwt.user-check-ttl:60000}") long userCheckTtlMillis) {
+        this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+        this.playerRepository = playerRepository;
+        this.userCheckTtlMillis = userCheckTtlMillis;
+    }
+
+    /** @return principal của token, hoặc null nếu token không hợp lệ / đã bị thu hồi */
+    public JwtPrincipal authenticate(String token) {
+        if (token == null || token.isBlank()) return null;
+        JwtPrincipal principal;
+        try {
+            principal = jwtUtil.parsePrincipal(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("JWT rejected: {}", e.getMessage());
+            return null;
+        }
+        if (principal.tokenId() != null && revokedTokens.containsKey(principal.tokenId())) return null;
+        if (principal.userId() == null || principal.playerId() == null) {
+            principal = resolveLegacy(principal);
+            if (principal == null) return null;
+            if (!isUserActive(principal.userId())) {
+                legacyPrincipals.remove(principal.username());
+                return null;
+            }
+            return principal;
+        }
+        return isUserActive(principal.userId()) ? principal : null;
+    }
+
+    /** Logout: token bị từ chối tới khi hết hạn */
+    public void revoke(String token) {
+        try {
+            JwtPrincipal principal = jwtUtil.parsePrincipal(token);
+            if (principal.tokenId() == null) {
+                // Token cũ không có jti: không thu hồi riêng được, chờ hết hạn
+                logger.info("🔓 Logout of legacy token for {}", principal.username());
+                return;
+            }
+            Instant expiresAt = principal.expiresAt() != null ? principal.expiresAt() : Instant.MAX;
+            revokedTokens.put(principal.tokenId(), expiresAt);
+            logger.info("🔒 Token revoked for {}", principal.username());
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Logout with invalid token: {}", e.getMessage());
+        }
+        purgeExpired();
+    }
+
+    private boolean isUserActive(Long userId) {
+        long now = System.currentTimeMillis();
+        UserCheck check = userChecks.get(userId);
+        if (check == null || now - check.checkedAt() >= userCheckTtlMillis) {
+            check = new UserCheck(userRepository.existsById(userId), now);
+            userChecks.put(userId, check);
+        }
+        return check.active();
+    }
+
+    private JwtPrincipal resolveLegacy(JwtPrincipal claims) {
+        JwtPrincipal cached = legacyPrincipals.get(claims.username());
+        if (cached == null) {
+            Player player = playerRepository.findByUser_Username(claims.username()).orElse(null);
+            if (player == null) return null;
+            cached = new JwtPrincipal(player.getUser().getId(), player.getId(), claims.username(), null, null);
+            legacyPrincipals.put(claims.username(), cached);
+        }
+        return new JwtPrincipal(cached.userId(), cached.playerId(), claims.username(),
+                claims.tokenId(), claims.expiresAt());
+    }
+
+    private void purgeExpired() {
+        Instant now = Instant.now();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+    }
+}
@@ -0,0 +1,147 @@
+package kienminh.tetrisgame.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import kienminh.tetrisgame.dto.LeaderboardEntryDTO;
+import kienminh.tetrisgame.dto.ScoreRankDTO;
+import kienminh.tetrisgame.leaderboard.LeaderboardWindow;
+import kienminh.tetrisgame.leaderboard.RollingLeaderboard;
+import kienminh.tetrisgame.leaderboard.ScoreHistogram;
+import kienminh.tetrisgame.leaderboard.TopKLeaderboard;
+import kienminh.tetrisgame.model.entity.GameResult;
+import kienminh.tetrisgame.model.game.FinishedGame;
+import kienminh.tetrisgame.repository.GameResultRepository;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bảng xếp hạng trong bộ nhớ: dựng lại từ bảng game_results lúc khởi động,
+ * sau đó cập nhật tăng dần mỗi khi UserScoreService ghi xong một lô kết quả.
+ * Ngoài top K còn giữ điểm cao nhất của mọi player trong một ScoreHistogram,
+ * nên hạng/percentile của bất kỳ điểm nào tính được trong O(log n) thay vì COUNT(*) trên DB.
+ * Bảng ngày/tuần là cửa sổ trượt ghép từ bucket 1 giờ / 6 giờ, tự bỏ bucket hết hạn khi đọc hoặc ghi.
+ */
+@Service
+public class LeaderboardServiceImpl implements LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardServiceImpl.class);
+
+    private final GameResultRepository gameResultRepository;
+    private final TopKLeaderboard allTime;
+    private final RollingLeaderboard daily;
+    private final RollingLeaderboard weekly;
+
+    /** Điểm cao nhất của từng player và histogram của chúng; khóa bằng chính histogram */
+    private final ScoreHistogram bestHistogram = new ScoreHistogram();
+    private final Map<Long, Integer> bestScores = new HashMap<>();
+
+    public LeaderboardServiceImpl(GameResultRepository gameResultRepository,
+                                  @Value("${leaderboard.size:100}") int size) {
+        this.gameResultRepository = gameResultRepository;
+        this.allTime = new TopKLeaderboard(size);
+        this.daily = new RollingLeaderboard(TimeUnit.HOURS.toMillis(1), 24, size);
+        this.weekly = new RollingLeaderboard(TimeUnit.HOURS.toMillis(6), 28, size);
+    }
+
+    /**
+     * Dựng lại từ DB. Chạy lúc khởi tạo bean, trước khi UserScoreService (phụ thuộc bean này)
+     * bắt đầu ghi – nên không ván nào bị đếm hai lần trong histogram.
+     */
+    @PostConstruct
+    public void rebuild() {
+        try {
+            List<GameResult> best = gameResultRepository.findBestPerPlayer(PageRequest.of(0, allTime.capacity()));
+            for (GameResult result : best) {
+                allTime.offer(toFinishedGame(result), result.getPlayer().getUser().getUsername());
+            }
+            List<GameResultRepository.PlayerBest> scores = gameResultRepository.findBestScores();
+            synchronized (bestHistogram) {
+                for (GameResultRepository.PlayerBest player : scores) {
+                    updateBest(player.getPlayerId(), player.getScore());
+                }
+            }
+            long now = System.currentTimeMillis();
+            List<GameResult> recent = gameResultRepository.findFinishedSince(
+                    Instant.ofEpochMilli(now - TimeUnit.DAYS.toMillis(7)));
+            for (GameResult result : recent) {
+                FinishedGame game = toFinishedGame(result);
+                String username = result.getPlayer().getUser().getUsername();
+                daily.offer(game, username, now);
+                weekly.offer(game, username, now);
+            }
+            logger.info("🏆 Leaderboard rebuilt: top {} of {} players, {} games this week",
+                    best.size(), scores.size(), recent.size());
+        } catch (Exception e) {
+            logger.error("❌ Failed to rebuild leaderboard: {}", e.getMessage(), e);
+        }
+    }
+
+    private static FinishedGame toFinishedGame(GameResult result) {
+        return new FinishedGame(result.getPlayer().getId(), result.getScore(), result.getLevel(),
+                result.getLinesCleared(), result.getDurationMs(), result.getMode(), result.getFinishedAt());
+    }
+
+    @Override
+    public List<LeaderboardEntryDTO> getTop(LeaderboardWindow window, int limit) {
+        List<LeaderboardEntryDTO> top = switch (window) {
+            case DAILY -> daily.snapshot(System.currentTimeMillis());
+            case WEEKLY -> weekly.snapshot(System.currentTimeMillis());
+            case ALL_TIME -> allTime.snapshot();
+        };
+        return limit >= top.size() ? top : top.subList(0, Math.max(0, limit));
+    }
+
+    @Override
+    public void record(FinishedGame game, String username) {
+        long now = System.currentTimeMillis();
+        allTime.offer(game, username);
+        daily.offer(game, username, now);
+        weekly.offer(game, username, now);
+        synchronized (bestHistogram) {
+            updateBest(game.playerId(), game.score());
+        }
+    }
+
+    @Override
+    public ScoreRankDTO rankOf(long playerId, int score) {
+        synchronized (bestHistogram) {
+            Integer best = bestScores.get(playerId);
+            // Không so với chính mình: bỏ điểm cao nhất của player khỏi phần "cao hơn"
+            long above = bestHistogram.countAbove(score) - (best != null && best > score ? 1 : 0);
+            long players = bestHistogram.total() + (best == null ? 1 : 0);
+            return toRank(score, above + 1, players);
+        }
+    }
+
+    @Override
+    public ScoreRankDTO rankOfPlayer(long playerId) {
+        synchronized (bestHistogram) {
+            Integer best = bestScores.get(playerId);
+            if (best == null) return null;
+            return toRank(best, bestHistogram.countAbove(best) + 1, bestHistogram.total());
+        }
+    }
+
+    /** Giữ bestHistogram = multiset điểm cao nhất của mỗi player (gọi khi đang giữ khóa) */
+    private void updateBest(long playerId, int score) {
+        Integer current = bestScores.get(playerId);
+        if (current != null && current >= score) return;
+        if (current != null) bestHistogram.add(current, -1);
+        bestHistogram.add(score, 1);
+        bestScores.put(playerId, score);
+    }
+
+    private static ScoreRankDTO toRank(int score, long rank, long players) {
+        double topPercent = Math.round(rank * 1000.0 / players) / 10.0;
+        return new ScoreRankDTO(score, rank, players, topPercent);
+    }
+}
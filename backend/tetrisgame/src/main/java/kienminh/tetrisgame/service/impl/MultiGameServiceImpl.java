@@ -1,26 +1,36 @@
 package kienminh.tetrisgame.service.impl;
 
-import jakarta.annotation.PreDestroy;
 import kienminh.tetrisgame.dto.PlayerDTO;
 import kienminh.tetrisgame.dto.RankingDTO;
 import kienminh.tetrisgame.dto.RoomDTO;
+import kienminh.tetrisgame.engine.GameLoop;
+import kienminh.tetrisgame.engine.TickWheel;
 import kienminh.tetrisgame.model.entity.Player;
 import kienminh.tetrisgame.model.entity.Room;
+import kienminh.tetrisgame.model.game.FinishedGame;
 import kienminh.tetrisgame.model.game.GameState;
+import kienminh.tetrisgame.model.game.enums.GameAction;
+import kienminh.tetrisgame.model.game.enums.GameMode;
 import kienminh.tetrisgame.model.game.enums.GameStatus;
 import kienminh.tetrisgame.model.game.enums.RoomStatus;
-import kienminh.tetrisgame.repository.PlayerRepository;
 import kienminh.tetrisgame.repository.RoomRepository;
 import kienminh.tetrisgame.service.interfaces.GameService;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
+import kienminh.tetrisgame.model.game.GameSnapshot;
+import kienminh.tetrisgame.websocket.BinaryFrameEncoder;
+import kienminh.tetrisgame.websocket.GameStreamRegistry;
+import kienminh.tetrisgame.websocket.RoomFanout;
+import kienminh.tetrisgame.websocket.RoomFrameBroadcaster;
+import kienminh.tetrisgame.websocket.TickFrameEncoder;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service("multiGameService")
@@ -31,28 +41,52 @@ public class MultiGameServiceImpl implements GameService {
     private static final Logger logger = LoggerFactory.getLogger(MultiGameServiceImpl.class);
 
     private final RoomRepository roomRepository;
-    private final PlayerRepository playerRepository;
     private final UserScoreService userScoreService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final LeaderboardService leaderboardService;
+    private final RoomFanout roomFanout;
 
     /** 🧠 Game state for each player */
     private final Map<Long, GameState> playerStates = new ConcurrentHashMap<>();
 
-    /** ⏱️ Scheduler for ticking all players */
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(8);
+    /** ⏱️ Shared timing wheel ticking all players */
+    private final TickWheel tickWheel;
+
+    /** Sharded single-writer loop; every game of a room lives on the room's shard */
+    private final GameLoop gameLoop;
+
+    /** Room of each player in a running room game (shard key) */
+    private final Map<Long, Long> playerRooms = new ConcurrentHashMap<>();
+
+    /** Coalesces every player's TICK_UPDATE of a room into one ROOM_FRAME per tick window */
+    private final RoomFrameBroadcaster roomFrameBroadcaster;
+
+    /** Keyframe/delta encoder of each player's TICK_UPDATE stream (used on the room's shard) */
+    private final Map<Long, TickFrameEncoder> frameEncoders = new ConcurrentHashMap<>();
+
+    /** Binary stream sessions (/stream/game) of each room */
+    private final GameStreamRegistry gameStreams;
+
+    /** Per-player binary frame encoders, used only while the room has binary sessions */
+    private final Map<Long, BinaryFrameEncoder> binaryEncoders = new ConcurrentHashMap<>();
 
     /** Scheduled tasks for each player */
-    private final Map<Long, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
+    private final Map<Long, TickWheel.Handle> scheduledTasks = new ConcurrentHashMap<>();
 
     /** Track finished players per room */
     private final Map<Long, Set<Long>> finishedPlayers = new ConcurrentHashMap<>();
 
+    /**
+     * Roster of each running room game (playerId -> username, join order), captured when the game starts
+     * so game-over bookkeeping on the shard never queries the database
+     */
+    private final Map<Long, Map<Long, String>> roomRosters = new ConcurrentHashMap<>();
+
     /** Cache rankings per room */
     private final Map<Long, List<RankingDTO>> roomRankings = new ConcurrentHashMap<>();
 
     /** Calculate fall speed based on level */
     private long getIntervalForLevel(int level) {
-        return Math.max(200, 1000 - (level - 1) * 150);
+        return GameState.tickIntervalForLevel(level);
     }
 
     // ==============================================================
@@ -64,7 +98,6 @@ public class MultiGameServiceImpl implements GameService {
         GameState state = playerStates.get(playerId);
         if (state == null) {
             state = new GameState();
-            state.start();
             playerStates.put(playerId, state);
         }
         return state;
@@ -78,6 +111,7 @@ public class MultiGameServiceImpl implements GameService {
         for (Player player : room.getPlayers()) {
             cancelTick(player.getId());
             playerStates.remove(player.getId());
+            playerRooms.put(player.getId(), roomId);
         }
 
         // Initialize tracking for this room
@@ -85,18 +119,28 @@ public class MultiGameServiceImpl implements GameService {
         roomRankings.remove(roomId);
         finishedPlayers.put(roomId, ConcurrentHashMap.newKeySet());
 
-        // Create GameState for all players
+        Map<Long, String> roster = new LinkedHashMap<>();
         for (Player player : room.getPlayers()) {
-            GameState state = new GameState();
-            state.start();
-            playerStates.put(player.getId(), state);
-            scheduleTick(player.getId(), roomId);
+            roster.put(player.getId(), player.getUser().getUsername());
         }
+        roomRosters.put(roomId, Collections.unmodifiableMap(roster));
+
+        // Create GameState for all players; the swap runs on the room's shard so no frame of an old game
+        // can be encoded with the new encoders
+        gameLoop.call(roomId, () -> {
+            for (Long playerId : roster.keySet()) {
+                playerStates.put(playerId, new GameState());
+                frameEncoders.put(playerId, new TickFrameEncoder(playerId));
+                binaryEncoders.put(playerId, new BinaryFrameEncoder(playerId, false));
+                scheduleTick(playerId, roomId);
+            }
+            return null;
+        });
 
         room.setRoomStatus(RoomStatus.PLAYING);
 
         // Notify WebSocket
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, Map.of(
+        roomFanout.broadcast(roomId, Map.of(
                 "type", "GAME_START",
                 "roomId", roomId,
                 "message", "Game started!"
@@ -114,47 +158,33 @@ public class MultiGameServiceImpl implements GameService {
         GameState state = playerStates.get(playerId);
         if (state == null) return;
 
-        long interval = getIntervalForLevel(state.getLevel());
-        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> {
-            try {
-                // Tick the game
-                tick(playerId);
-
-                // Get fresh state
-                GameState currentState = playerStates.get(playerId);
-                if (currentState == null) return;
-
-                // ✅ IMMEDIATE game over check
-                if (currentState.isGameOver()) {
-                    handlePlayerGameOver(playerId, roomId);
-                    return;
-                }
-
-                // Send tick update for ongoing game
-                messagingTemplate.convertAndSend("/topic/room/" + roomId, Map.of(
-                        "type", "TICK_UPDATE",
-                        "playerId", playerId,
-                        "score", currentState.getScore(),
-                        "level", currentState.getLevel(),
-                        "status", currentState.getStatus().name(),
-                        "board", currentState.getBoard().getBoardSnapshot(),
-                        "nextBlock", currentState.getNextBlock()
-                ));
-
-            } catch (Exception e) {
-                logger.error("❌ Tick error for player {}: {}", playerId, e.getMessage());
+        scheduledTasks.put(playerId, tickWheel.schedule(roomId, () -> tickTask(playerId, roomId, state), 0));
+    }
+
+    /** One gravity step driven by the wheel; returns the delay for the next one (follows level-ups) */
+    private long tickTask(Long playerId, Long roomId, GameState state) {
+        try {
+            // Game restarted -> stop this task
+            if (playerStates.get(playerId) != state) return TickWheel.STOP;
+
+            // Tick the game (apply() also emits the frame)
+            tick(playerId);
+
+            // ✅ IMMEDIATE game over check
+            if (state.isGameOver()) {
+                handlePlayerGameOver(playerId, roomId);
+                return TickWheel.STOP;
             }
-        }, 0, interval, TimeUnit.MILLISECONDS);
 
-        scheduledTasks.put(playerId, future);
+        } catch (Exception e) {
+            logger.error("❌ Tick error for player {}: {}", playerId, e.getMessage());
+        }
+        return getIntervalForLevel(state.getLevel());
     }
 
     @Override
     public GameState tick(Long playerId) {
-        GameState s = getState(playerId);
-        if (s.isGameOver()) return s;
-        s.tick();
-        return s;
+        return apply(playerId, GameState::tick);
     }
 
     // ==============================================================
@@ -163,35 +193,112 @@ public class MultiGameServiceImpl implements GameService {
 
     @Override
     public GameState moveLeft(Long playerId) {
-        GameState s = getState(playerId);
-        if (s.isGameOver()) return s;
-        s.moveLeft();
-        return s;
+        return apply(playerId, GameState::moveLeft);
     }
 
     @Override
     public GameState moveRight(Long playerId) {
-        GameState s = getState(playerId);
-        if (s.isGameOver()) return s;
-        s.moveRight();
-        return s;
+        return apply(playerId, GameState::moveRight);
     }
 
     @Override
     public GameState rotate(Long playerId) {
-        GameState s = getState(playerId);
-        if (s.isGameOver()) return s;
-        s.rotate();
-        return s;
+        return apply(playerId, GameState::rotate);
     }
 
     @Override
     public GameState drop(Long playerId) {
+        // Game over will be detected by scheduler
+        return apply(playerId, GameState::drop);
+    }
+
+    /** The whole batch runs in one hop to the shard and emits one frame */
+    @Override
+    public GameState applyInputs(Long playerId, List<GameAction> actions, long inputSeq) {
+        return apply(playerId, s -> {
+            s.acknowledgeInput(inputSeq);
+            for (GameAction action : actions) {
+                action.apply(s);
+                if (s.isGameOver()) break;
+            }
+        });
+    }
+
+    /**
+     * STOMP input batch: the ACK is queued on the shard right after the batch's frame,
+     * so it reaches room subscribers in the same ROOM_FRAME order
+     */
+    public GameState applyInputBatch(Long playerId, List<GameAction> actions, long ackSeq, long clientTime) {
+        GameState state = applyInputs(playerId, actions, ackSeq);
+        Long roomId = playerRooms.get(playerId);
+        if (roomId != null) {
+            gameLoop.execute(roomId, () -> roomFrameBroadcaster.enqueue(roomId, Map.of(
+                    "type", "ACK",
+                    "p", playerId,
+                    "s", ackSeq,
+                    "t", clientTime
+            )));
+        }
+        return state;
+    }
+
+    /** Apply an input on the game's shard, in arrival order, then stream the change to the room */
+    private GameState apply(Long playerId, Consumer<GameState> action) {
         GameState s = getState(playerId);
         if (s.isGameOver()) return s;
-        s.drop();
-        // Game over will be detected by scheduler
-        return s;
+        return gameLoop.call(shardKey(playerId), () -> {
+            if (!s.isGameOver()) {
+                action.accept(s);
+                Long roomId = playerRooms.get(playerId);
+                if (roomId != null) emitFrame(playerId, roomId, s.snapshot());
+            }
+            return s;
+        });
+    }
+
+    /** Keyframe or delta since the last frame, as JSON for the room topic and binary for /stream/game */
+    private void emitFrame(Long playerId, Long roomId, GameSnapshot snapshot) {
+        TickFrameEncoder encoder = frameEncoders.get(playerId);
+        Map<String, Object> frame = encoder != null ? encoder.encode(snapshot) : null;
+        if (frame != null) {
+            roomFrameBroadcaster.enqueue(roomId, frame);
+        }
+
+        if (gameStreams.hasRoomSessions(roomId)) {
+            BinaryFrameEncoder binary = binaryEncoders.get(playerId);
+            byte[] bytes = binary != null ? binary.encode(snapshot) : null;
+            if (bytes != null) gameStreams.broadcastRoom(roomId, bytes);
+        }
+    }
+
+    /** A client missed a frame sequence: the player's next frames will be keyframes */
+    public void requestKeyframe(Long playerId) {
+        TickFrameEncoder encoder = frameEncoders.get(playerId);
+        if (encoder != null) encoder.requestKeyframe();
+        BinaryFrameEncoder binary = binaryEncoders.get(playerId);
+        if (binary != null) binary.requestKeyframe();
+    }
+
+    /** Whether the player is currently playing in the room (in-memory, no query) */
+    public boolean isInRoom(Long playerId, Long roomId) {
+        return playerId != null && roomId != null && roomId.equals(playerRooms.get(playerId));
+    }
+
+    /** Keyframe request from a room viewer: only for players of that room */
+    public void requestKeyframe(Long roomId, Long playerId) {
+        if (isInRoom(playerId, roomId)) requestKeyframe(playerId);
+    }
+
+    /** A room viewer just connected: every player's next frame will be a keyframe */
+    public void requestRoomKeyframes(Long roomId) {
+        playerRooms.forEach((playerId, room) -> {
+            if (room.equals(roomId)) requestKeyframe(playerId);
+        });
+    }
+
+    /** Room games are pinned by room, standalone games by player */
+    private long shardKey(Long playerId) {
+        return playerRooms.getOrDefault(playerId, playerId);
     }
 
     // ==============================================================
@@ -214,13 +321,9 @@ public class MultiGameServiceImpl implements GameService {
         if (state != null) {
             state.setStatus(GameStatus.GAME_OVER);
 
-            // Save score
-            try {
-                userScoreService.saveScore(playerId, state.getScore());
-                logger.info("✅ Saved score {} for player {}", state.getScore(), playerId);
-            } catch (Exception e) {
-                logger.error("❌ Failed to save score for player {}: {}", playerId, e.getMessage());
-            }
+            // Queue the score; the score-writer thread persists it in batches
+            userScoreService.saveScore(FinishedGame.of(playerId, state, GameMode.MULTI));
+            logger.info("📥 Queued score {} for player {}", state.getScore(), playerId);
         }
 
         // Mark as finished
@@ -228,18 +331,22 @@ public class MultiGameServiceImpl implements GameService {
             finished.add(playerId);
         }
 
-        // Get player info
-        Player player = playerRepository.findById(playerId).orElse(null);
-        String playerName = player != null ? player.getUser().getUsername() : "Unknown";
+        // Player info from the roster captured at game start (runs on the shard, no query)
+        Map<Long, String> roster = roomRosters.getOrDefault(roomId, Map.of());
+        String playerName = roster.getOrDefault(playerId, "Unknown");
+
+        // Pending tick frames go out first so they cannot land after the final board
+        roomFrameBroadcaster.flush(roomId);
 
         // Send final board snapshot
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, Map.of(
+        roomFanout.broadcast(roomId, Map.of(
                 "type", "PLAYER_GAME_OVER",
                 "playerId", playerId,
                 "playerName", playerName,
                 "score", state != null ? state.getScore() : 0,
                 "level", state != null ? state.getLevel() : 1,
                 "status", GameStatus.GAME_OVER.name(),
+                "rank", leaderboardService.rankOf(playerId, state != null ? state.getScore() : 0),
                 "finalState", Map.of(
                         "board", state != null ? state.getBoard().getBoardSnapshot() : new int[20][10],
                         "score", state != null ? state.getScore() : 0,
@@ -251,46 +358,38 @@ public class MultiGameServiceImpl implements GameService {
                 state != null ? state.getScore() : 0);
 
         // Check if room is complete
-        if (isRoomGameOver(roomId)) {
-            finishRoomGame(roomId);
+        if (isRoomGameOver(roomId, roster)) {
+            finishRoomGame(roomId, roster);
         }
     }
 
-    private boolean isRoomGameOver(Long roomId) {
-        return roomRepository.findById(roomId)
-                .map(room -> {
-                    Set<Long> finished = finishedPlayers.get(roomId);
-                    if (finished == null) return false;
+    private boolean isRoomGameOver(Long roomId, Map<Long, String> roster) {
+        Set<Long> finished = finishedPlayers.get(roomId);
+        if (finished == null) return false;
 
-                    // Check if ALL players in the room have finished
-                    int totalPlayers = room.getPlayers().size();
-                    int finishedCount = (int) room.getPlayers().stream()
-                            .map(Player::getId)
-                            .filter(finished::contains)
-                            .count();
+        // Check if ALL players in the room have finished
+        int totalPlayers = roster.size();
+        int finishedCount = (int) roster.keySet().stream()
+                .filter(finished::contains)
+                .count();
 
-                    boolean allFinished = finishedCount == totalPlayers && totalPlayers > 0;
+        boolean allFinished = finishedCount == totalPlayers && totalPlayers > 0;
 
-                    logger.info("🔍 Room {} completion check: {}/{} players finished",
-                            roomId, finishedCount, totalPlayers);
+        logger.info("🔍 Room {} completion check: {}/{} players finished",
+                roomId, finishedCount, totalPlayers);
 
-                    return allFinished;
-                })
-                .orElse(false);
+        return allFinished;
     }
 
-    private void finishRoomGame(Long roomId) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Room not found"));
-
+    private void finishRoomGame(Long roomId, Map<Long, String> roster) {
         // Calculate rankings
-        List<RankingDTO> rankings = room.getPlayers().stream()
-                .map(player -> {
-                    GameState state = playerStates.get(player.getId());
+        List<RankingDTO> rankings = roster.entrySet().stream()
+                .map(entry -> {
+                    GameState state = playerStates.get(entry.getKey());
                     int score = state != null ? state.getScore() : 0;
                     return new RankingDTO(
-                            player.getId(),
-                            player.getUser().getUsername(),
+                            entry.getKey(),
+                            entry.getValue(),
                             score
                     );
                 })
@@ -301,14 +400,22 @@ public class MultiGameServiceImpl implements GameService {
         roomRankings.put(roomId, rankings);
 
         // Send rankings to all players
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, Map.of(
+        roomFrameBroadcaster.close(roomId);
+        roomFanout.broadcast(roomId, Map.of(
                 "type", "ROOM_GAME_OVER",
                 "roomId", roomId,
                 "rankings", rankings
         ));
 
-        // Cleanup
+        // Cleanup: the room's players no longer belong to it (input, resync and shard routing)
         finishedPlayers.remove(roomId);
+        roomRosters.remove(roomId);
+        for (Long playerId : roster.keySet()) {
+            if (!playerRooms.remove(playerId, roomId)) continue;
+            playerStates.remove(playerId);
+            frameEncoders.remove(playerId);
+            binaryEncoders.remove(playerId);
+        }
 
         logger.info("🏆 Room {} game finished! Rankings: {}",
                 roomId,
@@ -318,9 +425,9 @@ public class MultiGameServiceImpl implements GameService {
     }
 
     private void cancelTick(Long playerId) {
-        ScheduledFuture<?> future = scheduledTasks.remove(playerId);
-        if (future != null && !future.isCancelled()) {
-            future.cancel(false);
+        TickWheel.Handle handle = scheduledTasks.remove(playerId);
+        if (handle != null) {
+            handle.cancel();
         }
     }
 
@@ -383,8 +490,9 @@ public class MultiGameServiceImpl implements GameService {
         return roomRepository.findById(roomId)
                 .map(room -> room.getPlayers().stream()
                         .map(player -> {
+                            // Read from the published snapshot, the game may still be running
                             GameState state = playerStates.get(player.getId());
-                            int score = state != null ? state.getScore() : 0;
+                            int score = state != null ? state.snapshot().score() : 0;
                             return new RankingDTO(
                                     player.getId(),
                                     player.getUser().getUsername(),
@@ -396,16 +504,6 @@ public class MultiGameServiceImpl implements GameService {
                 .orElseGet(Collections::emptyList);
     }
 
-    // ==============================================================
-    // 🧹 SHUTDOWN
-    // ==============================================================
-
-    @PreDestroy
-    public void shutdown() {
-        logger.info("🛑 Shutting down MultiGameService scheduler...");
-        scheduler.shutdownNow();
-    }
-
     // ==============================================================
     // 🔧 CONVERSION
     // ==============================================================
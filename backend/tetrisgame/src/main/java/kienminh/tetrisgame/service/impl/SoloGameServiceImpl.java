@@ -1,21 +1,32 @@
 package kienminh.tetrisgame.service.impl;
 
-import jakarta.annotation.PreDestroy;
-import kienminh.tetrisgame.model.entity.Player;
+import kienminh.tetrisgame.engine.GameLoop;
+import kienminh.tetrisgame.engine.TickWheel;
 import kienminh.tetrisgame.model.entity.User;
 import kienminh.tetrisgame.model.game.Block;
+import kienminh.tetrisgame.model.game.FinishedGame;
+import kienminh.tetrisgame.model.game.GameSnapshot;
 import kienminh.tetrisgame.model.game.GameState;
+import kienminh.tetrisgame.model.game.enums.GameAction;
+import kienminh.tetrisgame.model.game.enums.GameMode;
+import kienminh.tetrisgame.model.game.enums.GameStatus;
 import kienminh.tetrisgame.repository.PlayerRepository;
 import kienminh.tetrisgame.repository.UserRepository;
 import kienminh.tetrisgame.service.interfaces.AuthService;
 import kienminh.tetrisgame.service.interfaces.GameService;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
 import kienminh.tetrisgame.service.interfaces.PlayerService;
+import kienminh.tetrisgame.websocket.GameStreamRegistry;
+import kienminh.tetrisgame.websocket.SoloSubscriptionTracker;
+import kienminh.tetrisgame.websocket.TickFrameEncoder;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.*;
@@ -27,12 +38,26 @@ public class SoloGameServiceImpl implements GameService {
     private static final Logger logger = LoggerFactory.getLogger(SoloGameServiceImpl.class);
     private final UserScoreService userScoreService;
     private final PlayerService playerService;
+    private final LeaderboardService leaderboardService;
 
     @Autowired
     private UserRepository userRepository;
 
-    /** Scheduler chung cho tất cả người chơi */
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    /** Timing wheel chung cho mọi ván (solo + multi) */
+    private final TickWheel tickWheel;
+
+    /** Mỗi ván được một shard duy nhất ghi (key = playerId) */
+    private final GameLoop gameLoop;
+
+    /** Session nhị phân /stream/game của ván solo */
+    private final GameStreamRegistry gameStreams;
+
+    /** Đẩy frame JSON lên /topic/solo/{playerId} thay cho việc client poll /state */
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SoloSubscriptionTracker soloSubscriptions;
+
+    /** Encoder keyframe/delta của từng ván, chỉ shard của ván dùng */
+    private final Map<Long, TickFrameEncoder> frameEncoders = new ConcurrentHashMap<>();
 
     /** Trạng thái từng người chơi */
     private final Map<Long, GameState> gameStates = new ConcurrentHashMap<>();
@@ -41,27 +66,32 @@ public class SoloGameServiceImpl implements GameService {
     private final Map<Long, GameState> finalGameStates = new ConcurrentHashMap<>();
 
     /** Task đang chạy tự động tick */
-    private final Map<Long, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
-
-    /** Lưu interval hiện tại của mỗi player để kiểm tra */
-    private final Map<Long, Long> currentIntervals = new ConcurrentHashMap<>();
+    private final Map<Long, TickWheel.Handle> scheduledTasks = new ConcurrentHashMap<>();
 
     @Override
     public GameState startGame(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        Player player = playerService.getCurrentPlayer(user);
-        // Tạo game mới
+        Long playerId = playerService.getCurrentPlayer(user).getId();
+        // Tạo game mới (constructor đã start ván)
         GameState state = new GameState();
-        state.start();
-        gameStates.put(player.getId(), state);
 
-        // ✅ Clear final state cache when starting new game
-        finalGameStates.remove(player.getId());
+        // Đổi ván trên shard của ván: publish của ván cũ không chạy xen với encoder mới
+        gameLoop.call(playerId, () -> {
+            gameStates.put(playerId, state);
+
+            // ✅ Clear final state cache when starting new game
+            finalGameStates.remove(playerId);
+
+            // Ván mới: subscriber và stream nhận keyframe ở frame đầu tiên
+            frameEncoders.put(playerId, new TickFrameEncoder(playerId));
+            gameStreams.requestSoloKeyframe(playerId);
+            return null;
+        });
 
         // Bắt đầu tick tự động
-        scheduleTick(player.getId());
+        scheduleTick(playerId);
 
         return state;
     }
@@ -69,143 +99,184 @@ public class SoloGameServiceImpl implements GameService {
     /** 🧭 Tính tốc độ rơi theo level */
     private long getIntervalForLevel(int level) {
         // Level càng cao -> rơi càng nhanh (min 200ms)
-        return Math.max(200, 1000 - (level - 1) * 150);
+        return GameState.tickIntervalForLevel(level);
     }
 
-    /** ⏸️ Tạo hoặc cập nhật task tick cho player */
+    /** ⏸️ Tạo task tick cho player (lên level chỉ đổi delay trả về, không phải đặt lại task) */
     private void scheduleTick(Long playerId) {
         GameState state = gameStates.get(playerId);
         if (state == null) return;
 
         // Hủy task cũ nếu có
-        ScheduledFuture<?> oldTask = scheduledTasks.remove(playerId);
-        if (oldTask != null && !oldTask.isCancelled()) {
-            oldTask.cancel(false);
-        }
-
-        long interval = getIntervalForLevel(state.getLevel());
-        currentIntervals.put(playerId, interval);
-        logger.info("▶ Start tick for player {} with interval {}ms (level {})",
-                playerId, interval, state.getLevel());
-
-        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> {
-            try {
-                GameState current = gameStates.get(playerId);
-                if (current == null) return;
-
-                if (current.isGameOver()) {
-                    cancelTick(playerId);
-                    handleGameOver(playerId, current);
-                    return;
-                }
+        cancelTick(playerId);
 
-                // ✅ Check if game state still exists before ticking
-                int currentLevel = current.getLevel();
-                long expectedInterval = getIntervalForLevel(currentLevel);
-                Long storedInterval = currentIntervals.get(playerId);
-
-                if (storedInterval != null && expectedInterval != storedInterval) {
-                    logger.info("⚡ Level {} reached -> rescheduling tick for player {}",
-                            currentLevel, playerId);
-                    cancelTick(playerId);
-                    scheduleTick(playerId);
-                    return;
-                }
+        logger.info("▶ Start tick for player {} (level {})", playerId, state.getLevel());
+        scheduledTasks.put(playerId, tickWheel.schedule(playerId, () -> tickTask(playerId, state), 0));
+    }
 
-                // ✅ Execute tick
-                tick(playerId);
+    /** Một lần gravity do wheel gọi; trả về delay tới lần kế tiếp theo level hiện tại */
+    private long tickTask(Long playerId, GameState state) {
+        try {
+            // Ván đã được start lại -> task cũ dừng
+            if (gameStates.get(playerId) != state) return TickWheel.STOP;
 
-            } catch (Exception e) {
-                logger.error("Error in tick loop for player " + playerId, e);
+            if (state.isGameOver()) {
+                cancelTick(playerId);
+                handleGameOver(playerId, state);
+                return TickWheel.STOP;
             }
-        }, 0, interval, TimeUnit.MILLISECONDS);
 
-        scheduledTasks.put(playerId, future);
+            // ✅ Execute tick
+            tick(playerId);
+        } catch (Exception e) {
+            logger.error("Error in tick loop for player " + playerId, e);
+        }
+        return state.isPlaying() ? getIntervalForLevel(state.getLevel()) : TickWheel.STOP;
     }
 
-
     /** 🧹 Hủy tick của player */
     private void cancelTick(Long playerId) {
-        ScheduledFuture<?> future = scheduledTasks.remove(playerId);
-        if (future != null && !future.isCancelled()) {
-            future.cancel(false);
+        TickWheel.Handle handle = scheduledTasks.remove(playerId);
+        if (handle != null && !handle.isCancelled()) {
+            handle.cancel();
             logger.info("⏹️ Tick cancelled for player {}", playerId);
         }
-        currentIntervals.remove(playerId);
     }
 
     /** 🧱 Tick logic */
     @Override
     public GameState tick(Long playerId) {
         GameState state = getState(playerId);
-        state.tick();
+        return gameLoop.call(playerId, () -> {
+            // Ván đã kết thúc (getState trả về bản cache): không tick, không ghi điểm lần nữa
+            if (!state.isPlaying()) return state;
+            state.tick();
+            publish(playerId, state);
+
+            if (state.isGameOver()) {
+                cancelTick(playerId);
+                handleGameOver(playerId, state);
+            }
 
-        if (state.isGameOver()) {
-            cancelTick(playerId);
-            handleGameOver(playerId, state);
+            return state;
+        });
+    }
+
+    /** 📡 Đẩy thay đổi (nếu có) tới subscriber STOMP và stream nhị phân – gọi trên shard của ván */
+    private void publish(Long playerId, GameState state) {
+        GameSnapshot snapshot = state.snapshot();
+        if (soloSubscriptions.isSubscribed(playerId)) {
+            TickFrameEncoder encoder = frameEncoders.get(playerId);
+            Map<String, Object> frame = encoder != null ? encoder.encode(snapshot) : null;
+            if (frame != null) {
+                // Frame kết thúc ván mang luôn hạng của điểm vừa đạt (histogram trong bộ nhớ, O(log n))
+                if (snapshot.status() == GameStatus.GAME_OVER) {
+                    frame.put("rank", leaderboardService.rankOf(playerId, snapshot.score()));
+                }
+                messagingTemplate.convertAndSend(SoloSubscriptionTracker.TOPIC_PREFIX + playerId, frame);
+            }
         }
+        gameStreams.pushSolo(playerId, snapshot);
+    }
 
-        return state;
+    /** Client lệch seq: frame kế tiếp trên /topic/solo/{playerId} là keyframe */
+    public void requestKeyframe(Long playerId) {
+        TickFrameEncoder encoder = frameEncoders.get(playerId);
+        if (encoder != null) encoder.requestKeyframe();
     }
 
-    /** 💾 Khi game over */
+    /** 💾 Khi game over – chỉ ván còn trong gameStates mới ghi điểm, gọi lại lần nữa không có tác dụng */
     private void handleGameOver(Long playerId, GameState state) {
-        try {
-            logger.info("🎮 Attempting to save score {} for player {}", state.getScore(), playerId);
-            userScoreService.saveScore(playerId, state.getScore());
-            logger.info("✅ Score saved successfully");
-        } catch (Exception e) {
-            logger.error("❌ Failed to save score for player {}: {}", playerId, e.getMessage(), e);
-        }
+        // Chỉ chạy trên shard của ván nên kiểm tra rồi gỡ không bị chen giữa
+        if (gameStates.get(playerId) != state) return;
+
+        // Chỉ đưa vào hàng đợi, thread score-writer ghi DB – shard không chờ JDBC
+        userScoreService.saveScore(FinishedGame.of(playerId, state, GameMode.SOLO));
+        logger.info("📥 Queued score {} for player {}", state.getScore(), playerId);
 
         // ✅ Cache final state before removing
         finalGameStates.put(playerId, state);
         logger.info("✅ Final game state cached for player {}", playerId);
 
-        gameStates.remove(playerId);
+        gameStates.remove(playerId, state);
         cancelTick(playerId);
         logger.info("💀 Game over for player {}", playerId);
 
         // ✅ Schedule cleanup of final state after 30 seconds
-        scheduler.schedule(() -> {
-            finalGameStates.remove(playerId);
+        tickWheel.scheduleOnce(playerId, () -> {
+            finalGameStates.remove(playerId, state);
             logger.info("🗑️ Final game state cleaned up for player {}", playerId);
-        }, 30, TimeUnit.SECONDS);
+        }, TimeUnit.SECONDS.toMillis(30));
     }
 
-    // --- Các hành động từ người chơi ---
+    // --- Các hành động từ người chơi (áp dụng trên shard của ván, đúng thứ tự nhận) ---
     @Override
     public GameState moveLeft(Long playerId) {
         GameState state = getState(playerId);
-        state.moveLeft();
-        return state;
+        return gameLoop.call(playerId, () -> {
+            state.moveLeft();
+            publish(playerId, state);
+            return state;
+        });
     }
 
     @Override
     public GameState moveRight(Long playerId) {
         GameState state = getState(playerId);
-        state.moveRight();
-        return state;
+        return gameLoop.call(playerId, () -> {
+            state.moveRight();
+            publish(playerId, state);
+            return state;
+        });
     }
 
     @Override
     public GameState rotate(Long playerId) {
         GameState state = getState(playerId);
-        state.rotate();
-        return state;
+        return gameLoop.call(playerId, () -> {
+            state.rotate();
+            publish(playerId, state);
+            return state;
+        });
     }
 
     @Override
     public GameState drop(Long playerId) {
         GameState state = getState(playerId);
-        state.drop();
+        return gameLoop.call(playerId, () -> {
+            if (!state.isPlaying()) return state;
+            state.drop();
+            publish(playerId, state);
+
+            if (state.isGameOver()) {
+                cancelTick(playerId);
+                handleGameOver(playerId, state);
+            }
+
+            return state;
+        });
+    }
+
+    /** Cả batch chạy trong một lần lên shard và chỉ publish một frame */
+    @Override
+    public GameState applyInputs(Long playerId, List<GameAction> actions, long inputSeq) {
+        GameState state = getState(playerId);
+        return gameLoop.call(playerId, () -> {
+            if (!state.isPlaying()) return state;
+            state.acknowledgeInput(inputSeq);
+            for (GameAction action : actions) {
+                action.apply(state);
+                if (!state.isPlaying()) break;
+            }
+            publish(playerId, state);
 
-        if (state.isGameOver()) {
-            cancelTick(playerId);
-            handleGameOver(playerId, state);
-        }
+            if (state.isGameOver()) {
+                cancelTick(playerId);
+                handleGameOver(playerId, state);
+            }
 
-        return state;
+            return state;
+        });
     }
 
     @Override
@@ -231,10 +302,4 @@ public class SoloGameServiceImpl implements GameService {
         // ✅ If neither exists, throw error
         throw new IllegalStateException("Game not started for player " + playerId);
     }
-
-    @PreDestroy
-    public void shutdown() {
-        logger.info("🛑 Shutting down SoloGameService scheduler...");
-        scheduler.shutdownNow();
-    }
 }
\ No newline at end of file
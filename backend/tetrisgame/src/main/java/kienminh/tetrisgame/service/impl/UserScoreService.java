@@ -1,37 +1,332 @@
 // src/main/java/kienminh/tetrisgame/service/impl/UserScoreService.java
 package kienminh.tetrisgame.service.impl;
 
-import kienminh.tetrisgame.model.entity.Player;
-import kienminh.tetrisgame.model.entity.User;
-import kienminh.tetrisgame.repository.PlayerRepository;
-import kienminh.tetrisgame.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import kienminh.tetrisgame.model.game.FinishedGame;
+import kienminh.tetrisgame.model.game.enums.GameMode;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lưu kết quả ván kiểu write-behind: saveScore chỉ đưa kết quả vào hàng đợi có giới hạn (không chặn, không JDBC),
+ * thread "score-writer" gom lô và ghi trong một transaction: JDBC batch update users.last_score
+ * và batch insert vào bảng lịch sử game_results. Ghi xong mới cập nhật bảng xếp hạng trong bộ nhớ.
+ * DB lỗi → thử lại có backoff; vẫn lỗi → ghi lô ra file spill, file được phát lại khi DB sống lại
+ * (kể cả sau khi restart). Mỗi kết quả mang số thứ tự tăng dần (theo thời gian, cả qua restart),
+ * nên điểm cũ trong file spill không bao giờ ghi đè điểm mới hơn của cùng player.
+ * Chỉ lô chưa commit mới vào file spill: lỗi sau commit (cập nhật bảng xếp hạng) chỉ được log, không ghi lại lần hai.
+ * Writer chạy theo vòng đời của context (SmartLifecycle): bắt đầu khi mọi bean đã sẵn sàng, trước web server,
+ * và dừng sau web server – ván kết thúc ngoài khoảng đó đi thẳng vào file spill.
+ */
 @Service
-@RequiredArgsConstructor
-public class UserScoreService {
+public class UserScoreService implements SmartLifecycle {
     private static final Logger logger = LoggerFactory.getLogger(UserScoreService.class);
 
-    private final PlayerRepository playerRepository;
-    private final UserRepository userRepository;
+    /** lastScore của user sở hữu player; một câu lệnh thay cho findById player + findById user + save */
+    private static final String UPDATE_LAST_SCORE =
+            "UPDATE users SET last_score = ? WHERE id = (SELECT user_id FROM players WHERE id = ?)";
+    private static final String INSERT_RESULT =
+            "INSERT INTO game_results (player_id, score, level, lines_cleared, duration_ms, mode, finished_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_USERNAMES =
+            "SELECT p.id, u.username FROM players p JOIN users u ON u.id = p.user_id WHERE p.id IN (%s)";
+
+    private static final int MAX_BATCH = 500;
+    private static final long FLUSH_INTERVAL_MS = 200;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 250;
+    /** Khoảng cách giữa các lần thử phát lại file spill khi hàng đợi rảnh */
+    private static final long SPILL_RETRY_MS = TimeUnit.SECONDS.toMillis(30);
+    /** Trước phase của web server (khởi động trước, dừng sau) để request cuối vẫn được ghi */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    /** Kết quả một ván chờ ghi; order tăng dần theo thứ tự saveScore */
+    record ScoreResult(FinishedGame game, long order) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LeaderboardService leaderboardService;
+    private final BlockingQueue<ScoreResult> queue;
+    private final Path spillFile;
+    /** File đang phát lại, chỉ thread writer đụng tới; JDBC chạy trên file này, không giữ spillLock */
+    private final Path replayFile;
+    /** Ghi/đổi tên file spill: writer và thread gọi saveScore khi hàng đợi đầy. Không bao giờ giữ khi chạy JDBC */
+    private final Object spillLock = new Object();
+    private Thread writer;
+    /** Micro giây epoch, ép tăng ngặt: giữ thứ tự trong process và xấp xỉ thời gian qua các lần restart */
+    private final AtomicLong order = new AtomicLong();
+
+    private volatile boolean running;
+    private long lastSpillAttempt;
+    /** Username theo playerId, chỉ thread writer dùng (username không đổi) */
+    private final Map<Long, String> usernames = new HashMap<>();
+
+    public UserScoreService(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            LeaderboardService leaderboardService,
+                            @Value("${score.queue-capacity:10000}") int queueCapacity,
+                            @Value("${score.spill-file:data/score-spill.log}") String spillFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.leaderboardService = leaderboardService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.spillFile = Path.of(spillFile);
+        this.replayFile = Path.of(spillFile + ".replay");
+    }
+
+    /** Ghi nhận kết quả cuối ván. Không chặn: gọi được từ thread tick/shard */
+    public void saveScore(FinishedGame game) {
+        long now = System.currentTimeMillis() * 1000;
+        ScoreResult result = new ScoreResult(game, order.accumulateAndGet(now, (last, t) -> Math.max(last + 1, t)));
+        if (running && queue.offer(result)) return;
 
-    @Transactional
-    public void saveScore(Long playerId, int score) {
-        // Fetch với join để tránh LazyInitializationException
-        Player player = playerRepository.findById(playerId)
-                .orElseThrow(() -> new IllegalArgumentException("Player not found: " + playerId));
+        // Writer không theo kịp hoặc không chạy: không chờ, không bỏ – ghi thẳng ra file spill
+        logger.warn("⚠️ Score writer {}, spilling score {} for player {}",
+                running ? "queue full" : "not running", game.score(), game.playerId());
+        spill(List.of(result));
+    }
+
+    /** Chạy sau khi mọi singleton đã tạo xong, nên lần phát lại spill đầu tiên không chạy giữa lúc dựng context */
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        writer = new Thread(this::runWriter, "score-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) return;
+        logger.info("🛑 Flushing pending scores...");
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
 
-        // Lấy User qua repository để đảm bảo managed entity
-        User user = userRepository.findById(player.getUser().getId())
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    // --- Writer ---
+
+    private void runWriter() {
+        replaySpill();
+        List<ScoreResult> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                ScoreResult first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (System.currentTimeMillis() - lastSpillAttempt >= SPILL_RETRY_MS) replaySpill();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("❌ Score writer error: {}", e.getMessage(), e);
+                spill(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+        // Kết quả vào hàng đợi ngay lúc dừng (hoặc khi bị interrupt) không bị bỏ lại trong bộ nhớ
+        List<ScoreResult> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        spill(rest);
+        replaySpill();   // lần cuối trước khi dừng; còn lỗi thì file được phát lại ở lần khởi động sau
+        logger.info("💾 Score writer stopped");
+    }
+
+    private void flush(List<ScoreResult> batch) throws InterruptedException {
+        if (Files.exists(spillFile) || Files.exists(replayFile)) {
+            // Còn lô chưa ghi được: gộp cả hàng đợi vào file rồi ghi tất cả một lần, theo order
+            queue.drainTo(batch);
+            spill(batch);
+            replaySpill();
+            return;
+        }
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                write(batch);
+                return;
+            } catch (DataAccessException e) {
+                logger.warn("⚠️ Score batch of {} failed (attempt {}/{}): {}",
+                        batch.size(), attempt, MAX_ATTEMPTS, e.getMessage());
+                if (attempt < MAX_ATTEMPTS && running) Thread.sleep(RETRY_BACKOFF_MS << (attempt - 1));
+            }
+        }
+        spill(batch);
+    }
+
+    /**
+     * Một transaction: insert mọi ván vào lịch sử, last_score chỉ lấy ván có order lớn nhất của mỗi player.
+     * Ván của player không còn tồn tại bị bỏ – nếu không, khóa ngoại làm cả lô lỗi mãi.
+     * Chỉ ném lỗi khi transaction chưa commit; sau commit mọi lỗi bị nuốt, nếu không lô sẽ bị spill và insert hai lần.
+     */
+    private void write(List<ScoreResult> batch) {
+        Map<Long, String> names = resolveUsernames(batch);
+        List<ScoreResult> valid = new ArrayList<>(batch.size());
+        for (ScoreResult result : batch) {
+            if (names.containsKey(result.game().playerId())) valid.add(result);
+            else logger.warn("⚠️ Dropping score {} of unknown player {}", result.game().score(), result.game().playerId());
+        }
+        if (valid.isEmpty()) return;
+        valid.sort(Comparator.comparingLong(ScoreResult::order));
+
+        Map<Long, ScoreResult> latest = new HashMap<>();
+        List<Object[]> inserts = new ArrayList<>(valid.size());
+        for (ScoreResult result : valid) {
+            FinishedGame game = result.game();
+            latest.put(game.playerId(), result);
+            inserts.add(new Object[]{game.playerId(), game.score(), game.level(), game.lines(),
+                    game.durationMs(), game.mode().name(), Timestamp.from(game.finishedAt())});
+        }
+        List<Object[]> updates = new ArrayList<>(latest.size());
+        latest.values().stream()
+                .sorted(Comparator.comparingLong(ScoreResult::order))
+                .forEach(result -> updates.add(new Object[]{result.game().score(), result.game().playerId()}));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_RESULT, inserts);
+            jdbcTemplate.batchUpdate(UPDATE_LAST_SCORE, updates);
+        });
+        logger.info("💾 Saved {} game results", inserts.size());
+
+        for (ScoreResult result : valid) {
+            try {
+                leaderboardService.record(result.game(), names.get(result.game().playerId()));
+            } catch (RuntimeException e) {
+                logger.error("❌ Leaderboard update failed for player {}: {}",
+                        result.game().playerId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /** Username của các player trong lô: lấy từ cache, thiếu thì một query IN cho cả lô */
+    private Map<Long, String> resolveUsernames(List<ScoreResult> batch) {
+        List<Long> missing = batch.stream()
+                .map(result -> result.game().playerId())
+                .distinct()
+                .filter(playerId -> !usernames.containsKey(playerId))
+                .toList();
+        // Chia nhỏ: file spill phát lại có thể dài hơn giới hạn tham số của driver
+        for (int from = 0; from < missing.size(); from += MAX_BATCH) {
+            List<Long> chunk = missing.subList(from, Math.min(from + MAX_BATCH, missing.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(SELECT_USERNAMES.formatted(placeholders),
+                    rs -> { usernames.put(rs.getLong(1), rs.getString(2)); },
+                    chunk.toArray());
+        }
+        return usernames;
+    }
+
+    // --- File spill ---
+
+    /** Nối lô vào file spill, mỗi dòng "playerId,score,order,level,lines,durationMs,mode,finishedAtMs" */
+    private void spill(List<ScoreResult> batch) {
+        if (batch.isEmpty()) return;
+        StringBuilder lines = new StringBuilder();
+        for (ScoreResult result : batch) {
+            FinishedGame game = result.game();
+            lines.append(game.playerId()).append(',').append(game.score()).append(',').append(result.order())
+                    .append(',').append(game.level()).append(',').append(game.lines())
+                    .append(',').append(game.durationMs()).append(',').append(game.mode())
+                    .append(',').append(game.finishedAt().toEpochMilli()).append('\n');
+        }
+        synchronized (spillLock) {
+            try {
+                Path parent = spillFile.toAbsolutePath().getParent();
+                if (parent != null) Files.createDirectories(parent);
+                Files.writeString(spillFile, lines, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                logger.warn("📝 Spilled {} scores to {}", batch.size(), spillFile);
+            } catch (IOException e) {
+                logger.error("❌ Lost {} scores, cannot write spill file {}: {}",
+                        batch.size(), spillFile, e.getMessage());
+            }
+        }
+    }
 
-        user.setLastScore(score);
-        userRepository.save(user);
+    /**
+     * Ghi lại toàn bộ file spill; thành công thì xóa file, lỗi thì giữ nguyên để thử lần sau.
+     * Dưới spillLock chỉ đổi tên (hoặc nối vào file replay còn dở), JDBC chạy ngoài lock
+     * để thread shard spill khi hàng đợi đầy không phải chờ DB.
+     */
+    private void replaySpill() {
+        lastSpillAttempt = System.currentTimeMillis();
+        try {
+            synchronized (spillLock) {
+                if (Files.exists(spillFile)) {
+                    if (Files.exists(replayFile)) {
+                        // Lần phát lại trước lỗi: gộp vào một file để ghi cùng một lô, theo order
+                        Files.write(replayFile, Files.readAllBytes(spillFile), StandardOpenOption.APPEND);
+                        Files.delete(spillFile);
+                    } else {
+                        Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+            }
+            if (!Files.exists(replayFile)) return;
 
-        logger.info("💾 Saved lastScore={} for user={}", score, user.getUsername());
+            List<ScoreResult> spilled = new ArrayList<>();
+            for (String line : Files.readAllLines(replayFile, StandardCharsets.UTF_8)) {
+                String[] fields = line.split(",");
+                try {
+                    FinishedGame game = new FinishedGame(Long.parseLong(fields[0]), Integer.parseInt(fields[1]),
+                            Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Long.parseLong(fields[5]),
+                            GameMode.valueOf(fields[6]), Instant.ofEpochMilli(Long.parseLong(fields[7])));
+                    spilled.add(new ScoreResult(game, Long.parseLong(fields[2])));
+                } catch (RuntimeException e) {
+                    // Dòng ghi dở khi process bị kill giữa chừng
+                    logger.warn("⚠️ Skipping malformed spill line: {}", line);
+                }
+            }
+            if (!spilled.isEmpty()) write(spilled);
+            Files.delete(replayFile);
+            logger.info("✅ Replayed {} spilled scores from {}", spilled.size(), spillFile);
+        } catch (DataAccessException e) {
+            logger.warn("⚠️ Spilled scores still pending, DB unavailable: {}", e.getMessage());
+        } catch (IOException e) {
+            logger.error("❌ Cannot replay spill file {}: {}", spillFile, e.getMessage());
+        }
     }
 }
@@ -1,11 +1,14 @@
 package kienminh.tetrisgame.service.interfaces;
 import kienminh.tetrisgame.dto.UserDTO;
 import kienminh.tetrisgame.model.entity.User;
+import kienminh.tetrisgame.util.JwtPrincipal;
 
 public interface AuthService {
     UserDTO register(String username, String password);
     String login(String username, String password);
     UserDTO getCurrentUser();
     User getAuthenticatedUser();
+    /** Principal của request hiện tại, dựng từ claim của JWT – không truy vấn DB */
+    JwtPrincipal getPrincipal();
     void logout(String token);
 }
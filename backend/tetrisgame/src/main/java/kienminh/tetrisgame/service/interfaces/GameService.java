@@ -1,6 +1,9 @@
 package kienminh.tetrisgame.service.interfaces;
 
 import kienminh.tetrisgame.model.game.GameState;
+import kienminh.tetrisgame.model.game.enums.GameAction;
+
+import java.util.List;
 
 public interface GameService {
     GameState startGame(Long playerId);
@@ -9,6 +12,11 @@ public interface GameService {
     GameState rotate(Long playerId);
     GameState drop(Long playerId);
     GameState tick(Long playerId);
+    /**
+     * Áp một batch input theo thứ tự trong một lần lên shard của ván.
+     * @param inputSeq seq client của input cuối trong batch (0 nếu client không đánh seq)
+     */
+    GameState applyInputs(Long playerId, List<GameAction> actions, long inputSeq);
     boolean isGameOver(Long playerId);
     GameState getState(Long playerId);
 }
\ No newline at end of file
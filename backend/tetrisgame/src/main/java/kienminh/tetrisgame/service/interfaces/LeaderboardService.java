@@ -0,0 +1,23 @@
+package kienminh.tetrisgame.service.interfaces;
+
+import kienminh.tetrisgame.dto.LeaderboardEntryDTO;
+import kienminh.tetrisgame.dto.ScoreRankDTO;
+import kienminh.tetrisgame.leaderboard.LeaderboardWindow;
+import kienminh.tetrisgame.model.game.FinishedGame;
+
+import java.util.List;
+
+public interface LeaderboardService {
+
+    /** Top player của cửa sổ thời gian, đọc từ bộ nhớ (không query DB) */
+    List<LeaderboardEntryDTO> getTop(LeaderboardWindow window, int limit);
+
+    /** Ván vừa được ghi vào lịch sử */
+    void record(FinishedGame game, String username);
+
+    /** Hạng của score so với điểm cao nhất của các player khác – O(log n), gọi được từ shard */
+    ScoreRankDTO rankOf(long playerId, int score);
+
+    /** Hạng theo điểm cao nhất của player, null nếu player chưa có ván nào được ghi */
+    ScoreRankDTO rankOfPlayer(long playerId);
+}
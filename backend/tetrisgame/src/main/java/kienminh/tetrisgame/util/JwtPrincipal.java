@@ -0,0 +1,31 @@
+package kienminh.tetrisgame.util;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Người dùng đã xác thực, dựng hoàn toàn từ claim đã ký trong JWT – không đọc DB mỗi request.
+ * getName() trả username nên Authentication.getName() vẫn như trước.
+ */
+public record JwtPrincipal(Long userId, Long playerId, String username, String tokenId, Instant expiresAt)
+        implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    /** JwtPrincipal của user gắn với một STOMP message / request, null nếu là guest */
+    public static JwtPrincipal of(Principal principal) {
+        return principal instanceof Authentication auth && auth.getPrincipal() instanceof JwtPrincipal jwt ? jwt : null;
+    }
+
+    /** principal có đúng là chủ của playerId không (so claim, không đọc DB) */
+    public static boolean isPlayer(Principal principal, Long playerId) {
+        JwtPrincipal jwt = of(principal);
+        return jwt != null && playerId != null && playerId.equals(jwt.playerId());
+    }
+}
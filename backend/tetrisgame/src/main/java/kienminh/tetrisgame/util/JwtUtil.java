@@ -7,33 +7,40 @@ import org.springframework.stereotype.Component;
 
 import java.util.Date;
 import java.security.Key;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
-    private final String secretKey;
+    /** Claim mang id của User và Player – principal dựng từ token, không cần query */
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String PLAYER_ID_CLAIM = "pid";
+
     private final long expirationMillis;
+    private final Key signingKey;
+    private final JwtParser parser;
 
     public JwtUtil(@Value("${jwt.secret:super_secret_tetris_key_123456789_super_secure}") String secretKey,
                    @Value("${jwt.expiration:604800000}") long expirationMillis) {
-        this.secretKey = secretKey;
         this.expirationMillis = expirationMillis;
-    }
-
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+        // Key và parser dùng lại cho mọi request thay vì dựng lại mỗi lần
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
     }
 
     // ✅ Generate new JWT token
-    public String generateToken(String username) {
+    public String generateToken(Long userId, Long playerId, String username) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + expirationMillis);
 
         return Jwts.builder()
                 .setSubject(username)
+                .setId(UUID.randomUUID().toString())
+                .claim(USER_ID_CLAIM, userId)
+                .claim(PLAYER_ID_CLAIM, playerId)
                 .setIssuedAt(now)
                 .setExpiration(expiry)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -42,6 +49,21 @@ public class JwtUtil {
         return parseClaims(token).getBody().getSubject();
     }
 
+    /**
+     * ✅ Principal từ claim của token (đã kiểm tra chữ ký và hạn).
+     * Token cũ chưa có uid/pid thì các trường đó là null.
+     * @throws JwtException nếu token không hợp lệ
+     */
+    public JwtPrincipal parsePrincipal(String token) {
+        Claims claims = parseClaims(token).getBody();
+        return new JwtPrincipal(
+                claims.get(USER_ID_CLAIM, Long.class),
+                claims.get(PLAYER_ID_CLAIM, Long.class),
+                claims.getSubject(),
+                claims.getId(),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
     // ✅ Validate token integrity and expiration
     public boolean validateToken(String token) {
         try {
@@ -54,9 +76,6 @@ public class JwtUtil {
 
     // ✅ Parse token and retrieve claims
     private Jws<Claims> parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.model.game.BoardFrame;
+import kienminh.tetrisgame.model.game.GameSnapshot;
+import kienminh.tetrisgame.model.game.enums.BlockType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Giao thức nhị phân của endpoint /stream/game (big-endian).
+ * <pre>
+ * Server → client, mỗi frame một binary message:
+ *   op u8 | seq i32 | playerId i64 | score i32 | level u8 | status u8 | next u8 | pieces i32 | input u32 | body | piece
+ *   KEYFRAME (op 1): body = width u8 | height u8 | seed i64 | width*height ô 4 bit (nibble cao trước) – chỉ stack
+ *   DELTA    (op 2): body = count u16 | count x u16 ((y * width + x) * 8 + value) – ô stack đã đổi
+ *   piece         : id u8 (0 = không có) | y i8 | rows u8 | rows x u16 mask cột
+ *   status = GameStatus.ordinal(), next = BlockType.ordinal() + 1 (0 = không có)
+ *   pieces = số block đã lock (index của block đang rơi trong chuỗi theo seed),
+ *   input = seq input client cuối cùng đã áp dụng, seed = 0 nếu không chia sẻ (room)
+ *   ACK      (op 3): op u8 | seq u32 | time u32 – seq input cuối đã áp dụng, time của batch gửi lại
+ *
+ * Client → server:
+ *   input lẻ: mỗi byte một input, một message có thể gom nhiều byte (áp dụng theo thứ tự)
+ *   BATCH (0x20): op u8 | seq u32 (input đầu) | time u32 (ms client) | count u8 | count x input u8
+ * </pre>
+ * Block đang rơi đi riêng thành vài byte mask, nên di chuyển/xoay chỉ tốn header + piece;
+ * ô stack chỉ đổi khi block bị khóa hoặc xóa hàng.
+ * Delta seq = n chỉ áp dụng lên frame seq = n - 1, lệch seq thì client gửi RESYNC.
+ * Seed + pieces + input cho phép client solo chạy lại luật chơi để dự đoán input chưa được áp dụng.
+ * Chỉ shard sở hữu ván gọi encode(); requestKeyframe() gọi được từ thread bất kỳ.
+ */
+public class BinaryFrameEncoder {
+
+    public static final byte OP_KEYFRAME = 1;
+    public static final byte OP_DELTA = 2;
+    public static final byte OP_ACK = 3;
+
+    public static final byte IN_LEFT = 1;
+    public static final byte IN_RIGHT = 2;
+    public static final byte IN_ROTATE = 3;
+    public static final byte IN_SOFT_DROP = 4;
+    public static final byte IN_HARD_DROP = 5;
+    public static final byte IN_RESYNC = 0x10;
+    public static final byte IN_BATCH = 0x20;
+
+    private static final int HEADER_BYTES = 1 + 4 + 8 + 4 + 1 + 1 + 1 + 4 + 4;
+    private static final int KEYFRAME_INTERVAL = 100;
+
+    private final long playerId;
+
+    /** Chỉ ván solo gửi seed: biết seed là biết trước cả chuỗi block */
+    private final boolean shareSeed;
+
+    private int seq;
+    private int framesSinceKey;
+    private GameSnapshot last;
+    private volatile boolean keyframeRequested = true;
+
+    public BinaryFrameEncoder(long playerId, boolean shareSeed) {
+        this.playerId = playerId;
+        this.shareSeed = shareSeed;
+    }
+
+    public void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    /** ACK cho batch input: 9 byte, gửi sau frame của batch trên cùng session */
+    public static byte[] ack(long seq, long clientTime) {
+        return ByteBuffer.allocate(9).put(OP_ACK).putInt((int) seq).putInt((int) clientTime).array();
+    }
+
+    /** @return frame cần gửi, hoặc null nếu không có gì thay đổi kể từ frame trước */
+    public byte[] encode(GameSnapshot snapshot) {
+        BoardFrame frame = snapshot.frame();
+        if (frame == null) return null;
+
+        if (keyframeRequested || last == null || framesSinceKey >= KEYFRAME_INTERVAL
+                || !sameShape(last.frame().stack(), frame.stack())) {
+            keyframeRequested = false;
+            return keyframe(snapshot);
+        }
+        if (snapshot.version() == last.version()) return null;
+
+        int[] cells = TickFrameEncoder.diff(last.frame().stack(), frame.stack());
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + 2 + cells.length * 2 + pieceBytes(frame));
+        header(buf, OP_DELTA, snapshot);
+        buf.putShort((short) cells.length);
+        for (int cell : cells) buf.putShort((short) cell);
+        piece(buf, frame);
+
+        framesSinceKey++;
+        last = snapshot;
+        return buf.array();
+    }
+
+    private byte[] keyframe(GameSnapshot snapshot) {
+        BoardFrame frame = snapshot.frame();
+        int[][] stack = frame.stack();
+        int height = stack.length;
+        int width = height == 0 ? 0 : stack[0].length;
+        int cellCount = width * height;
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + 2 + 8 + (cellCount + 1) / 2 + pieceBytes(frame));
+        header(buf, OP_KEYFRAME, snapshot);
+        buf.put((byte) width).put((byte) height);
+        buf.putLong(shareSeed ? snapshot.seed() : 0);
+        int packed = 0;
+        for (int i = 0; i < cellCount; i++) {
+            int value = stack[i / width][i % width] & 0xF;
+            if ((i & 1) == 0) {
+                packed = value << 4;
+            } else {
+                buf.put((byte) (packed | value));
+            }
+        }
+        if ((cellCount & 1) == 1) buf.put((byte) packed);
+        piece(buf, frame);
+
+        framesSinceKey = 0;
+        last = snapshot;
+        return buf.array();
+    }
+
+    private void header(ByteBuffer buf, byte op, GameSnapshot snapshot) {
+        buf.put(op);
+        buf.putInt(++seq);
+        buf.putLong(playerId);
+        buf.putInt(snapshot.score());
+        buf.put((byte) snapshot.level());
+        buf.put((byte) snapshot.status().ordinal());
+        buf.put((byte) blockCode(snapshot.nextBlock()));
+        buf.putInt(snapshot.pieces());
+        buf.putInt((int) snapshot.inputSeq());
+    }
+
+    private static int pieceBytes(BoardFrame frame) {
+        return 3 + frame.pieceRows().length * 2;
+    }
+
+    private static void piece(ByteBuffer buf, BoardFrame frame) {
+        int[] rows = frame.pieceRows();
+        buf.put((byte) frame.pieceId());
+        buf.put((byte) frame.pieceY());
+        buf.put((byte) rows.length);
+        for (int mask : rows) buf.putShort((short) mask);
+    }
+
+    private static int blockCode(String type) {
+        if (type == null) return 0;
+        try {
+            return BlockType.valueOf(type).ordinal() + 1;
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    private static boolean sameShape(int[][] a, int[][] b) {
+        return a.length == b.length && (a.length == 0 || a[0].length == b[0].length);
+    }
+}
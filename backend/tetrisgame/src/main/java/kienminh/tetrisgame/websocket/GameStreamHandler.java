@@ -0,0 +1,141 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.model.game.enums.GameAction;
+import kienminh.tetrisgame.service.impl.MultiGameServiceImpl;
+import kienminh.tetrisgame.service.interfaces.GameService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static kienminh.tetrisgame.websocket.BinaryFrameEncoder.*;
+
+/**
+ * Endpoint nhị phân /stream/game cho client native (JavaFX), chạy song song với STOMP /ws của browser.
+ * Server đẩy frame theo {@link BinaryFrameEncoder}; client gửi input là các byte opcode.
+ * Solo: frame của chính player. Room: frame của mọi player trong room (playerId nằm trong header).
+ */
+@Component
+@RequiredArgsConstructor
+public class GameStreamHandler extends BinaryWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameStreamHandler.class);
+
+    /** seq u32 + time u32 + count u8 của một BATCH (sau byte opcode) */
+    private static final int BATCH_HEADER_BYTES = 9;
+
+    private final GameStreamRegistry gameStreams;
+    private final GameService soloGameService;
+    private final MultiGameServiceImpl multiGameService;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        Long playerId = playerId(session);
+        Long roomId = roomId(session);
+        if (roomId != null) {
+            gameStreams.registerRoom(roomId, session);
+            multiGameService.requestRoomKeyframes(roomId);
+        } else {
+            gameStreams.registerSolo(playerId, session);
+        }
+        logger.info("🔌 Binary game stream for player {} ({})", playerId, roomId != null ? "room " + roomId : "solo");
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        Long playerId = playerId(session);
+        Long roomId = roomId(session);
+        GameService service = roomId != null ? multiGameService : soloGameService;
+
+        ByteBuffer payload = message.getPayload();
+        while (payload.hasRemaining()) {
+            byte input = payload.get();
+            try {
+                switch (input) {
+                    case IN_BATCH -> {
+                        if (!applyBatch(session, service, playerId, payload)) {
+                            // Batch cụt: không biết input kế tiếp bắt đầu ở đâu, bỏ phần còn lại
+                            logger.debug("Truncated input batch from player {}", playerId);
+                            return;
+                        }
+                    }
+                    // Input chỉ 1 byte nên không biết lệch ở player nào: keyframe lại cả room
+                    case IN_RESYNC -> {
+                        if (roomId != null) multiGameService.requestRoomKeyframes(roomId);
+                        else gameStreams.requestSoloKeyframe(playerId);
+                    }
+                    default -> {
+                        GameAction action = toAction(input);
+                        if (action != null) service.applyInputs(playerId, List.of(action), 0);
+                        else logger.debug("Unknown input opcode {} from player {}", input, playerId);
+                    }
+                }
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                // Ván chưa bắt đầu / đã kết thúc: bỏ qua input
+                logger.debug("Input {} ignored for player {}: {}", input, playerId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * seq u32 | time u32 | count u8 | inputs: áp dụng cả batch một lần rồi ACK seq của input cuối.
+     * Batch rỗng không có input cuối nên không ACK.
+     * @return false nếu message không đủ byte cho cả batch (không đọc gì)
+     */
+    private boolean applyBatch(WebSocketSession session, GameService service, Long playerId, ByteBuffer payload) {
+        if (payload.remaining() < BATCH_HEADER_BYTES) return false;
+        int count = payload.get(payload.position() + BATCH_HEADER_BYTES - 1) & 0xFF;
+        if (payload.remaining() < BATCH_HEADER_BYTES + count) return false;
+
+        long seq = Integer.toUnsignedLong(payload.getInt());
+        long time = Integer.toUnsignedLong(payload.getInt());
+        payload.get();
+        if (count == 0) return true;
+
+        List<GameAction> actions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GameAction action = toAction(payload.get());
+            if (action != null) actions.add(action);
+        }
+        service.applyInputs(playerId, actions, seq + count - 1);
+        gameStreams.sendTo(session, BinaryFrameEncoder.ack(seq + count - 1, time));
+        return true;
+    }
+
+    private static GameAction toAction(byte input) {
+        return switch (input) {
+            case IN_LEFT -> GameAction.LEFT;
+            case IN_RIGHT -> GameAction.RIGHT;
+            case IN_ROTATE -> GameAction.ROTATE;
+            case IN_SOFT_DROP -> GameAction.TICK;
+            case IN_HARD_DROP -> GameAction.DROP;
+            default -> null;
+        };
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Long roomId = roomId(session);
+        if (roomId != null) {
+            gameStreams.unregisterRoom(roomId, session);
+        } else {
+            gameStreams.unregisterSolo(playerId(session), session);
+        }
+    }
+
+    private static Long playerId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(GameStreamHandshakeInterceptor.PLAYER_ID);
+    }
+
+    private static Long roomId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(GameStreamHandshakeInterceptor.ROOM_ID);
+    }
+}
@@ -0,0 +1,61 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.model.entity.Player;
+import kienminh.tetrisgame.repository.PlayerRepository;
+import kienminh.tetrisgame.service.impl.JwtSessionService;
+import kienminh.tetrisgame.util.JwtPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Handshake của /stream/game?token=..&mode=solo|room.
+ * Khác spectator stream, endpoint này nhận input nên bắt buộc token hợp lệ và có Player.
+ * mode=room dùng room hiện tại của player.
+ * playerId lấy từ claim của token; chỉ mode=room mới đọc Player từ DB.
+ */
+@Component
+@RequiredArgsConstructor
+public class GameStreamHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String PLAYER_ID = "playerId";
+    public static final String ROOM_ID = "roomId";
+
+    private final JwtSessionService jwtSessionService;
+    private final PlayerRepository playerRepository;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        var params = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams();
+
+        JwtPrincipal principal = jwtSessionService.authenticate(params.getFirst("token"));
+        if (principal == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(PLAYER_ID, principal.playerId());
+
+        if ("room".equalsIgnoreCase(params.getFirst("mode"))) {
+            Player player = playerRepository.findById(principal.playerId()).orElse(null);
+            if (player == null || player.getRoom() == null) {
+                response.setStatusCode(HttpStatus.BAD_REQUEST);
+                return false;
+            }
+            attributes.put(ROOM_ID, player.getRoom().getId());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -0,0 +1,91 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.model.game.GameSnapshot;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Các session nhị phân của /stream/game: theo room (nhận frame của mọi player trong room)
+ * hoặc theo player solo (mỗi player một encoder riêng, chạy trên shard của ván).
+ * Shard chỉ xếp frame vào hàng đợi gửi của session ({@link OutboundSession}), không ghi socket.
+ */
+@Component
+public class GameStreamRegistry {
+
+    /** Attribute giữ hàng đợi gửi của session: mọi lần gửi phải đi qua đây để không gửi chồng nhau */
+    private static final String OUTBOUND = "gameStream.outbound";
+
+    private static final int SEND_TIME_LIMIT_MS = 5_000;
+    private static final int BUFFER_SIZE_LIMIT = 256 * 1024;
+
+    private record SoloStream(OutboundSession session, BinaryFrameEncoder encoder) {}
+
+    /** roomId → (session id → hàng đợi gửi) */
+    private final Map<Long, Map<String, OutboundSession>> rooms = new ConcurrentHashMap<>();
+    private final Map<Long, SoloStream> solos = new ConcurrentHashMap<>();
+
+    public void registerRoom(Long roomId, WebSocketSession session) {
+        rooms.computeIfAbsent(roomId, id -> new ConcurrentHashMap<>()).put(session.getId(), outbound(session));
+    }
+
+    public void registerSolo(Long playerId, WebSocketSession session) {
+        solos.put(playerId, new SoloStream(outbound(session), new BinaryFrameEncoder(playerId, true)));
+    }
+
+    public void unregisterRoom(Long roomId, WebSocketSession session) {
+        rooms.computeIfPresent(roomId, (id, sessions) -> {
+            sessions.remove(session.getId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    public void unregisterSolo(Long playerId, WebSocketSession session) {
+        solos.computeIfPresent(playerId, (id, stream) ->
+                stream.session().getId().equals(session.getId()) ? null : stream);
+    }
+
+    public boolean hasRoomSessions(Long roomId) {
+        return rooms.containsKey(roomId);
+    }
+
+    /** Frame đã mã hóa một lần; mỗi session chỉ bọc lại cùng mảng byte */
+    public void broadcastRoom(Long roomId, byte[] frame) {
+        Map<String, OutboundSession> sessions = rooms.get(roomId);
+        if (sessions == null) return;
+        for (OutboundSession session : sessions.values()) {
+            // BinaryMessage giữ ByteBuffer có vị trí đọc riêng: mỗi session một wrapper, chung mảng byte
+            if (!session.sendFrame(new BinaryMessage(frame))) unregisterRoom(roomId, session.session());
+        }
+    }
+
+    /** Gọi trên shard của ván solo sau mỗi thay đổi */
+    public void pushSolo(Long playerId, GameSnapshot snapshot) {
+        SoloStream stream = solos.get(playerId);
+        if (stream == null) return;
+        byte[] frame = stream.encoder().encode(snapshot);
+        if (frame != null && !stream.session().sendFrame(new BinaryMessage(frame))) {
+            unregisterSolo(playerId, stream.session().session());
+        }
+    }
+
+    public void requestSoloKeyframe(Long playerId) {
+        SoloStream stream = solos.get(playerId);
+        if (stream != null) stream.encoder().requestKeyframe();
+    }
+
+    /** Gửi riêng cho một session (vd ACK input), cùng hàng đợi với frame */
+    public void sendTo(WebSocketSession session, byte[] frame) {
+        Object outbound = session.getAttributes().get(OUTBOUND);
+        if (outbound instanceof OutboundSession queued) queued.send(new BinaryMessage(frame));
+    }
+
+    private static OutboundSession outbound(WebSocketSession session) {
+        OutboundSession outbound = new OutboundSession(session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT);
+        session.getAttributes().put(OUTBOUND, outbound);
+        return outbound;
+    }
+}
@@ -0,0 +1,138 @@
+package kienminh.tetrisgame.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hàng đợi gửi riêng của một session WebSocket thô.
+ * send() chỉ xếp message vào hàng đợi rồi trả về ngay; việc ghi socket chạy trên một virtual thread,
+ * nên thread gọi (shard của ván) không bao giờ chờ TCP của client.
+ * Client chậm: hàng đợi vượt bufferSizeLimit byte thì frame cũ nhất bị bỏ – chỉ frame ({@link #sendFrame}),
+ * vì client thấy lệch seq và resync bằng keyframe. Event điều khiển ({@link #send}, vd PLAYER_GAME_OVER, ACK)
+ * không bao giờ bị bỏ: bỏ hết frame mà vẫn vượt giới hạn thì session bị đóng để client kết nối lại.
+ * Một lần ghi bị chặn quá sendTimeLimit thì session cũng bị đóng.
+ */
+final class OutboundSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundSession.class);
+
+    private static final Executor WRITERS =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-writer-", 0).factory());
+
+    private final WebSocketSession session;
+    private final long sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+
+    /** Message chờ gửi; so sánh theo identity để remove() chỉ gỡ đúng phần tử đã chọn */
+    private static final class Pending {
+        final WebSocketMessage<?> message;
+        final boolean droppable;
+
+        Pending(WebSocketMessage<?> message, boolean droppable) {
+            this.message = message;
+            this.droppable = droppable;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedBytes = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /** Thời điểm bắt đầu lần ghi đang chạy (0 = không ghi) */
+    private volatile long sendStartedAt;
+    private volatile boolean closed;
+
+    OutboundSession(WebSocketSession session, long sendTimeLimitMillis, int bufferSizeLimit) {
+        this.session = session;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    WebSocketSession session() {
+        return session;
+    }
+
+    String getId() {
+        return session.getId();
+    }
+
+    /** Event điều khiển: không bao giờ bị bỏ. @return false nếu session đã đóng / hỏng – caller bỏ session khỏi registry */
+    boolean send(WebSocketMessage<?> message) {
+        return enqueue(message, false);
+    }
+
+    /** Frame keyframe/delta: được bỏ khi client không theo kịp, keyframe sau sẽ sửa lại */
+    boolean sendFrame(WebSocketMessage<?> message) {
+        return enqueue(message, true);
+    }
+
+    private boolean enqueue(WebSocketMessage<?> message, boolean droppable) {
+        if (closed || !session.isOpen()) return false;
+        long started = sendStartedAt;
+        if (started != 0 && System.currentTimeMillis() - started > sendTimeLimitMillis) {
+            logger.warn("⚠️ Session {} blocked a send for over {} ms, closing", session.getId(), sendTimeLimitMillis);
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+
+        queue.offer(new Pending(message, droppable));
+        int bytes = queuedBytes.addAndGet(message.getPayloadLength());
+        if (bytes > bufferSizeLimit) {
+            for (Pending pending : queue) {
+                if (bytes <= bufferSizeLimit) break;
+                // remove() false: writer vừa lấy message này đi
+                if (pending.droppable && queue.remove(pending)) {
+                    bytes = queuedBytes.addAndGet(-pending.message.getPayloadLength());
+                }
+            }
+            if (bytes > bufferSizeLimit) {
+                logger.warn("⚠️ Session {} cannot keep up with control events, closing", session.getId());
+                close(CloseStatus.SESSION_NOT_RELIABLE);
+                return false;
+            }
+        }
+        if (draining.compareAndSet(false, true)) WRITERS.execute(this::drain);
+        return true;
+    }
+
+    /** Chỉ một drain chạy tại một thời điểm (cờ draining), nên các lần ghi không chồng nhau */
+    private void drain() {
+        try {
+            for (Pending pending = queue.poll(); pending != null && !closed; pending = queue.poll()) {
+                queuedBytes.addAndGet(-pending.message.getPayloadLength());
+                sendStartedAt = System.currentTimeMillis();
+                session.sendMessage(pending.message);
+                sendStartedAt = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.warn("⚠️ Dropping stream session {}: {}", session.getId(), e.getMessage());
+            closed = true;
+        } finally {
+            sendStartedAt = 0;
+            draining.set(false);
+        }
+        // Message tới sau lần poll cuối nhưng trước khi nhả cờ
+        if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) WRITERS.execute(this::drain);
+    }
+
+    private void close(CloseStatus status) {
+        closed = true;
+        WRITERS.execute(() -> {
+            try {
+                session.close(status);
+            } catch (IOException e) {
+                logger.debug("Close of session {} failed: {}", session.getId(), e.getMessage());
+            }
+        });
+    }
+}
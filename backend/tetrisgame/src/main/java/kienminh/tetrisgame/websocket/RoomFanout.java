@@ -0,0 +1,69 @@
+package kienminh.tetrisgame.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * Gửi một message tới mọi người đang theo dõi room, chỉ serialize một lần:
+ * <ul>
+ *   <li>STOMP /topic/room/{id}: broker nhận sẵn byte[] JSON, không convert lại cho từng subscriber</li>
+ *   <li>Session thô ở /stream/room: cùng một TextMessage (cùng buffer) xếp vào hàng đợi gửi của mọi session</li>
+ * </ul>
+ * Shard gọi broadcast không ghi socket: việc gửi tới session thô chạy trên writer riêng của từng session.
+ * Nhờ vậy chi phí CPU của một room gần như không đổi khi số spectator tăng.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomFanout {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomFanout.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomSessionRegistry sessionRegistry;
+    private final ObjectMapper objectMapper;
+
+    /** Event của room (GAME_START, PLAYER_GAME_OVER, ...): luôn tới được session thô hoặc session bị đóng */
+    public void broadcast(Long roomId, Object payload) {
+        broadcast(roomId, payload, false);
+    }
+
+    /** ROOM_FRAME: session thô không theo kịp có thể bỏ, client resync bằng keyframe */
+    public void broadcastFrame(Long roomId, Object payload) {
+        broadcast(roomId, payload, true);
+    }
+
+    private void broadcast(Long roomId, Object payload, boolean droppable) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            logger.error("❌ Cannot serialize room {} message: {}", roomId, e.getMessage(), e);
+            return;
+        }
+
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        messagingTemplate.send("/topic/room/" + roomId,
+                MessageBuilder.createMessage(bytes, headers.getMessageHeaders()));
+
+        var sessions = sessionRegistry.sessions(roomId);
+        if (sessions.isEmpty()) return;
+
+        TextMessage message = new TextMessage(bytes);
+        for (OutboundSession session : sessions) {
+            boolean queued = droppable ? session.sendFrame(message) : session.send(message);
+            if (!queued) sessionRegistry.unregister(roomId, session.session());
+        }
+    }
+}
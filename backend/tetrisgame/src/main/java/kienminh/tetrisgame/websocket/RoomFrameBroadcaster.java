@@ -0,0 +1,66 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.engine.TickWheel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gom frame của mọi player trong một room trong một cửa sổ tick thành một ROOM_FRAME,
+ * để cả room chỉ tốn một lần serialize (qua {@link RoomFanout}) cho mọi subscriber và spectator.
+ * Mọi ván của room chạy trên cùng shard (key = roomId), nên buffer chỉ có một writer:
+ * enqueue() và flush() phải được gọi trên shard của room.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomFrameBroadcaster {
+
+    /** Cửa sổ gom: một frame của wheel */
+    private static final long WINDOW_MS = TickWheel.FRAME_MS;
+
+    private final RoomFanout roomFanout;
+    private final TickWheel tickWheel;
+
+    private final Map<Long, RoomBuffer> buffers = new ConcurrentHashMap<>();
+
+    private static final class RoomBuffer {
+        private List<Object> frames = new ArrayList<>();
+        private boolean flushScheduled;
+    }
+
+    /** Thêm frame vào ROOM_FRAME kế tiếp của room; frame đầu tiên trong cửa sổ hẹn lịch flush */
+    public void enqueue(Long roomId, Object frame) {
+        RoomBuffer buffer = buffers.computeIfAbsent(roomId, id -> new RoomBuffer());
+        buffer.frames.add(frame);
+        if (!buffer.flushScheduled) {
+            buffer.flushScheduled = true;
+            tickWheel.scheduleOnce(roomId, () -> flush(roomId), WINDOW_MS);
+        }
+    }
+
+    /** Gửi ngay các frame đang chờ (vd trước một event của room để giữ đúng thứ tự) */
+    public void flush(Long roomId) {
+        RoomBuffer buffer = buffers.get(roomId);
+        if (buffer == null) return;
+        buffer.flushScheduled = false;
+        if (buffer.frames.isEmpty()) return;
+
+        List<Object> frames = buffer.frames;
+        buffer.frames = new ArrayList<>();
+        roomFanout.broadcastFrame(roomId, Map.of(
+                "type", "ROOM_FRAME",
+                "roomId", roomId,
+                "frames", frames
+        ));
+    }
+
+    /** Room kết thúc: gửi nốt phần còn lại và bỏ buffer */
+    public void close(Long roomId) {
+        flush(roomId);
+        buffers.remove(roomId);
+    }
+}
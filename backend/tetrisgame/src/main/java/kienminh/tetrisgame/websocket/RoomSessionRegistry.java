@@ -0,0 +1,53 @@
+package kienminh.tetrisgame.websocket;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Các session WebSocket thô đang xem một room (endpoint /stream/room).
+ * Mỗi session có hàng đợi gửi riêng ({@link OutboundSession}): shard của room chỉ xếp frame vào hàng đợi,
+ * client chậm chỉ bị rớt frame cũ (rồi tự resync) thay vì chặn cả room.
+ */
+@Component
+public class RoomSessionRegistry {
+
+    /** Thời gian tối đa một lần ghi được phép chặn trước khi session bị đóng */
+    private static final int SEND_TIME_LIMIT_MS = 5_000;
+
+    /** Dung lượng buffer tối đa cho một session chậm */
+    private static final int BUFFER_SIZE_LIMIT = 512 * 1024;
+
+    public static final String ROOM_ID = "roomId";
+    public static final String SPECTATOR = "spectator";
+
+    /** roomId → (session id → hàng đợi gửi) */
+    private final Map<Long, Map<String, OutboundSession>> rooms = new ConcurrentHashMap<>();
+
+    public void register(Long roomId, WebSocketSession session) {
+        rooms.computeIfAbsent(roomId, id -> new ConcurrentHashMap<>())
+                .put(session.getId(), new OutboundSession(session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT));
+    }
+
+    public void unregister(Long roomId, WebSocketSession session) {
+        rooms.computeIfPresent(roomId, (id, sessions) -> {
+            sessions.remove(session.getId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    Collection<OutboundSession> sessions(Long roomId) {
+        Map<String, OutboundSession> sessions = rooms.get(roomId);
+        return sessions != null ? sessions.values() : List.of();
+    }
+
+    public long spectatorCount(Long roomId) {
+        return sessions(roomId).stream()
+                .filter(s -> Boolean.TRUE.equals(s.session().getAttributes().get(SPECTATOR)))
+                .count();
+    }
+}
@@ -0,0 +1,70 @@
+package kienminh.tetrisgame.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kienminh.tetrisgame.service.impl.MultiGameServiceImpl;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Endpoint WebSocket thô /stream/room để xem một room (spectator hoặc player muốn luồng nhẹ hơn STOMP).
+ * Server gửi đúng các message của /topic/room/{id} (ROOM_FRAME, GAME_START, PLAYER_GAME_OVER, ...),
+ * dùng chung buffer đã serialize với mọi session khác của room.
+ * Client gửi lên: {"type":"RESYNC","playerId":..} khi lệch seq của một player.
+ * RESYNC chỉ nhận cho player thuộc room và tối đa một lần mỗi RESYNC_INTERVAL_MS cho mỗi session,
+ * để guest không ép keyframe liên tục.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomStreamHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomStreamHandler.class);
+
+    private static final long RESYNC_INTERVAL_MS = 1_000;
+    private static final String LAST_RESYNC = "roomStream.lastResync";
+
+    private final RoomSessionRegistry sessionRegistry;
+    private final MultiGameServiceImpl multiGameService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        Long roomId = roomId(session);
+        sessionRegistry.register(roomId, session);
+
+        // Người mới vào cần keyframe của mọi player để dựng board
+        multiGameService.requestRoomKeyframes(roomId);
+
+        logger.info("👀 {} is watching room {} ({} spectators)",
+                session.getAttributes().get(RoomStreamHandshakeInterceptor.USERNAME),
+                roomId, sessionRegistry.spectatorCount(roomId));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        JsonNode node = objectMapper.readTree(message.getPayload());
+        if (!"RESYNC".equals(node.path("type").asText()) || !node.hasNonNull("playerId")) return;
+
+        long now = System.currentTimeMillis();
+        Object last = session.getAttributes().get(LAST_RESYNC);
+        if (last instanceof Long at && now - at < RESYNC_INTERVAL_MS) return;
+        session.getAttributes().put(LAST_RESYNC, now);
+
+        multiGameService.requestKeyframe(roomId(session), node.get("playerId").asLong());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessionRegistry.unregister(roomId(session), session);
+    }
+
+    private static Long roomId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(RoomSessionRegistry.ROOM_ID);
+    }
+}
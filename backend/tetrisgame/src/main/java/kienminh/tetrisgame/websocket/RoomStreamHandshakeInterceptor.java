@@ -0,0 +1,60 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.repository.PlayerRepository;
+import kienminh.tetrisgame.service.impl.JwtSessionService;
+import kienminh.tetrisgame.util.JwtPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Handshake của /stream/room?roomId=..&token=..
+ * roomId bắt buộc; token không bắt buộc – không có token (hoặc user không phải player của room)
+ * thì vào với vai trò spectator, không cần Player entity.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomStreamHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String USERNAME = "username";
+
+    private final JwtSessionService jwtSessionService;
+    private final PlayerRepository playerRepository;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        var params = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams();
+
+        Long roomId;
+        try {
+            roomId = Long.valueOf(params.getFirst("roomId"));
+        } catch (NumberFormatException e) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        attributes.put(RoomSessionRegistry.ROOM_ID, roomId);
+
+        // Token hỏng / hết hạn vẫn được xem như guest
+        JwtPrincipal principal = jwtSessionService.authenticate(params.getFirst("token"));
+        attributes.put(USERNAME, principal != null ? principal.username() : "guest");
+
+        boolean playerOfRoom = principal != null && playerRepository.findById(principal.playerId())
+                .map(p -> p.getRoom() != null && roomId.equals(p.getRoom().getId()))
+                .orElse(false);
+        attributes.put(RoomSessionRegistry.SPECTATOR, !playerOfRoom);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -1,6 +1,7 @@
 package kienminh.tetrisgame.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import kienminh.tetrisgame.dto.InputBatchDTO;
 import kienminh.tetrisgame.dto.PlayerDTO;
 import kienminh.tetrisgame.dto.RoomDTO;
 import kienminh.tetrisgame.model.entity.Player;
@@ -8,8 +9,12 @@ import kienminh.tetrisgame.model.entity.Room;
 import kienminh.tetrisgame.model.game.GameState;
 import kienminh.tetrisgame.repository.PlayerRepository;
 import kienminh.tetrisgame.repository.RoomRepository;
+import kienminh.tetrisgame.service.impl.MultiGameServiceImpl;
 import kienminh.tetrisgame.service.interfaces.RoomService;
+import kienminh.tetrisgame.util.JwtPrincipal;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -17,6 +22,7 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -25,10 +31,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RoomWebSocketHandler {
 
+    private static final Logger logger = LoggerFactory.getLogger(RoomWebSocketHandler.class);
+
     private final RoomService roomService;
     private final PlayerRepository playerRepository;
     private final RoomRepository roomRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final MultiGameServiceImpl multiGameService;
 
     private final ObjectMapper mapper = new ObjectMapper();
     private final ReentrantLock gameLock = new ReentrantLock();
@@ -103,6 +112,45 @@ public class RoomWebSocketHandler {
         messagingTemplate.convertAndSend("/topic/room/" + roomId, event);
     }
 
+    /**
+     * 🔹 Client lỡ mất seq TICK_UPDATE của một player → gửi lại keyframe.
+     * Chỉ player đang chơi trong room được yêu cầu, và chỉ cho player của chính room đó.
+     */
+    @MessageMapping("/room/resync/{roomId}/{playerId}")
+    public void resync(@DestinationVariable Long roomId,
+                       @DestinationVariable Long playerId,
+                       Principal principal) {
+        JwtPrincipal caller = JwtPrincipal.of(principal);
+        if (caller == null || !multiGameService.isInRoom(caller.playerId(), roomId)) return;
+        multiGameService.requestKeyframe(roomId, playerId);
+    }
+
+    /**
+     * 🔹 Batch input của player qua WebSocket; ACK nằm trong ROOM_FRAME ngay sau frame của batch.
+     * playerId trên destination phải khớp claim của token và đang chơi trong đúng roomId.
+     */
+    @MessageMapping("/room/input/{roomId}/{playerId}")
+    public void input(@DestinationVariable Long roomId,
+                      @DestinationVariable Long playerId,
+                      @Payload InputBatchDTO batch,
+                      Principal principal) {
+        if (!JwtPrincipal.isPlayer(principal, playerId)) {
+            logger.warn("⛔ Rejected input for player {} from {}", playerId, principal != null ? principal.getName() : "guest");
+            return;
+        }
+        if (!multiGameService.isInRoom(playerId, roomId)) {
+            logger.debug("Input batch ignored, player {} is not playing in room {}", playerId, roomId);
+            return;
+        }
+        try {
+            var actions = batch.actions();
+            if (actions.isEmpty()) return;
+            multiGameService.applyInputBatch(playerId, actions, batch.lastSeq(), batch.getT());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            logger.debug("Input batch ignored for player {}: {}", playerId, e.getMessage());
+        }
+    }
+
     /** 🔹 Player cập nhật gameState */
     @MessageMapping("/game/update/{playerId}")
     public void updateGame(@DestinationVariable Long playerId,
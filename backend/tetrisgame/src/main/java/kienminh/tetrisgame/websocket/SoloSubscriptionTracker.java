@@ -0,0 +1,65 @@
+package kienminh.tetrisgame.websocket;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Đếm subscriber STOMP của từng /topic/solo/{playerId}, để engine chỉ serialize frame solo
+ * khi thực sự có người nghe (phần lớn ván solo không mở topic này).
+ */
+@Component
+public class SoloSubscriptionTracker {
+
+    public static final String TOPIC_PREFIX = "/topic/solo/";
+
+    /** sessionId -> (subscriptionId -> playerId) */
+    private final Map<String, Map<String, Long>> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> counts = new ConcurrentHashMap<>();
+
+    public boolean isSubscribed(Long playerId) {
+        return counts.containsKey(playerId);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) return;
+
+        Long playerId;
+        try {
+            playerId = Long.valueOf(destination.substring(TOPIC_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        Map<String, Long> subscriptions = sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>());
+        if (subscriptions.putIfAbsent(accessor.getSubscriptionId(), playerId) == null) {
+            counts.merge(playerId, 1, Integer::sum);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Long> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions != null) release(subscriptions.remove(accessor.getSubscriptionId()));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Long> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) subscriptions.values().forEach(this::release);
+    }
+
+    private void release(Long playerId) {
+        if (playerId == null) return;
+        counts.computeIfPresent(playerId, (id, count) -> count <= 1 ? null : count - 1);
+    }
+}
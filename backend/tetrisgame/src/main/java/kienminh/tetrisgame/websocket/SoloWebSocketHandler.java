@@ -0,0 +1,59 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.dto.InputBatchDTO;
+import kienminh.tetrisgame.service.impl.SoloGameServiceImpl;
+import kienminh.tetrisgame.util.JwtPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.Map;
+
+@Controller
+@RequiredArgsConstructor
+public class SoloWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SoloWebSocketHandler.class);
+
+    private final SoloGameServiceImpl soloGameService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * 🔹 Batch input qua WebSocket thay cho POST /action mỗi phím.
+     * ACK đi cùng topic với frame và sau frame của batch, nên frame ngay trước ACK đã gồm mọi input ≤ seq.
+     * playerId trên destination phải khớp claim của token; batch rỗng không có input để ACK.
+     */
+    @MessageMapping("/solo/input/{playerId}")
+    public void input(@DestinationVariable Long playerId, @Payload InputBatchDTO batch, Principal principal) {
+        if (!JwtPrincipal.isPlayer(principal, playerId)) {
+            logger.warn("⛔ Rejected input for player {} from {}", playerId, principal != null ? principal.getName() : "guest");
+            return;
+        }
+        try {
+            var actions = batch.actions();
+            if (actions.isEmpty()) return;
+            soloGameService.applyInputs(playerId, actions, batch.lastSeq());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            logger.debug("Input batch ignored for player {}: {}", playerId, e.getMessage());
+            return;
+        }
+        messagingTemplate.convertAndSend(SoloSubscriptionTracker.TOPIC_PREFIX + playerId, Map.of(
+                "type", "ACK",
+                "s", batch.lastSeq(),
+                "t", batch.getT()
+        ));
+    }
+
+    /** 🔹 Client vừa subscribe /topic/solo/{playerId} hoặc lỡ mất seq → gửi lại keyframe */
+    @MessageMapping("/solo/resync/{playerId}")
+    public void resync(@DestinationVariable Long playerId, Principal principal) {
+        if (!JwtPrincipal.isPlayer(principal, playerId)) return;
+        soloGameService.requestKeyframe(playerId);
+    }
+}
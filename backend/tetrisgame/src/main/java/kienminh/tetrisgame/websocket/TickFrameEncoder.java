@@ -0,0 +1,125 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.model.game.GameSnapshot;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Mã hóa luồng TICK_UPDATE của một player thành keyframe + delta.
+ * Header chung (khóa ngắn vì gửi mỗi tick): type, k (K/D), p (playerId), s (seq), v (version).
+ * <ul>
+ *   <li>K (keyframe): board đầy đủ + score/level/status/nextBlock</li>
+ *   <li>D (delta): c = các ô đổi so với frame đã gửi trước đó, mỗi ô một số
+ *       (y * width + x) * 8 + value; score/level/status/nextBlock chỉ có khi đổi</li>
+ * </ul>
+ * Mỗi frame có seq tăng liên tục; delta seq = n chỉ áp dụng được lên frame seq = n - 1.
+ * Client lệch seq thì gửi resync, frame kế tiếp sẽ là keyframe.
+ * Chỉ shard sở hữu ván gọi encode(); requestKeyframe() gọi được từ thread bất kỳ.
+ */
+public class TickFrameEncoder {
+
+    public static final String KEY = "K";
+    public static final String DELTA = "D";
+
+    /** Giá trị ô (0..7) chiếm 3 bit thấp của mỗi phần tử trong "c" */
+    private static final int VALUE_BITS = 3;
+
+    /** Định kỳ gửi keyframe để client vào giữa chừng / mất gói tự hồi phục */
+    private static final int KEYFRAME_INTERVAL = 100;
+
+    private final Long playerId;
+
+    private long seq;
+    private int framesSinceKey;
+    private GameSnapshot last;
+    private volatile boolean keyframeRequested = true;
+
+    public TickFrameEncoder(Long playerId) {
+        this.playerId = playerId;
+    }
+
+    public void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    /** @return payload cần gửi, hoặc null nếu không có gì thay đổi kể từ frame trước */
+    public Map<String, Object> encode(GameSnapshot snapshot) {
+        if (keyframeRequested || last == null || framesSinceKey >= KEYFRAME_INTERVAL
+                || !sameShape(last.board(), snapshot.board())) {
+            keyframeRequested = false;
+            return keyframe(snapshot);
+        }
+        if (snapshot.version() == last.version()) return null;
+
+        int[] cells = diff(last.board(), snapshot.board());
+        boolean scalarsChanged = snapshot.score() != last.score()
+                || snapshot.level() != last.level()
+                || snapshot.status() != last.status()
+                || !Objects.equals(snapshot.nextBlock(), last.nextBlock());
+        if (cells.length == 0 && !scalarsChanged) {
+            last = snapshot;
+            return null;
+        }
+
+        Map<String, Object> frame = header(DELTA, snapshot);
+        frame.put("c", cells);
+        if (snapshot.score() != last.score()) frame.put("score", snapshot.score());
+        if (snapshot.level() != last.level()) frame.put("level", snapshot.level());
+        if (snapshot.status() != last.status()) frame.put("status", snapshot.status().name());
+        if (!Objects.equals(snapshot.nextBlock(), last.nextBlock())) frame.put("nextBlock", snapshot.nextBlock());
+
+        framesSinceKey++;
+        last = snapshot;
+        return frame;
+    }
+
+    private Map<String, Object> keyframe(GameSnapshot snapshot) {
+        Map<String, Object> frame = header(KEY, snapshot);
+        frame.put("board", snapshot.board());
+        frame.put("score", snapshot.score());
+        frame.put("level", snapshot.level());
+        frame.put("status", snapshot.status().name());
+        frame.put("nextBlock", snapshot.nextBlock());
+
+        framesSinceKey = 0;
+        last = snapshot;
+        return frame;
+    }
+
+    private Map<String, Object> header(String kind, GameSnapshot snapshot) {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", "TICK_UPDATE");
+        frame.put("k", kind);
+        frame.put("p", playerId);
+        frame.put("s", ++seq);
+        frame.put("v", snapshot.version());
+        return frame;
+    }
+
+    /**
+     * Các ô khác nhau giữa hai board. Snapshot dùng chung các hàng không đổi,
+     * nên phần lớn hàng bị loại chỉ bằng so sánh tham chiếu.
+     */
+    static int[] diff(int[][] before, int[][] after) {
+        int[] out = new int[8];
+        int n = 0;
+        for (int y = 0; y < after.length; y++) {
+            int[] a = before[y];
+            int[] b = after[y];
+            if (a == b) continue;
+            for (int x = 0; x < b.length; x++) {
+                if (a[x] == b[x]) continue;
+                if (n == out.length) out = Arrays.copyOf(out, out.length * 2);
+                out[n++] = ((y * b.length + x) << VALUE_BITS) | b[x];
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static boolean sameShape(int[][] a, int[][] b) {
+        return a.length == b.length && (a.length == 0 || a[0].length == b[0].length);
+    }
+}
@@ -0,0 +1,40 @@
+package kienminh.tetrisgame.controller;
+
+import kienminh.tetrisgame.leaderboard.LeaderboardWindow;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LeaderboardControllerTest {
+
+    private final LeaderboardService leaderboardService = mock(LeaderboardService.class);
+    private final LeaderboardController controller = new LeaderboardController(leaderboardService);
+
+    {
+        ReflectionTestUtils.setField(controller, "maxLimit", 100);
+    }
+
+    @Test
+    void limitWithinRangeIsServed() {
+        when(leaderboardService.getTop(LeaderboardWindow.DAILY, 100)).thenReturn(List.of());
+
+        assertEquals(HttpStatus.OK, controller.getLeaderboard(LeaderboardWindow.DAILY, 100).getStatusCode());
+        verify(leaderboardService).getTop(LeaderboardWindow.DAILY, 100);
+    }
+
+    @Test
+    void limitOutOfRangeIsBadRequest() {
+        for (int limit : new int[]{0, -5, 101}) {
+            assertEquals(HttpStatus.BAD_REQUEST,
+                    controller.getLeaderboard(LeaderboardWindow.ALL_TIME, limit).getStatusCode());
+        }
+        verify(leaderboardService, never()).getTop(any(), anyInt());
+    }
+}
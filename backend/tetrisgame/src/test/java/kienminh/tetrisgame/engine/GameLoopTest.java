@@ -0,0 +1,122 @@
+package kienminh.tetrisgame.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameLoopTest {
+
+    @Test
+    void mailboxKeepsPerProducerOrderUnderContention() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscMailbox<long[]> mailbox = new MpscMailbox<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perProducer; i++) mailbox.offer(new long[]{id, i});
+            }));
+        }
+
+        long[] nextExpected = new long[producers];
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < producers * perProducer) {
+            long[] item = mailbox.poll();
+            if (item == null) {
+                assertTrue(System.nanoTime() < deadline, "mailbox lost items");
+                Thread.onSpinWait();
+                continue;
+            }
+            assertEquals(nextExpected[(int) item[0]]++, item[1]);
+            received++;
+        }
+        for (Thread thread : threads) thread.join();
+        assertNull(mailbox.poll());
+    }
+
+    /**
+     * Các producer gửi call() thưa thớt để worker liên tục đi ngủ rồi bị đánh thức.
+     * Một wakeup bị mất sẽ làm call() treo và test hết giờ.
+     */
+    @Test
+    void callNeverMissesWakeupWhenShardParks() {
+        GameLoop loop = new GameLoop(2);
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+                int producers = 8;
+                int calls = 20_000;
+                AtomicInteger applied = new AtomicInteger();
+                List<Thread> threads = new ArrayList<>();
+                for (int p = 0; p < producers; p++) {
+                    long key = p;
+                    threads.add(Thread.ofPlatform().start(() -> {
+                        for (int i = 0; i < calls; i++) {
+                            int value = i;
+                            assertEquals(value, loop.call(key, () -> {
+                                applied.incrementAndGet();
+                                return value;
+                            }));
+                            if ((i & 63) == 0) Thread.yield();
+                        }
+                    }));
+                }
+                for (Thread thread : threads) thread.join();
+                assertEquals(producers * calls, applied.get());
+            });
+        } finally {
+            loop.shutdown();
+        }
+    }
+
+    @Test
+    void callRunsInlineOnOwningShard() {
+        GameLoop loop = new GameLoop(1);
+        try {
+            assertEquals(7, loop.call(1, () -> loop.call(1, () -> 7)));
+        } finally {
+            loop.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownRejectsPendingCalls() throws Exception {
+        GameLoop loop = new GameLoop(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        loop.execute(0, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> pending = loop.submit(0, () -> 1);
+
+        Thread.ofPlatform().start(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            release.countDown();
+        });
+        loop.shutdown();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> pending.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertThrows(RejectedExecutionException.class, () -> loop.call(0, () -> 1));
+    }
+}
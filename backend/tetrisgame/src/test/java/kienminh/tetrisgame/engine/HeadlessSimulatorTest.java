@@ -0,0 +1,60 @@
+package kienminh.tetrisgame.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessSimulatorTest {
+
+    private static HeadlessSimulator.HeadlessSimulatorBuilder simulator(long seed) {
+        return HeadlessSimulator.builder().games(200).seed(seed).maxPiecesPerGame(200);
+    }
+
+    @Test
+    void sameSeedGivesSameReport() {
+        SimulationReport first = simulator(7L).parallelism(4).gamesPerShard(8).build().run();
+        SimulationReport second = simulator(7L).parallelism(4).gamesPerShard(8).build().run();
+
+        assertSameResult(first, second);
+        assertEquals(200, first.getGames());
+        assertTrue(first.getPieces() > 0);
+    }
+
+    @Test
+    void forkJoinSplitMatchesSequentialRun() {
+        HeadlessSimulator sharded = simulator(7L).parallelism(4).gamesPerShard(3).build();
+        // Một shard duy nhất trên một thread: không chia, chạy tuần tự từ ván 0
+        SimulationReport single = simulator(7L).parallelism(1).gamesPerShard(Integer.MAX_VALUE).build().run();
+
+        SimulationReport sequential = SimulationReport.empty();
+        for (int i = 0; i < sharded.getGames(); i++) sequential = sequential.merge(sharded.runGame(i));
+
+        SimulationReport parallel = sharded.run();
+        assertSameResult(sequential, parallel);
+        assertSameResult(single, parallel);
+    }
+
+    @Test
+    void differentSeedGivesDifferentChecksum() {
+        SimulationReport a = simulator(7L).parallelism(2).build().run();
+        SimulationReport b = simulator(8L).parallelism(2).build().run();
+
+        assertNotEquals(a.getChecksum(), b.getChecksum());
+    }
+
+    @Test
+    void rejectsNonPositiveInputInterval() {
+        HeadlessSimulator simulator = simulator(7L).inputIntervalMs(0).build();
+
+        assertThrows(IllegalArgumentException.class, simulator::run);
+    }
+
+    private static void assertSameResult(SimulationReport expected, SimulationReport actual) {
+        assertEquals(expected.getGames(), actual.getGames());
+        assertEquals(expected.getPieces(), actual.getPieces());
+        assertEquals(expected.getLines(), actual.getLines());
+        assertEquals(expected.getTotalScore(), actual.getTotalScore());
+        assertEquals(expected.getVirtualMillis(), actual.getVirtualMillis());
+        assertEquals(expected.getChecksum(), actual.getChecksum());
+    }
+}
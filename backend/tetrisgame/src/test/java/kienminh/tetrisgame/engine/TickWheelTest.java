@@ -0,0 +1,92 @@
+package kienminh.tetrisgame.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickWheelTest {
+
+    private final GameLoop gameLoop = new GameLoop(2);
+    private final TickWheel wheel = new TickWheel(gameLoop);
+
+    @AfterEach
+    void tearDown() {
+        wheel.shutdown();
+        gameLoop.shutdown();
+    }
+
+    @Test
+    void delaysRoundUpToWholeFrames() {
+        assertEquals(1, TickWheel.toFrames(0));
+        assertEquals(1, TickWheel.toFrames(1));
+        assertEquals(1, TickWheel.toFrames(TickWheel.FRAME_MS));
+        assertEquals(2, TickWheel.toFrames(TickWheel.FRAME_MS + 1));
+        assertEquals(20, TickWheel.toFrames(1000));
+    }
+
+    @Test
+    void repeatingTaskRunsOnOwningShardWithReturnedDelay() throws InterruptedException {
+        long key = 7;
+        CountDownLatch done = new CountDownLatch(1);
+        List<Long> runs = new CopyOnWriteArrayList<>();
+        AtomicInteger wrongShard = new AtomicInteger();
+        wheel.schedule(key, () -> {
+            if (!gameLoop.isOwner(key)) wrongShard.incrementAndGet();
+            runs.add(System.nanoTime());
+            if (runs.size() == 5) {
+                done.countDown();
+                return TickWheel.STOP;
+            }
+            return 100;
+        }, 0);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertEquals(5, runs.size(), "STOP must end the task");
+        assertEquals(0, wrongShard.get());
+        // 4 khoảng 100ms; nhịp tính từ frame đã fire nên không trôi quá một frame mỗi lần
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(runs.get(4) - runs.get(0));
+        assertTrue(elapsedMs >= 4 * 100 - TickWheel.FRAME_MS, "elapsed " + elapsedMs);
+    }
+
+    @Test
+    void cancelledTaskStopsAndScheduleOnceRunsOnce() throws InterruptedException {
+        AtomicInteger repeating = new AtomicInteger();
+        AtomicInteger once = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(3);
+        TickWheel.Handle handle = wheel.schedule(1, () -> {
+            repeating.incrementAndGet();
+            ran.countDown();
+            return TickWheel.FRAME_MS;
+        }, 0);
+        wheel.scheduleOnce(2, once::incrementAndGet, TickWheel.FRAME_MS);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        handle.cancel();
+        assertTrue(handle.isCancelled());
+        Thread.sleep(2 * TickWheel.FRAME_MS);   // lần chạy đã lên shard trước khi cancel có thể vẫn xong
+        int afterCancel = repeating.get();
+        Thread.sleep(5 * TickWheel.FRAME_MS);
+        assertEquals(afterCancel, repeating.get());
+        assertEquals(1, once.get());
+    }
+
+    @Test
+    void throwingTaskKeepsItsLastDelay() throws InterruptedException {
+        CountDownLatch runs = new CountDownLatch(3);
+        TickWheel.Handle handle = wheel.schedule(3, () -> {
+            runs.countDown();
+            throw new IllegalStateException("boom");
+        }, TickWheel.FRAME_MS);
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        handle.cancel();
+    }
+}
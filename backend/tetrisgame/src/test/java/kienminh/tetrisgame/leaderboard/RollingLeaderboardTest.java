@@ -0,0 +1,66 @@
+package kienminh.tetrisgame.leaderboard;
+
+import kienminh.tetrisgame.model.game.FinishedGame;
+import kienminh.tetrisgame.model.game.enums.GameMode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static kienminh.tetrisgame.leaderboard.TopKLeaderboardTest.expected;
+import static kienminh.tetrisgame.leaderboard.TopKLeaderboardTest.ids;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingLeaderboardTest {
+
+    private static final long BUCKET_MS = 1000;
+    private static final int BUCKETS = 5;
+    private static final int CAPACITY = 5;
+
+    @Test
+    void matchesBruteForceTopOfLiveBuckets() {
+        Random random = new Random(11);
+        RollingLeaderboard rolling = new RollingLeaderboard(BUCKET_MS, BUCKETS, CAPACITY);
+        List<FinishedGame> games = new ArrayList<>();
+        long now = 1_000_000;
+        for (int i = 0; i < 5000; i++) {
+            now += random.nextInt(200);
+            // Đôi khi là ván cũ (vd phát lại từ file spill), có thể đã ra khỏi cửa sổ
+            long finishedAt = now - (random.nextInt(10) == 0 ? random.nextInt(8000) : 0);
+            FinishedGame game = new FinishedGame(random.nextInt(30), random.nextInt(500) * 10, 1, 0, 1000,
+                    GameMode.SOLO, Instant.ofEpochMilli(finishedAt));
+            games.add(game);
+            rolling.offer(game, "user" + game.playerId(), now);
+
+            if (i % 25 == 0) {
+                long at = now;
+                List<FinishedGame> live = games.stream()
+                        .filter(g -> g.finishedAt().toEpochMilli() / BUCKET_MS >= at / BUCKET_MS - BUCKETS + 1)
+                        .toList();
+                assertEquals(expected(live, CAPACITY), ids(rolling.snapshot(at)), "at " + at);
+            }
+        }
+    }
+
+    @Test
+    void oldBucketsExpireOnRead() {
+        RollingLeaderboard rolling = new RollingLeaderboard(BUCKET_MS, BUCKETS, CAPACITY);
+        rolling.offer(game(1, 900, 0), "a", 0);
+        rolling.offer(game(2, 100, 3 * BUCKET_MS), "b", 3 * BUCKET_MS);
+        assertEquals(List.of(1L, 2L), ids(rolling.snapshot(4 * BUCKET_MS)));
+
+        // Bucket 0 ra khỏi cửa sổ 5 bucket khi sang bucket 5
+        assertEquals(List.of(2L), ids(rolling.snapshot(5 * BUCKET_MS)));
+        assertEquals(List.of(), ids(rolling.snapshot(8 * BUCKET_MS)));
+
+        // Ván đến muộn mà đã ngoài cửa sổ thì bỏ qua
+        rolling.offer(game(3, 500, 2 * BUCKET_MS), "c", 8 * BUCKET_MS);
+        assertEquals(List.of(), ids(rolling.snapshot(8 * BUCKET_MS)));
+    }
+
+    private static FinishedGame game(long playerId, int score, long finishedAt) {
+        return new FinishedGame(playerId, score, 1, 0, 1000, GameMode.SOLO, Instant.ofEpochMilli(finishedAt));
+    }
+}
@@ -0,0 +1,54 @@
+package kienminh.tetrisgame.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreHistogramTest {
+
+    @Test
+    void countAboveMatchesLinearCountIncludingGrowth() {
+        Random random = new Random(7);
+        ScoreHistogram histogram = new ScoreHistogram();
+        List<Integer> scores = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // Phần lớn nhỏ, thỉnh thoảng vượt 4096 bucket ban đầu để cây phải nới rộng
+            int score = (random.nextInt(20) == 0 ? random.nextInt(200_000) : random.nextInt(3000)) * ScoreHistogram.STEP;
+            if (!scores.isEmpty() && random.nextInt(4) == 0) {
+                int removed = scores.remove(random.nextInt(scores.size()));
+                histogram.add(removed, -1);
+            } else {
+                scores.add(score);
+                histogram.add(score, 1);
+            }
+            if (i % 50 == 0) {
+                int probe = random.nextInt(2_100_000);
+                probe -= probe % ScoreHistogram.STEP;
+                assertEquals(countAbove(scores, probe), histogram.countAbove(probe), "probe " + probe);
+                assertEquals(scores.size(), histogram.total());
+            }
+        }
+        for (int score : scores) assertEquals(countAbove(scores, score), histogram.countAbove(score));
+    }
+
+    @Test
+    void edgeScores() {
+        ScoreHistogram histogram = new ScoreHistogram();
+        assertEquals(0, histogram.countAbove(0));
+        histogram.add(0, 1);
+        histogram.add(-50, 1);   // điểm âm được tính như 0
+        histogram.add(10, 1);
+        assertEquals(1, histogram.countAbove(0));
+        assertEquals(0, histogram.countAbove(10));
+        assertEquals(0, histogram.countAbove(Integer.MAX_VALUE));
+        assertEquals(3, histogram.total());
+    }
+
+    private static long countAbove(List<Integer> scores, int score) {
+        return scores.stream().filter(s -> s > score).count();
+    }
+}
@@ -0,0 +1,67 @@
+package kienminh.tetrisgame.leaderboard;
+
+import kienminh.tetrisgame.dto.LeaderboardEntryDTO;
+import kienminh.tetrisgame.model.game.FinishedGame;
+import kienminh.tetrisgame.model.game.enums.GameMode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKLeaderboardTest {
+
+    /** Điểm giảm dần, bằng điểm thì ai đạt trước đứng trước – giống thứ tự của TopKLeaderboard */
+    static final Comparator<FinishedGame> ORDER = Comparator
+            .comparingInt((FinishedGame g) -> -g.score())
+            .thenComparing(FinishedGame::finishedAt)
+            .thenComparingLong(FinishedGame::playerId);
+
+    @Test
+    void matchesBestGamePerPlayerSortedAndCut() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            TopKLeaderboard top = new TopKLeaderboard(10);
+            List<FinishedGame> games = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                FinishedGame game = game(random.nextInt(40), random.nextInt(300) * 10, i);
+                games.add(game);
+                top.offer(game, "user" + game.playerId());
+                if (i % 37 == 0) assertEquals(expected(games, 10), ids(top.snapshot()));
+            }
+            assertEquals(expected(games, 10), ids(top.snapshot()));
+        }
+    }
+
+    @Test
+    void keepsOneRowPerPlayerAndEarlierGameWinsTies() {
+        TopKLeaderboard top = new TopKLeaderboard(3);
+        assertTrue(top.offer(game(1, 500, 0), "a"));
+        assertTrue(top.offer(game(2, 500, 1), "b"));
+        assertFalse(top.offer(game(1, 400, 2), "a"));   // không tốt hơn ván đang giữ
+        assertFalse(top.offer(game(1, 500, 3), "a"));   // bằng điểm nhưng muộn hơn
+        assertTrue(top.offer(game(3, 100, 4), "c"));
+        assertFalse(top.offer(game(4, 100, 5), "d"));   // đầy, bằng điểm người cuối nhưng muộn hơn
+        assertTrue(top.offer(game(4, 200, 6), "d"));
+
+        List<LeaderboardEntryDTO> rows = top.snapshot();
+        assertEquals(List.of(1L, 2L, 4L), ids(rows));
+        assertEquals(List.of(1, 2, 3), rows.stream().map(LeaderboardEntryDTO::getRank).toList());
+        assertSame(rows, top.snapshot());   // top không đổi: dùng lại danh sách cũ
+    }
+
+    static FinishedGame game(long playerId, int score, long second) {
+        return new FinishedGame(playerId, score, 1, 0, 1000, GameMode.SOLO, Instant.ofEpochSecond(second));
+    }
+
+    static List<Long> expected(Collection<FinishedGame> games, int capacity) {
+        Map<Long, FinishedGame> best = new HashMap<>();
+        for (FinishedGame game : games) best.merge(game.playerId(), game, (a, b) -> ORDER.compare(a, b) <= 0 ? a : b);
+        return best.values().stream().sorted(ORDER).limit(capacity).map(FinishedGame::playerId).toList();
+    }
+
+    static List<Long> ids(List<LeaderboardEntryDTO> rows) {
+        return rows.stream().map(LeaderboardEntryDTO::getPlayerId).toList();
+    }
+}
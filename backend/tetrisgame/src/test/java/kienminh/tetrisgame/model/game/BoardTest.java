@@ -0,0 +1,257 @@
+package kienminh.tetrisgame.model.game;
+
+import kienminh.tetrisgame.model.game.enums.BlockType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * So sánh Board (bitboard + cache) với bản cài đặt gốc chạy trên int[][] (ReferenceBoard bên dưới),
+ * từng bước một trên các chuỗi thao tác ngẫu nhiên có seed.
+ */
+class BoardTest {
+
+    private static final int GAMES = 200;
+    private static final int STEPS = 2_000;
+
+    @Test
+    void matchesReferenceImplementationStepByStep() {
+        Random actions = new Random(42);
+        for (int game = 0; game < GAMES; game++) {
+            Board board = new Board();
+            board.init(game);
+            ReferenceBoard reference = new ReferenceBoard(board.getWidth(), board.getHeight());
+            reference.spawn(board.getCurrentBlock().getType());
+
+            for (int step = 0; step < STEPS; step++) {
+                switch (actions.nextInt(5)) {
+                    case 0 -> assertEquals(reference.moveLeft(), board.moveLeft());
+                    case 1 -> assertEquals(reference.moveRight(), board.moveRight());
+                    case 2 -> {
+                        reference.rotate();
+                        board.rotateBlock();
+                    }
+                    case 3 -> assertEquals(reference.moveDown(), board.moveDown());
+                    default -> {
+                        reference.dropDown();
+                        board.dropDown();
+                    }
+                }
+                assertEquals(reference.hasCurrentBlock(), board.hasCurrentBlock());
+
+                if (!board.hasCurrentBlock()) {
+                    assertEquals(reference.clearLines(), board.clearLines(), "lines at step " + step);
+                    assertColumnCaches(reference.grid, board);
+                    boolean spawned = board.spawnBlock();
+                    assertEquals(reference.spawn(board.getCurrentBlock().getType()), spawned);
+                    if (!spawned) break;
+                }
+                assertArrayEquals(reference.snapshot(), board.getBoardSnapshot(), "game " + game + " step " + step);
+            }
+        }
+    }
+
+    @Test
+    void setGridRebuildsMasksAndColumnCaches() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            Board board = new Board();
+            board.init(i);
+            int[][] grid = new int[board.getHeight()][board.getWidth()];
+            for (int y = 5; y < grid.length; y++) {
+                for (int x = 0; x < grid[y].length; x++) {
+                    if (random.nextInt(3) > 0) grid[y][x] = 1 + random.nextInt(7);
+                }
+                if (random.nextInt(4) == 0) Arrays.fill(grid[y], 3);   // vài hàng đầy sẵn
+            }
+            int[][] expected = Arrays.stream(grid).map(int[]::clone).toArray(int[][]::new);
+            board.setGrid(grid);
+            board.setCurrentBlock(null);
+            assertColumnCaches(expected, board);
+
+            ReferenceBoard reference = new ReferenceBoard(board.getWidth(), board.getHeight());
+            reference.grid = expected;
+            assertEquals(reference.clearLines(), board.clearLines());
+            assertArrayEquals(reference.snapshot(), board.getBoardSnapshot());
+            assertColumnCaches(reference.grid, board);
+        }
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterLocks() {
+        Board board = new Board();
+        board.init(1);
+        board.dropDown();
+        int[][] before = board.getBoardSnapshot();
+        int[][] copy = Arrays.stream(before).map(int[]::clone).toArray(int[][]::new);
+
+        board.clearLines();
+        board.spawnBlock();
+        board.dropDown();
+
+        assertArrayEquals(copy, before);
+        assertFalse(Arrays.deepEquals(before, board.getBoardSnapshot()));
+    }
+
+    private static void assertColumnCaches(int[][] grid, Board board) {
+        int height = grid.length;
+        int aggregate = 0;
+        int holes = 0;
+        int max = 0;
+        for (int x = 0; x < grid[0].length; x++) {
+            int top = 0;
+            while (top < height && grid[top][x] == 0) top++;
+            int columnHeight = height - top;
+            int columnHoles = 0;
+            for (int y = top; y < height; y++) if (grid[y][x] == 0) columnHoles++;
+
+            assertEquals(columnHeight, board.columnHeight(x), "height of column " + x);
+            assertEquals(columnHoles, board.columnHoles(x), "holes of column " + x);
+            aggregate += columnHeight;
+            holes += columnHoles;
+            max = Math.max(max, columnHeight);
+        }
+        assertEquals(aggregate, board.aggregateHeight());
+        assertEquals(holes, board.totalHoles());
+        assertEquals(max, board.maxHeight());
+    }
+
+    /** Luật Board trước khi chuyển sang bitboard: duyệt từng ô của shape trên int[][] */
+    private static final class ReferenceBoard {
+        final int width;
+        final int height;
+        int[][] grid;
+        BlockType type;
+        int[][] shape;
+        int x;
+        int y;
+
+        ReferenceBoard(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.grid = new int[height][width];
+        }
+
+        boolean spawn(BlockType next) {
+            type = next;
+            shape = Arrays.stream(next.getShape()).map(int[]::clone).toArray(int[][]::new);
+            x = width / 2 - shape[0].length / 2;
+            y = -shape.length + 1;
+            return !collision(x, y, shape);
+        }
+
+        boolean hasCurrentBlock() {
+            return shape != null;
+        }
+
+        boolean moveLeft() {
+            return shape != null && move(x - 1, y);
+        }
+
+        boolean moveRight() {
+            return shape != null && move(x + 1, y);
+        }
+
+        boolean moveDown() {
+            if (shape == null) return false;
+            if (!move(x, y + 1)) {
+                lock();
+                return false;
+            }
+            return true;
+        }
+
+        void dropDown() {
+            while (shape != null && moveDown()) {
+                // rơi tới khi lock
+            }
+        }
+
+        void rotate() {
+            if (shape == null) return;
+            int[][] previous = shape;
+            shape = rotateClockwise(shape);
+            if (collision(x, y, shape) && !move(x - 1, y) && !move(x + 1, y)) shape = previous;
+        }
+
+        int clearLines() {
+            int cleared = 0;
+            for (int row = height - 1; row >= 0; row--) {
+                boolean full = true;
+                for (int col = 0; col < width; col++) {
+                    if (grid[row][col] == 0) {
+                        full = false;
+                        break;
+                    }
+                }
+                if (full) {
+                    for (int r = row; r > 0; r--) System.arraycopy(grid[r - 1], 0, grid[r], 0, width);
+                    Arrays.fill(grid[0], 0);
+                    cleared++;
+                    row++;
+                }
+            }
+            return cleared;
+        }
+
+        int[][] snapshot() {
+            int[][] copy = new int[height][];
+            for (int i = 0; i < height; i++) copy[i] = grid[i].clone();
+            if (shape != null) {
+                for (int i = 0; i < shape.length; i++) {
+                    for (int j = 0; j < shape[i].length; j++) {
+                        int cx = x + j;
+                        int cy = y + i;
+                        if (shape[i][j] != 0 && cy >= 0 && cy < height && cx >= 0 && cx < width) {
+                            copy[cy][cx] = type.ordinal() + 1;
+                        }
+                    }
+                }
+            }
+            return copy;
+        }
+
+        private boolean move(int nx, int ny) {
+            if (collision(nx, ny, shape)) return false;
+            x = nx;
+            y = ny;
+            return true;
+        }
+
+        private void lock() {
+            for (int i = 0; i < shape.length; i++) {
+                for (int j = 0; j < shape[i].length; j++) {
+                    int cx = x + j;
+                    int cy = y + i;
+                    if (shape[i][j] == 0 || cy < 0 || cy >= height || cx < 0 || cx >= width) continue;
+                    grid[cy][cx] = type.ordinal() + 1;
+                }
+            }
+            shape = null;
+        }
+
+        private boolean collision(int nx, int ny, int[][] s) {
+            for (int i = 0; i < s.length; i++) {
+                for (int j = 0; j < s[i].length; j++) {
+                    if (s[i][j] == 0) continue;
+                    int cx = nx + j;
+                    int cy = ny + i;
+                    if (cx < 0 || cx >= width || cy >= height) return true;
+                    if (cy >= 0 && grid[cy][cx] != 0) return true;
+                }
+            }
+            return false;
+        }
+
+        private static int[][] rotateClockwise(int[][] s) {
+            int[][] rotated = new int[s[0].length][s.length];
+            for (int i = 0; i < s.length; i++)
+                for (int j = 0; j < s[0].length; j++)
+                    rotated[j][s.length - 1 - i] = s[i][j];
+            return rotated;
+        }
+    }
+}
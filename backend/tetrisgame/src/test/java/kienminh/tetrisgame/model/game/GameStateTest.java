@@ -0,0 +1,70 @@
+package kienminh.tetrisgame.model.game;
+
+import kienminh.tetrisgame.dto.GameStateDTO;
+import kienminh.tetrisgame.util.GameMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStateTest {
+
+    @Test
+    void setGridPublishesSnapshot() {
+        GameState state = new GameState(42L);
+        int[][] grid = new int[state.getBoard().getHeight()][state.getBoard().getWidth()];
+        for (int y = 10; y < grid.length; y++) Arrays.fill(grid[y], 0, grid[y].length - 1, 2);
+        long version = state.getVersion();
+
+        state.setGrid(grid);
+
+        assertTrue(state.getVersion() > version);
+        assertEquals(filled(state.getBoard().getBoardSnapshot()), filled(state.snapshot().board()));
+        GameStateDTO dto = GameMapper.toDTO(state);
+        assertTrue(filled(dto.getBoard()) >= 10 * (grid[0].length - 1));
+    }
+
+    @Test
+    void scoreAndLevelSettersPublishSnapshot() {
+        GameState state = new GameState(42L);
+        state.setScore(1_234);
+        state.setLevel(3);
+
+        assertEquals(1_234, state.snapshot().score());
+        assertEquals(3, state.snapshot().level());
+    }
+
+    @Test
+    void newGameVersionIsAboveEveryVersionOfThePreviousGame() {
+        GameState previous = new GameState(1L);
+        for (int i = 0; i < 1_000; i++) previous.tick();
+        GameState next = new GameState(1L);
+
+        assertTrue(next.snapshot().version() > previous.snapshot().version());
+        // Số JSON phía JS vẫn chính xác
+        assertTrue(next.snapshot().version() < (1L << 53));
+    }
+
+    @Test
+    void sameSeedAndInputsGiveSameGame() {
+        GameState a = new GameState(7L);
+        GameState b = new GameState(7L);
+        for (int i = 0; i < 500 && a.isPlaying(); i++) {
+            if (i % 3 == 0) {
+                a.rotate();
+                b.rotate();
+            }
+            a.drop();
+            b.drop();
+        }
+        assertEquals(a.getScore(), b.getScore());
+        assertArrayEquals(a.snapshot().board(), b.snapshot().board());
+    }
+
+    private static int filled(int[][] board) {
+        int count = 0;
+        for (int[] row : board) for (int cell : row) if (cell != 0) count++;
+        return count;
+    }
+}
@@ -0,0 +1,119 @@
+package kienminh.tetrisgame.service.impl;
+
+import kienminh.tetrisgame.model.entity.Player;
+import kienminh.tetrisgame.model.entity.User;
+import kienminh.tetrisgame.repository.PlayerRepository;
+import kienminh.tetrisgame.repository.UserRepository;
+import kienminh.tetrisgame.util.JwtPrincipal;
+import kienminh.tetrisgame.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtSessionServiceTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil("test_secret_key_for_tetris_jwt_session_service_1234", 60_000);
+    private final UserRepository users = mock(UserRepository.class);
+    private final PlayerRepository players = mock(PlayerRepository.class);
+
+    @Test
+    void authenticatesFromClaimsWithOneUserCheckPerTtl() {
+        when(users.existsById(1L)).thenReturn(true);
+        JwtSessionService sessions = new JwtSessionService(jwtUtil, users, players, 60_000);
+        String token = jwtUtil.generateToken(1L, 10L, "alice");
+
+        for (int i = 0; i < 100; i++) {
+            JwtPrincipal principal = sessions.authenticate(token);
+            assertNotNull(principal);
+            assertEquals(1L, principal.userId());
+            assertEquals(10L, principal.playerId());
+            assertEquals("alice", principal.getName());
+        }
+        verify(users, times(1)).existsById(1L);
+        verifyNoInteractions(players);
+    }
+
+    @Test
+    void revokedTokenIsRejectedButOtherSessionsStay() {
+        when(users.existsById(1L)).thenReturn(true);
+        JwtSessionService sessions = new JwtSessionService(jwtUtil, users, players, 60_000);
+        String loggedOut = jwtUtil.generateToken(1L, 10L, "alice");
+        String otherDevice = jwtUtil.generateToken(1L, 10L, "alice");
+
+        sessions.revoke(loggedOut);
+        assertNull(sessions.authenticate(loggedOut));
+        assertNotNull(sessions.authenticate(otherDevice));
+    }
+
+    @Test
+    void deletedUserIsRejectedAfterTtl() throws InterruptedException {
+        when(users.existsById(1L)).thenReturn(true, false);
+        JwtSessionService sessions = new JwtSessionService(jwtUtil, users, players, 20);
+        String token = jwtUtil.generateToken(1L, 10L, "alice");
+
+        assertNotNull(sessions.authenticate(token));
+        Thread.sleep(40);
+        assertNull(sessions.authenticate(token));
+    }
+
+    @Test
+    void invalidTokensAreRejected() {
+        JwtSessionService sessions = new JwtSessionService(jwtUtil, users, players, 60_000);
+        JwtUtil otherKey = new JwtUtil("another_secret_key_for_tetris_jwt_session_service_99", 60_000);
+
+        assertNull(sessions.authenticate(null));
+        assertNull(sessions.authenticate(" "));
+        assertNull(sessions.authenticate("not.a.jwt"));
+        assertNull(sessions.authenticate(otherKey.generateToken(1L, 10L, "alice")));
+        assertNull(sessions.authenticate(new JwtUtil("test_secret_key_for_tetris_jwt_session_service_1234", -1000)
+                .generateToken(1L, 10L, "alice")));
+        verifyNoInteractions(users, players);
+    }
+
+    @Test
+    void legacyTokenIsResolvedOnceByUsername() {
+        when(players.findByUser_Username("bob")).thenReturn(Optional.of(player(2L, 20L, "bob")));
+        when(users.existsById(2L)).thenReturn(true);
+        JwtSessionService sessions = new JwtSessionService(jwtUtil, users, players, 60_000);
+        String legacy = jwtUtil.generateToken(null, null, "bob");
+
+        for (int i = 0; i < 10; i++) {
+            JwtPrincipal principal = sessions.authenticate(legacy);
+            assertNotNull(principal);
+            assertEquals(2L, principal.userId());
+            assertEquals(20L, principal.playerId());
+        }
+        verify(players, times(1)).findByUser_Username("bob");
+    }
+
+    @Test
+    void legacyPrincipalIsResolvedAgainAfterUserIsGone() throws InterruptedException {
+        Player old = player(2L, 20L, "bob");
+        Player recreated = player(3L, 30L, "bob");
+        when(players.findByUser_Username("bob")).thenReturn(Optional.of(old), Optional.of(recreated));
+        when(users.existsById(2L)).thenReturn(true, false);
+        when(users.existsById(3L)).thenReturn(true);
+        JwtSessionService sessions = new JwtSessionService(jwtUtil, users, players, 20);
+        String legacy = jwtUtil.generateToken(null, null, "bob");
+
+        assertEquals(2L, sessions.authenticate(legacy).userId());
+        Thread.sleep(40);
+        // User cũ đã bị xóa: lần này từ chối và bỏ mục cache, lần sau tra lại theo username
+        assertNull(sessions.authenticate(legacy));
+        assertEquals(3L, sessions.authenticate(legacy).userId());
+        verify(players, times(2)).findByUser_Username("bob");
+    }
+
+    private static Player player(Long userId, Long playerId, String username) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(username);
+        Player player = new Player();
+        player.setId(playerId);
+        player.setUser(user);
+        return player;
+    }
+}
@@ -0,0 +1,66 @@
+package kienminh.tetrisgame.service.impl;
+
+import kienminh.tetrisgame.dto.ScoreRankDTO;
+import kienminh.tetrisgame.model.game.FinishedGame;
+import kienminh.tetrisgame.model.game.enums.GameMode;
+import kienminh.tetrisgame.repository.GameResultRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LeaderboardServiceImplTest {
+
+    @Test
+    void rankAndPercentileMatchBestScoresOfOtherPlayers() {
+        LeaderboardServiceImpl leaderboard = new LeaderboardServiceImpl(mock(GameResultRepository.class), 10);
+        Map<Long, Integer> best = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            long playerId = random.nextInt(200);
+            int score = random.nextInt(1000) * 10;
+            leaderboard.record(new FinishedGame(playerId, score, 1, 0, 1000, GameMode.SOLO, Instant.now()), "u" + playerId);
+            best.merge(playerId, score, Math::max);
+
+            if (i % 20 == 0) {
+                long probePlayer = random.nextInt(250);   // có cả player chưa có điểm
+                int probeScore = random.nextInt(1000) * 10;
+                ScoreRankDTO rank = leaderboard.rankOf(probePlayer, probeScore);
+                long above = best.entrySet().stream()
+                        .filter(e -> e.getKey() != probePlayer && e.getValue() > probeScore)
+                        .count();
+                long players = best.size() + (best.containsKey(probePlayer) ? 0 : 1);
+                assertEquals(above + 1, rank.getRank());
+                assertEquals(players, rank.getPlayers());
+                assertEquals(Math.round((above + 1) * 1000.0 / players) / 10.0, rank.getTopPercent());
+            }
+        }
+
+        for (Map.Entry<Long, Integer> entry : best.entrySet()) {
+            ScoreRankDTO rank = leaderboard.rankOfPlayer(entry.getKey());
+            long above = best.values().stream().filter(s -> s > entry.getValue()).count();
+            assertEquals(entry.getValue(), rank.getScore());
+            assertEquals(above + 1, rank.getRank());
+            assertEquals(best.size(), rank.getPlayers());
+        }
+        assertNull(leaderboard.rankOfPlayer(999L));
+    }
+
+    @Test
+    void bestPlayerIsTopOnePercent() {
+        LeaderboardServiceImpl leaderboard = new LeaderboardServiceImpl(mock(GameResultRepository.class), 10);
+        for (long playerId = 1; playerId <= 100; playerId++) {
+            leaderboard.record(new FinishedGame(playerId, (int) playerId * 10, 1, 0, 1000, GameMode.SOLO,
+                    Instant.now()), "u" + playerId);
+        }
+        ScoreRankDTO rank = leaderboard.rankOfPlayer(100L);
+        assertEquals(1, rank.getRank());
+        assertEquals(1.0, rank.getTopPercent());
+        assertEquals(100, leaderboard.rankOfPlayer(1L).getRank());
+    }
+}
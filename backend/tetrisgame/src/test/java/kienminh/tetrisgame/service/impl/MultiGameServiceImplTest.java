@@ -0,0 +1,123 @@
+package kienminh.tetrisgame.service.impl;
+
+import kienminh.tetrisgame.dto.RankingDTO;
+import kienminh.tetrisgame.dto.ScoreRankDTO;
+import kienminh.tetrisgame.engine.GameLoop;
+import kienminh.tetrisgame.engine.TickWheel;
+import kienminh.tetrisgame.model.entity.Player;
+import kienminh.tetrisgame.model.entity.Room;
+import kienminh.tetrisgame.model.entity.User;
+import kienminh.tetrisgame.model.game.GameState;
+import kienminh.tetrisgame.repository.RoomRepository;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
+import kienminh.tetrisgame.websocket.GameStreamRegistry;
+import kienminh.tetrisgame.websocket.RoomFanout;
+import kienminh.tetrisgame.websocket.RoomFrameBroadcaster;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MultiGameServiceImplTest {
+
+    private static final long ROOM_ID = 1L;
+
+    private final GameLoop gameLoop = new GameLoop(1);
+
+    @AfterEach
+    void tearDown() {
+        gameLoop.shutdown();
+    }
+
+    @Test
+    void roomGameOverUsesRosterCapturedAtStart() {
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        when(roomRepository.findById(ROOM_ID)).thenReturn(Optional.of(room(10L, "alice", 11L, "bob")));
+        TickWheel tickWheel = mock(TickWheel.class);
+        Map<Long, TickWheel.Task> tasks = new HashMap<>();
+        when(tickWheel.schedule(eq(ROOM_ID), any(), anyLong())).thenAnswer(invocation -> {
+            tasks.put((long) tasks.size(), invocation.getArgument(1));
+            return mock(TickWheel.Handle.class);
+        });
+        RoomFanout fanout = mock(RoomFanout.class);
+        UserScoreService scores = mock(UserScoreService.class);
+        LeaderboardService leaderboard = mock(LeaderboardService.class);
+        when(leaderboard.rankOf(anyLong(), anyInt())).thenReturn(new ScoreRankDTO());
+
+        MultiGameServiceImpl service = new MultiGameServiceImpl(roomRepository, scores,
+                leaderboard, fanout, tickWheel, gameLoop,
+                mock(RoomFrameBroadcaster.class), mock(GameStreamRegistry.class));
+        service.startRoomGame(ROOM_ID);
+        assertEquals(2, tasks.size());
+
+        // Khóa bàn cờ để lần tick kế tiếp game over, rồi chạy task của wheel trên shard như thật
+        for (Long playerId : List.of(10L, 11L)) {
+            GameState state = service.getGameState(playerId);
+            gameLoop.call(ROOM_ID, () -> { state.setGrid(blockedGrid()); return null; });
+        }
+        for (TickWheel.Task task : tasks.values()) {
+            assertEquals(TickWheel.STOP, gameLoop.call(ROOM_ID, task::run));
+        }
+
+        // Game over trên shard không query DB nữa: chỉ lần findById lúc start
+        verify(roomRepository, times(1)).findById(ROOM_ID);
+        verify(scores, times(2)).saveScore(any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> payloads = ArgumentCaptor.forClass(Map.class);
+        verify(fanout, atLeastOnce()).broadcast(eq(ROOM_ID), payloads.capture());
+        Set<Object> names = new HashSet<>();
+        List<RankingDTO> rankings = null;
+        for (Map<String, Object> payload : payloads.getAllValues()) {
+            if ("PLAYER_GAME_OVER".equals(payload.get("type"))) names.add(payload.get("playerName"));
+            if ("ROOM_GAME_OVER".equals(payload.get("type"))) {
+                assertNull(rankings, "ROOM_GAME_OVER sent twice");
+                @SuppressWarnings("unchecked")
+                List<RankingDTO> sent = (List<RankingDTO>) payload.get("rankings");
+                rankings = sent;
+            }
+        }
+        assertEquals(Set.of("alice", "bob"), names);
+        assertNotNull(rankings);
+        assertEquals(Set.of("alice", "bob"),
+                new HashSet<>(rankings.stream().map(RankingDTO::getUsername).toList()));
+
+        // Room đã xong: player không còn thuộc room, trạng thái và encoder được giải phóng
+        for (Long playerId : List.of(10L, 11L)) {
+            assertFalse(service.isInRoom(playerId, ROOM_ID));
+            assertNull(service.getGameState(playerId));
+        }
+        assertEquals(rankings, service.getRoomRankings(ROOM_ID));
+    }
+
+    /** Mỗi hàng đều kín trừ cột cuối: không hàng nào bị xóa, khối mới không spawn được */
+    private static int[][] blockedGrid() {
+        int[][] grid = new int[20][10];
+        for (int[] row : grid) Arrays.fill(row, 0, 9, 1);
+        return grid;
+    }
+
+    private static Room room(long firstId, String firstName, long secondId, String secondName) {
+        Room room = new Room();
+        room.setId(ROOM_ID);
+        room.getPlayers().add(player(firstId, firstName, room));
+        room.getPlayers().add(player(secondId, secondName, room));
+        room.setHost(room.getPlayers().iterator().next().getUser());
+        return room;
+    }
+
+    private static Player player(long id, String username, Room room) {
+        User user = new User();
+        user.setUsername(username);
+        Player player = new Player();
+        player.setId(id);
+        player.setUser(user);
+        player.setRoom(room);
+        return player;
+    }
+}
@@ -0,0 +1,82 @@
+package kienminh.tetrisgame.service.impl;
+
+import kienminh.tetrisgame.engine.GameLoop;
+import kienminh.tetrisgame.engine.TickWheel;
+import kienminh.tetrisgame.model.entity.Player;
+import kienminh.tetrisgame.model.entity.User;
+import kienminh.tetrisgame.model.game.GameState;
+import kienminh.tetrisgame.repository.UserRepository;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
+import kienminh.tetrisgame.service.interfaces.PlayerService;
+import kienminh.tetrisgame.websocket.GameStreamRegistry;
+import kienminh.tetrisgame.websocket.SoloSubscriptionTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SoloGameServiceImplTest {
+
+    private static final long USER_ID = 3L;
+    private static final long PLAYER_ID = 30L;
+
+    private final GameLoop gameLoop = new GameLoop(1);
+
+    @AfterEach
+    void tearDown() {
+        gameLoop.shutdown();
+    }
+
+    @Test
+    void finishedGameScoresOnceWhileCached() {
+        UserScoreService scores = mock(UserScoreService.class);
+        SoloGameServiceImpl service = service(scores);
+
+        GameState state = service.startGame(USER_ID);
+        gameLoop.call(PLAYER_ID, () -> { state.setGrid(blockedGrid()); return null; });
+        service.drop(PLAYER_ID);
+        assertTrue(state.isGameOver());
+
+        // Trong 30 giây cache, getState trả về ván đã kết thúc: drop/tick lặp lại không được ghi điểm lần nữa
+        assertSame(state, service.drop(PLAYER_ID));
+        assertSame(state, service.tick(PLAYER_ID));
+        assertSame(state, service.getState(PLAYER_ID));
+
+        verify(scores, times(1)).saveScore(argThat(game -> game.playerId() == PLAYER_ID));
+    }
+
+    private SoloGameServiceImpl service(UserScoreService scores) {
+        User user = new User();
+        user.setId(USER_ID);
+        Player player = new Player();
+        player.setId(PLAYER_ID);
+        player.setUser(user);
+        PlayerService playerService = mock(PlayerService.class);
+        when(playerService.getCurrentPlayer(user)).thenReturn(player);
+        UserRepository users = mock(UserRepository.class);
+        when(users.findById(USER_ID)).thenReturn(Optional.of(user));
+
+        TickWheel tickWheel = mock(TickWheel.class);
+        when(tickWheel.schedule(anyLong(), any(), anyLong())).thenReturn(mock(TickWheel.Handle.class));
+
+        SoloGameServiceImpl service = new SoloGameServiceImpl(scores, playerService, mock(LeaderboardService.class),
+                tickWheel, gameLoop, mock(GameStreamRegistry.class), mock(SimpMessagingTemplate.class),
+                mock(SoloSubscriptionTracker.class));
+        ReflectionTestUtils.setField(service, "userRepository", users);
+        return service;
+    }
+
+    /** Mỗi hàng đều kín trừ cột cuối: không hàng nào bị xóa, khối mới không spawn được */
+    private static int[][] blockedGrid() {
+        int[][] grid = new int[20][10];
+        for (int[] row : grid) Arrays.fill(row, 0, 9, 1);
+        return grid;
+    }
+}
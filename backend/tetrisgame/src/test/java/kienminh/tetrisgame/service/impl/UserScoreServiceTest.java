@@ -0,0 +1,107 @@
+package kienminh.tetrisgame.service.impl;
+
+import kienminh.tetrisgame.model.game.FinishedGame;
+import kienminh.tetrisgame.model.game.enums.GameMode;
+import kienminh.tetrisgame.service.interfaces.LeaderboardService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserScoreServiceTest {
+
+    private static final String INSERT_PREFIX = "INSERT INTO game_results";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void leaderboardFailureAfterCommitIsNotSpilled() throws Exception {
+        JdbcTemplate jdbc = jdbcWithPlayer(7L);
+        LeaderboardService leaderboard = mock(LeaderboardService.class);
+        doThrow(new IllegalStateException("boom")).when(leaderboard).record(any(), any());
+        Path spill = dir.resolve("spill.log");
+
+        UserScoreService service = new UserScoreService(jdbc, transactions(), leaderboard, 16, spill.toString());
+        service.start();
+        service.saveScore(game(7L, 1200));
+        service.stop();
+
+        verify(jdbc, times(1)).batchUpdate(startsWith(INSERT_PREFIX), anyList());
+        assertFalse(Files.exists(spill));
+        assertFalse(Files.exists(Path.of(spill + ".replay")));
+    }
+
+    @Test
+    void failedBatchIsSpilledAndReplayedOnceAfterRestart() throws Exception {
+        Path spill = dir.resolve("spill.log");
+        Path replay = Path.of(spill + ".replay");
+
+        JdbcTemplate down = jdbcWithPlayer(7L);
+        when(down.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        UserScoreService first = new UserScoreService(down, transactions(), mock(LeaderboardService.class),
+                16, spill.toString());
+        first.start();
+        first.saveScore(game(7L, 500));
+        first.stop();
+
+        // Lần phát lại cuối khi dừng vẫn lỗi: kết quả còn nằm ở spill hoặc file replay dở
+        long pending = 0;
+        for (Path file : List.of(spill, replay)) {
+            if (Files.exists(file)) pending += Files.readAllLines(file).size();
+        }
+        assertEquals(1, pending);
+
+        JdbcTemplate up = jdbcWithPlayer(7L);
+        LeaderboardService leaderboard = mock(LeaderboardService.class);
+        UserScoreService second = new UserScoreService(up, transactions(), leaderboard, 16, spill.toString());
+        second.start();
+        second.stop();
+
+        verify(up, times(1)).batchUpdate(startsWith(INSERT_PREFIX), anyList());
+        verify(leaderboard, times(1)).record(argThat(g -> g.playerId() == 7L && g.score() == 500), eq("user7"));
+        assertFalse(Files.exists(spill));
+        assertFalse(Files.exists(replay));
+    }
+
+    private static FinishedGame game(long playerId, int score) {
+        return new FinishedGame(playerId, score, 2, 10, 60_000, GameMode.SOLO, Instant.now());
+    }
+
+    /** JdbcTemplate giả: query username trả về một player, batchUpdate không làm gì */
+    private static JdbcTemplate jdbcWithPlayer(long playerId) throws Exception {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(playerId);
+        when(rs.getString(2)).thenReturn("user" + playerId);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbc).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        return jdbc;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TransactionTemplate transactions() {
+        TransactionTemplate template = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(template).executeWithoutResult(any());
+        return template;
+    }
+}
@@ -0,0 +1,138 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.model.game.GameSnapshot;
+import kienminh.tetrisgame.model.game.GameState;
+import kienminh.tetrisgame.model.game.enums.BlockType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Giải mã lại luồng keyframe + delta như client và so với snapshot gốc sau mỗi bước */
+class BinaryFrameEncoderTest {
+
+    @Test
+    void keyframeAndDeltasRoundTrip() {
+        GameState state = new GameState(11L);
+        BinaryFrameEncoder encoder = new BinaryFrameEncoder(5L, true);
+        ClientView view = new ClientView();
+        Random random = new Random(3);
+        int deltas = 0;
+
+        for (int step = 0; step < 3_000; step++) {
+            if (!state.isPlaying()) state.start(step);
+            switch (random.nextInt(5)) {
+                case 0 -> state.moveLeft();
+                case 1 -> state.moveRight();
+                case 2 -> state.rotate();
+                case 3 -> state.tick();
+                default -> state.drop();
+            }
+            if (step % 500 == 250) encoder.requestKeyframe();
+
+            GameSnapshot snapshot = state.snapshot();
+            byte[] frame = encoder.encode(snapshot);
+            if (frame == null) continue;
+            if (frame[0] == BinaryFrameEncoder.OP_DELTA) deltas++;
+            view.apply(frame);
+
+            assertEquals(5L, view.playerId);
+            assertEquals(snapshot.score(), view.score);
+            assertEquals(snapshot.level(), view.level);
+            assertEquals(snapshot.status().ordinal(), view.status);
+            assertEquals(snapshot.pieces(), view.pieces);
+            assertEquals(snapshot.nextBlock() == null ? 0 : BlockType.valueOf(snapshot.nextBlock()).ordinal() + 1, view.next);
+            assertArrayEquals(snapshot.board(), view.cells(), "step " + step);
+        }
+        assertTrue(deltas > 1_000, "stream should be mostly deltas");
+    }
+
+    @Test
+    void unchangedSnapshotProducesNoFrame() {
+        GameState state = new GameState(1L);
+        BinaryFrameEncoder encoder = new BinaryFrameEncoder(1L, false);
+        assertNotNull(encoder.encode(state.snapshot()));
+        assertNull(encoder.encode(state.snapshot()));
+    }
+
+    @Test
+    void ackCarriesSeqAndTime() {
+        ByteBuffer ack = ByteBuffer.wrap(BinaryFrameEncoder.ack(0xFFFF_FFF0L, 1234));
+        assertEquals(BinaryFrameEncoder.OP_ACK, ack.get());
+        assertEquals(0xFFFF_FFF0L, Integer.toUnsignedLong(ack.getInt()));
+        assertEquals(1234, ack.getInt());
+        assertFalse(ack.hasRemaining());
+    }
+
+    /** Client tối thiểu theo đặc tả trong {@link BinaryFrameEncoder} */
+    private static final class ClientView {
+        int seq;
+        long playerId;
+        int score;
+        int level;
+        int status;
+        int next;
+        int pieces;
+        int[][] stack;
+        int pieceId;
+        int pieceY;
+        int[] pieceRows = new int[0];
+
+        void apply(byte[] bytes) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            byte op = buf.get();
+            int frameSeq = buf.getInt();
+            if (op == BinaryFrameEncoder.OP_DELTA) assertEquals(seq + 1, frameSeq, "delta must follow previous frame");
+            seq = frameSeq;
+            playerId = buf.getLong();
+            score = buf.getInt();
+            level = buf.get() & 0xFF;
+            status = buf.get() & 0xFF;
+            next = buf.get() & 0xFF;
+            pieces = buf.getInt();
+            buf.getInt();   // input seq
+
+            if (op == BinaryFrameEncoder.OP_KEYFRAME) {
+                int width = buf.get() & 0xFF;
+                int height = buf.get() & 0xFF;
+                buf.getLong();
+                stack = new int[height][width];
+                int packed = 0;
+                for (int i = 0; i < width * height; i++) {
+                    if ((i & 1) == 0) packed = buf.get() & 0xFF;
+                    stack[i / width][i % width] = (i & 1) == 0 ? packed >> 4 : packed & 0xF;
+                }
+            } else {
+                assertEquals(BinaryFrameEncoder.OP_DELTA, op);
+                int count = buf.getShort() & 0xFFFF;
+                int width = stack[0].length;
+                for (int i = 0; i < count; i++) {
+                    int cell = buf.getShort() & 0xFFFF;
+                    int index = cell >> 3;
+                    stack[index / width][index % width] = cell & 7;
+                }
+            }
+
+            pieceId = buf.get() & 0xFF;
+            pieceY = buf.get();
+            pieceRows = new int[buf.get() & 0xFF];
+            for (int i = 0; i < pieceRows.length; i++) pieceRows[i] = buf.getShort() & 0xFFFF;
+            assertFalse(buf.hasRemaining());
+        }
+
+        int[][] cells() {
+            int[][] cells = new int[stack.length][];
+            for (int y = 0; y < stack.length; y++) cells[y] = stack[y].clone();
+            for (int i = 0; i < pieceRows.length; i++) {
+                int y = pieceY + i;
+                if (y < 0 || y >= cells.length) continue;
+                for (int bits = pieceRows[i]; bits != 0; bits &= bits - 1) {
+                    cells[y][Integer.numberOfTrailingZeros(bits)] = pieceId;
+                }
+            }
+            return cells;
+        }
+    }
+}
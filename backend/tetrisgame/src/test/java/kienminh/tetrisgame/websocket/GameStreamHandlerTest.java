@@ -0,0 +1,87 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.model.game.enums.GameAction;
+import kienminh.tetrisgame.service.impl.MultiGameServiceImpl;
+import kienminh.tetrisgame.service.interfaces.GameService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GameStreamHandlerTest {
+
+    private GameStreamRegistry registry;
+    private GameService soloGameService;
+    private GameStreamHandler handler;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        registry = mock(GameStreamRegistry.class);
+        soloGameService = mock(GameService.class);
+        handler = new GameStreamHandler(registry, soloGameService, mock(MultiGameServiceImpl.class));
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(GameStreamHandshakeInterceptor.PLAYER_ID, 9L);
+        session = mock(WebSocketSession.class);
+        when(session.getAttributes()).thenReturn(attributes);
+    }
+
+    @Test
+    void batchIsAppliedAndAckedWithLastSeq() {
+        handler.handleBinaryMessage(session, batch(100, 7, BinaryFrameEncoder.IN_LEFT, BinaryFrameEncoder.IN_ROTATE));
+
+        verify(soloGameService).applyInputs(9L, List.of(GameAction.LEFT, GameAction.ROTATE), 101);
+        verify(registry).sendTo(same(session), argThat(ack -> ack[0] == BinaryFrameEncoder.OP_ACK
+                && ByteBuffer.wrap(ack).getInt(1) == 101 && ByteBuffer.wrap(ack).getInt(5) == 7));
+    }
+
+    @Test
+    void truncatedBatchIsDroppedWithoutApplyingOrAcking() {
+        byte[] full = batch(100, 7, BinaryFrameEncoder.IN_LEFT, BinaryFrameEncoder.IN_RIGHT).getPayload().array();
+        for (int length = 1; length < full.length; length++) {
+            byte[] cut = new byte[length];
+            System.arraycopy(full, 0, cut, 0, length);
+            handler.handleBinaryMessage(session, new BinaryMessage(cut));
+        }
+        verify(soloGameService, never()).applyInputs(anyLong(), anyList(), anyLong());
+        verify(registry, never()).sendTo(any(), any());
+    }
+
+    @Test
+    void emptyBatchIsNotAcked() {
+        ByteBuffer message = ByteBuffer.allocate(11)
+                .put(BinaryFrameEncoder.IN_BATCH).putInt(100).putInt(7).put((byte) 0)
+                .put(BinaryFrameEncoder.IN_LEFT);
+        handler.handleBinaryMessage(session, new BinaryMessage(message.array()));
+
+        verify(registry, never()).sendTo(any(), any());
+        // Input sau batch rỗng vẫn được đọc đúng vị trí
+        verify(soloGameService).applyInputs(9L, List.of(GameAction.LEFT), 0);
+    }
+
+    @Test
+    void singleByteInputsAreAppliedInOrder() {
+        handler.handleBinaryMessage(session, new BinaryMessage(new byte[]{
+                BinaryFrameEncoder.IN_HARD_DROP, BinaryFrameEncoder.IN_SOFT_DROP}));
+
+        var order = inOrder(soloGameService);
+        order.verify(soloGameService).applyInputs(9L, List.of(GameAction.DROP), 0);
+        order.verify(soloGameService).applyInputs(9L, List.of(GameAction.TICK), 0);
+        assertEquals(0, mockingDetails(registry).getInvocations().size());
+    }
+
+    private static BinaryMessage batch(int seq, int time, byte... inputs) {
+        ByteBuffer buf = ByteBuffer.allocate(10 + inputs.length)
+                .put(BinaryFrameEncoder.IN_BATCH).putInt(seq).putInt(time).put((byte) inputs.length).put(inputs);
+        return new BinaryMessage(buf.array());
+    }
+}
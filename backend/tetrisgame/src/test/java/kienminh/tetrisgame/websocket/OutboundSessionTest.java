@@ -0,0 +1,137 @@
+package kienminh.tetrisgame.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboundSessionTest {
+
+    @Test
+    void slowClientDropsOldestWithoutBlockingCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstSendStarted = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("s1");
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            firstSendStarted.countDown();
+            release.await();
+            received.add((int) ((BinaryMessage) message).getPayload().get(0));
+            return null;
+        }).when(session).sendMessage(any());
+
+        OutboundSession outbound = new OutboundSession(session, 60_000, 10 * 100);
+        assertTrue(outbound.sendFrame(message(0)));
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        for (int i = 1; i < 100; i++) assertTrue(outbound.sendFrame(message(i)));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "send() blocked on the socket");
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < 11 && System.nanoTime() < deadline) Thread.sleep(10);
+
+        // Frame đang gửi dở + 10 frame mới nhất vừa giới hạn buffer, theo đúng thứ tự
+        assertEquals(List.of(0, 90, 91, 92, 93, 94, 95, 96, 97, 98, 99), received);
+    }
+
+    @Test
+    void controlEventsAreNeverDroppedForFrames() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstSendStarted = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("s3");
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            firstSendStarted.countDown();
+            release.await();
+            received.add((int) ((BinaryMessage) message).getPayload().get(0));
+            return null;
+        }).when(session).sendMessage(any());
+
+        OutboundSession outbound = new OutboundSession(session, 60_000, 5 * 100);
+        assertTrue(outbound.sendFrame(message(0)));
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+
+        assertTrue(outbound.send(message(1)));            // vd PLAYER_GAME_OVER
+        for (int i = 2; i < 20; i++) assertTrue(outbound.sendFrame(message(i)));
+        assertTrue(outbound.send(message(20)));           // vd ROOM_GAME_OVER
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < 6 && System.nanoTime() < deadline) Thread.sleep(10);
+
+        // Hai event điều khiển còn nguyên, chỉ frame cũ bị bỏ
+        assertEquals(List.of(0, 1, 17, 18, 19, 20), received);
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void controlEventsOverLimitCloseSession() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstSendStarted = new CountDownLatch(1);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("s4");
+        doAnswer(invocation -> {
+            firstSendStarted.countDown();
+            release.await();
+            return null;
+        }).when(session).sendMessage(any());
+
+        OutboundSession outbound = new OutboundSession(session, 60_000, 3 * 100);
+        assertTrue(outbound.send(message(0)));
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 3; i++) assertTrue(outbound.send(message(i)));
+
+        // Không còn frame nào để bỏ: session bị đóng thay vì mất event
+        assertFalse(outbound.send(message(4)));
+        assertFalse(outbound.sendFrame(message(5)));
+        verify(session, timeout(5_000)).close(any());
+        release.countDown();
+    }
+
+    @Test
+    void sendBlockedPastTimeLimitClosesSession() throws Exception {
+        CountDownLatch sendStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("s2");
+        doAnswer(invocation -> {
+            sendStarted.countDown();
+            release.await();
+            return null;
+        }).when(session).sendMessage(any());
+
+        OutboundSession outbound = new OutboundSession(session, 50, 1_000);
+        assertTrue(outbound.send(message(1)));
+        assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        assertFalse(outbound.send(message(2)));
+        verify(session, timeout(5_000)).close(any());
+        release.countDown();
+    }
+
+    private static BinaryMessage message(int id) {
+        byte[] payload = new byte[100];
+        payload[0] = (byte) id;
+        return new BinaryMessage(payload);
+    }
+}
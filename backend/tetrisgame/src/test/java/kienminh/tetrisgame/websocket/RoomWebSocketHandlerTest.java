@@ -0,0 +1,66 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.dto.InputBatchDTO;
+import kienminh.tetrisgame.model.game.enums.GameAction;
+import kienminh.tetrisgame.repository.PlayerRepository;
+import kienminh.tetrisgame.repository.RoomRepository;
+import kienminh.tetrisgame.service.impl.MultiGameServiceImpl;
+import kienminh.tetrisgame.service.interfaces.RoomService;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+
+import static kienminh.tetrisgame.websocket.SoloWebSocketHandlerTest.principalOf;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RoomWebSocketHandlerTest {
+
+    private final MultiGameServiceImpl multiGameService = mock(MultiGameServiceImpl.class);
+    private final RoomWebSocketHandler handler = new RoomWebSocketHandler(mock(RoomService.class),
+            mock(PlayerRepository.class), mock(RoomRepository.class), mock(SimpMessagingTemplate.class), multiGameService);
+
+    @Test
+    void appliesInputOfOwnPlayer() {
+        when(multiGameService.isInRoom(7L, 1L)).thenReturn(true);
+        handler.input(1L, 7L, new InputBatchDTO(5, 42, List.of("ROTATE")), principalOf(7L));
+
+        verify(multiGameService).applyInputBatch(7L, List.of(GameAction.ROTATE), 5, 42);
+    }
+
+    @Test
+    void rejectsInputForAnotherPlayer() {
+        handler.input(1L, 8L, new InputBatchDTO(5, 42, List.of("ROTATE")), principalOf(7L));
+
+        verifyNoInteractions(multiGameService);
+    }
+
+    @Test
+    void rejectsInputForAnotherRoom() {
+        when(multiGameService.isInRoom(7L, 1L)).thenReturn(true);
+        handler.input(2L, 7L, new InputBatchDTO(5, 42, List.of("ROTATE")), principalOf(7L));
+
+        verify(multiGameService, never()).applyInputBatch(anyLong(), anyList(), anyLong(), anyLong());
+    }
+
+    @Test
+    void invalidActionNameIsIgnored() {
+        when(multiGameService.isInRoom(7L, 1L)).thenReturn(true);
+        handler.input(1L, 7L, new InputBatchDTO(5, 42, List.of("FLY")), principalOf(7L));
+
+        verify(multiGameService, never()).applyInputBatch(anyLong(), anyList(), anyLong(), anyLong());
+    }
+
+    @Test
+    void resyncOnlyFromPlayersOfTheRoom() {
+        when(multiGameService.isInRoom(7L, 1L)).thenReturn(true);
+
+        handler.resync(1L, 9L, principalOf(7L));
+        handler.resync(2L, 9L, principalOf(7L));
+        handler.resync(1L, 9L, null);
+
+        verify(multiGameService).requestKeyframe(1L, 9L);
+        verify(multiGameService, never()).requestKeyframe(2L, 9L);
+    }
+}
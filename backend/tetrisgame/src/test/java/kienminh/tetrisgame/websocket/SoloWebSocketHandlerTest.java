@@ -0,0 +1,51 @@
+package kienminh.tetrisgame.websocket;
+
+import kienminh.tetrisgame.dto.InputBatchDTO;
+import kienminh.tetrisgame.model.game.enums.GameAction;
+import kienminh.tetrisgame.service.impl.SoloGameServiceImpl;
+import kienminh.tetrisgame.util.JwtPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SoloWebSocketHandlerTest {
+
+    private final SoloGameServiceImpl soloGameService = mock(SoloGameServiceImpl.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final SoloWebSocketHandler handler = new SoloWebSocketHandler(soloGameService, messagingTemplate);
+
+    @Test
+    void appliesInputOfOwnPlayerAndAcks() {
+        handler.input(7L, new InputBatchDTO(10, 99, List.of("left", "DROP")), principalOf(7L));
+
+        verify(soloGameService).applyInputs(7L, List.of(GameAction.LEFT, GameAction.DROP), 11);
+        verify(messagingTemplate).convertAndSend(eq(SoloSubscriptionTracker.TOPIC_PREFIX + 7L), any(Object.class));
+    }
+
+    @Test
+    void rejectsInputForAnotherPlayer() {
+        handler.input(8L, new InputBatchDTO(10, 99, List.of("LEFT")), principalOf(7L));
+        handler.input(8L, new InputBatchDTO(10, 99, List.of("LEFT")), null);
+        handler.resync(8L, principalOf(7L));
+
+        verifyNoInteractions(soloGameService, messagingTemplate);
+    }
+
+    @Test
+    void ignoresInvalidActionAndEmptyBatch() {
+        handler.input(7L, new InputBatchDTO(10, 99, List.of("JUMP")), principalOf(7L));
+        handler.input(7L, new InputBatchDTO(10, 99, List.of()), principalOf(7L));
+
+        verifyNoInteractions(soloGameService, messagingTemplate);
+    }
+
+    static UsernamePasswordAuthenticationToken principalOf(Long playerId) {
+        JwtPrincipal principal = new JwtPrincipal(100 + playerId, playerId, "user" + playerId, "jti", null);
+        return new UsernamePasswordAuthenticationToken(principal, null, List.of());
+    }
+}
@@ -0,0 +1,80 @@
+package kienminh.tetrisgame.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kienminh.tetrisgame.model.game.GameSnapshot;
+import kienminh.tetrisgame.model.game.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Áp dụng lại luồng TICK_UPDATE (đã qua JSON) như client và so với snapshot gốc */
+class TickFrameEncoderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void keyframeAndDeltasRoundTripThroughJson() throws Exception {
+        GameState state = new GameState(21L);
+        TickFrameEncoder encoder = new TickFrameEncoder(3L);
+        Random random = new Random(5);
+
+        long seq = 0;
+        int[][] board = null;
+        int score = 0;
+        String status = null;
+        String nextBlock = null;
+
+        for (int step = 0; step < 3_000; step++) {
+            if (!state.isPlaying()) state.start(step);
+            switch (random.nextInt(5)) {
+                case 0 -> state.moveLeft();
+                case 1 -> state.moveRight();
+                case 2 -> state.rotate();
+                case 3 -> state.tick();
+                default -> state.drop();
+            }
+            GameSnapshot snapshot = state.snapshot();
+            Map<String, Object> payload = encoder.encode(snapshot);
+            if (payload == null) {
+                if (board != null) assertArrayEquals(snapshot.board(), board, "skipped frame must be unchanged");
+                continue;
+            }
+            JsonNode frame = mapper.readTree(mapper.writeValueAsBytes(payload));
+
+            assertEquals("TICK_UPDATE", frame.get("type").asText());
+            assertEquals(3L, frame.get("p").asLong());
+            long frameSeq = frame.get("s").asLong();
+            if (TickFrameEncoder.KEY.equals(frame.get("k").asText())) {
+                board = mapper.treeToValue(frame.get("board"), int[][].class);
+            } else {
+                assertEquals(seq + 1, frameSeq, "delta must follow previous frame");
+                int width = board[0].length;
+                for (JsonNode cell : frame.get("c")) {
+                    int value = cell.asInt();
+                    int index = value >> 3;
+                    board[index / width][index % width] = value & 7;
+                }
+            }
+            seq = frameSeq;
+            if (frame.has("score")) score = frame.get("score").asInt();
+            if (frame.has("status")) status = frame.get("status").asText();
+            if (frame.has("nextBlock")) nextBlock = frame.get("nextBlock").isNull() ? null : frame.get("nextBlock").asText();
+
+            assertArrayEquals(snapshot.board(), board, "step " + step);
+            assertEquals(snapshot.score(), score);
+            assertEquals(snapshot.status().name(), status);
+            assertEquals(snapshot.nextBlock(), nextBlock);
+        }
+    }
+
+    @Test
+    void diffListsOnlyChangedCells() {
+        int[][] before = {{0, 0, 0}, {1, 1, 0}};
+        int[][] after = {before[0], {1, 2, 3}};
+        assertArrayEquals(new int[]{((3 + 1) << 3) | 2, ((3 + 2) << 3) | 3}, TickFrameEncoder.diff(before, after));
+    }
+}
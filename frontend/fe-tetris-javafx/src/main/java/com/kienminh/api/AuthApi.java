@@ -1,18 +1,15 @@
 package com.kienminh.api;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kienminh.util.HttpClientUtil;
 import com.kienminh.util.SessionManager;
 
 public class AuthApi {
-    private static final ObjectMapper mapper = new ObjectMapper();
-
     public static boolean login(String username, String password) {
         try {
             String json = String.format("{\"username\":\"%s\",\"password\":\"%s\"}", username, password);
             String response = HttpClientUtil.post("/api/auth/login", json, null);
-            JsonNode node = mapper.readTree(response);
+            JsonNode node = HttpClientUtil.MAPPER.readTree(response);
             if (node.has("token")) {
                 SessionManager.setSession(node.get("token").asText(), username);
                 return true;
@@ -37,7 +34,7 @@ public class AuthApi {
     public static JsonNode me() {
         try {
             String response = HttpClientUtil.get("/api/auth/me", SessionManager.getToken());
-            return mapper.readTree(response);
+            return HttpClientUtil.MAPPER.readTree(response);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -0,0 +1,327 @@
+package com.kienminh.api;
+
+import com.kienminh.game.PredictedGame;
+import com.kienminh.model.GameStateDTO;
+import com.kienminh.util.HttpClientUtil;
+import com.kienminh.util.SessionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Client của endpoint nhị phân /stream/game (solo hoặc room).
+ * Frame: op u8 | seq i32 | playerId i64 | score i32 | level u8 | status u8 | next u8 | pieces i32 | input u32
+ * | body | piece (xem BinaryFrameEncoder phía backend).
+ * Input được đánh seq tăng liên tục và gửi theo batch: trong lúc một lần gửi chưa xong,
+ * các phím bấm tiếp theo dồn lại thành một BATCH (op u8 | seq u32 | time u32 | count u8 | inputs).
+ * Server áp dụng cả batch rồi trả ACK (op 3 | seq u32 | time u32) sau frame của batch.
+ * Ở chế độ solo, input được dự đoán ngay bằng luật chơi local (PredictedGame) và mỗi frame server
+ * được đối chiếu theo seq input; listener nhận trạng thái đã dự đoán.
+ * Listener được gọi trên thread của WebSocket (hoặc thread gọi send) – UI phải tự chuyển sang FX thread.
+ */
+public class GameStreamClient implements WebSocket.Listener {
+
+    /** Nhận state đã giải mã (board = stack + block đang rơi) của một player */
+    @FunctionalInterface
+    public interface FrameListener {
+        void onFrame(long playerId, GameStateDTO state);
+    }
+
+    private static final byte OP_KEYFRAME = 1;
+    private static final byte OP_DELTA = 2;
+    private static final byte OP_ACK = 3;
+
+    private static final byte IN_LEFT = 1;
+    private static final byte IN_RIGHT = 2;
+    private static final byte IN_ROTATE = 3;
+    private static final byte IN_SOFT_DROP = 4;
+    private static final byte IN_HARD_DROP = 5;
+    private static final byte IN_RESYNC = 0x10;
+    private static final byte IN_BATCH = 0x20;
+
+    /** count trong BATCH là u8 */
+    private static final int MAX_BATCH = 255;
+
+    private static final String[] STATUSES = {"READY", "PLAYING", "PAUSED", "GAME_OVER"};
+    private static final String[] BLOCKS = {null, "I", "O", "T", "S", "Z", "J", "L"};
+
+    /** Stack đã giải mã của một player; chỉ thread WebSocket đọc/ghi */
+    private static final class PlayerStack {
+        private int[][] cells;
+        private int seq;
+        private long seed;
+    }
+
+    private final FrameListener listener;
+    private final PredictedGame prediction;   // null ở chế độ room
+    private volatile long ownPlayerId;
+    private final Map<Long, PlayerStack> stacks = new HashMap<>();
+    private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+
+    private volatile WebSocket webSocket;
+    private CompletableFuture<WebSocket> lastSend;
+    private boolean resyncRequested;
+
+    // --- Input đang chờ gửi (guard bởi this) ---
+    private final ByteArrayOutputStream pendingInputs = new ByteArrayOutputStream();
+    private long nextSeq = 1;
+    private long pendingFirstSeq = 1;
+    private boolean batchInFlight;
+
+    private volatile long lastAckedSeq;
+    private volatile long rttMs;
+
+    private GameStreamClient(FrameListener listener, PredictedGame prediction) {
+        this.listener = listener;
+        this.prediction = prediction;
+    }
+
+    /** Nhận frame của ván solo hiện tại, input được dự đoán ngay */
+    public static GameStreamClient connectSolo(FrameListener listener) {
+        return connect("solo", new GameStreamClient(listener, new PredictedGame()));
+    }
+
+    /** Nhận frame của mọi player trong room hiện tại */
+    public static GameStreamClient connectRoom(FrameListener listener) {
+        return connect("room", new GameStreamClient(listener, null));
+    }
+
+    private static GameStreamClient connect(String mode, GameStreamClient client) {
+        URI uri = URI.create(HttpClientUtil.BASE_URL.replaceFirst("^http", "ws")
+                + "/stream/game?mode=" + mode
+                + "&token=" + URLEncoder.encode(SessionManager.getToken(), StandardCharsets.UTF_8));
+
+        HttpClientUtil.client().newWebSocketBuilder()
+                .buildAsync(uri, client)
+                .whenComplete((ws, error) -> {
+                    if (error != null) {
+                        System.err.println("[GameStreamClient] Cannot connect: " + error.getMessage());
+                    }
+                });
+        return client;
+    }
+
+    public boolean isOpen() {
+        WebSocket ws = webSocket;
+        return ws != null && !ws.isOutputClosed() && !ws.isInputClosed();
+    }
+
+    /**
+     * Đánh seq cho action (LEFT, RIGHT, ROTATE, TICK, DROP) và gửi đi; nếu batch trước chưa gửi xong
+     * thì action nằm chờ trong batch kế tiếp. Ở chế độ solo, listener nhận ngay trạng thái dự đoán.
+     * @return seq của action
+     */
+    public synchronized long send(String action) {
+        byte input = switch (action) {
+            case "LEFT" -> IN_LEFT;
+            case "RIGHT" -> IN_RIGHT;
+            case "ROTATE" -> IN_ROTATE;
+            case "TICK" -> IN_SOFT_DROP;
+            case "DROP" -> IN_HARD_DROP;
+            default -> throw new IllegalArgumentException("Invalid action: " + action);
+        };
+        if (pendingInputs.size() == 0) pendingFirstSeq = nextSeq;
+        pendingInputs.write(input);
+        long seq = nextSeq++;
+        // Ghi nhận dự đoán trước khi gửi: frame server tới ngay sau khi gửi vẫn tìm thấy seq để bỏ khỏi pending
+        if (prediction != null) {
+            synchronized (prediction) {
+                GameStateDTO predicted = prediction.input(seq, action);
+                if (predicted != null) listener.onFrame(ownPlayerId, predicted);
+            }
+        }
+        if (!batchInFlight || pendingInputs.size() >= MAX_BATCH) flushBatch();
+        return seq;
+    }
+
+    /** Seq của input cuối cùng server đã áp dụng */
+    public long getLastAckedSeq() {
+        return lastAckedSeq;
+    }
+
+    /** RTT đo từ ACK gần nhất (ms) */
+    public long getRttMs() {
+        return rttMs;
+    }
+
+    private synchronized void flushBatch() {
+        if (pendingInputs.size() == 0) {
+            batchInFlight = false;
+            return;
+        }
+        byte[] inputs = pendingInputs.toByteArray();
+        pendingInputs.reset();
+
+        ByteBuffer batch = ByteBuffer.allocate(10 + inputs.length)
+                .put(IN_BATCH)
+                .putInt((int) pendingFirstSeq)
+                .putInt((int) System.currentTimeMillis())
+                .put((byte) inputs.length)
+                .put(inputs)
+                .flip();
+        batchInFlight = true;
+        enqueueSend(batch).thenRun(this::flushBatch);
+    }
+
+    private void sendInput(byte input) {
+        enqueueSend(ByteBuffer.wrap(new byte[]{input}));
+    }
+
+    /** WebSocket chỉ cho một lần gửi dang dở, nên các lần gửi được xếp nối tiếp */
+    private synchronized CompletableFuture<WebSocket> enqueueSend(ByteBuffer data) {
+        WebSocket ws = webSocket;
+        if (ws == null) return CompletableFuture.completedFuture(null);
+        lastSend = (lastSend == null ? CompletableFuture.completedFuture(ws) : lastSend)
+                .thenCompose(w -> w.sendBinary(data, true))
+                .exceptionally(e -> {
+                    System.err.println("[GameStreamClient] Send failed: " + e.getMessage());
+                    return ws;
+                });
+        return lastSend;
+    }
+
+    public void close() {
+        WebSocket ws = webSocket;
+        if (ws != null) ws.sendClose(WebSocket.NORMAL_CLOSURE, "bye");
+    }
+
+    // --- WebSocket.Listener ---
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        this.webSocket = webSocket;
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        byte[] chunk = new byte[data.remaining()];
+        data.get(chunk);
+        partial.write(chunk, 0, chunk.length);
+        if (last) {
+            byte[] frame = partial.toByteArray();
+            partial.reset();
+            try {
+                decode(ByteBuffer.wrap(frame));
+            } catch (RuntimeException e) {
+                System.err.println("[GameStreamClient] Bad frame: " + e.getMessage());
+                requestResync();
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        System.err.println("[GameStreamClient] Stream error: " + error.getMessage());
+    }
+
+    private void decode(ByteBuffer buf) {
+        byte op = buf.get();
+        if (op == OP_ACK) {
+            lastAckedSeq = Integer.toUnsignedLong(buf.getInt());
+            rttMs = (int) System.currentTimeMillis() - buf.getInt();
+            return;
+        }
+        int seq = buf.getInt();
+        long playerId = buf.getLong();
+        int score = buf.getInt();
+        int level = buf.get() & 0xFF;
+        int status = buf.get() & 0xFF;
+        int next = buf.get() & 0xFF;
+        int pieces = buf.getInt();
+        long inputSeq = Integer.toUnsignedLong(buf.getInt());
+
+        PlayerStack stack = stacks.get(playerId);
+        if (op == OP_KEYFRAME) {
+            int width = buf.get() & 0xFF;
+            int height = buf.get() & 0xFF;
+            long seed = buf.getLong();
+            int[][] cells = new int[height][width];
+            for (int i = 0; i < width * height; i += 2) {
+                int packed = buf.get() & 0xFF;
+                cells[i / width][i % width] = packed >>> 4;
+                if (i + 1 < width * height) cells[(i + 1) / width][(i + 1) % width] = packed & 0xF;
+            }
+            if (stack == null) {
+                stack = new PlayerStack();
+                stacks.put(playerId, stack);
+            }
+            stack.cells = cells;
+            stack.seed = seed;
+            resyncRequested = false;
+        } else if (op == OP_DELTA) {
+            // Delta chỉ áp dụng lên đúng frame trước đó
+            if (stack == null || seq != stack.seq + 1) {
+                requestResync();
+                return;
+            }
+            int width = stack.cells[0].length;
+            int count = buf.getShort() & 0xFFFF;
+            for (int i = 0; i < count; i++) {
+                int cell = buf.getShort() & 0xFFFF;
+                int index = cell >>> 3;
+                stack.cells[index / width][index % width] = cell & 7;
+            }
+        } else {
+            return;
+        }
+        stack.seq = seq;
+
+        int pieceId = buf.get() & 0xFF;
+        int pieceY = buf.get();
+        int[] pieceRows = new int[buf.get() & 0xFF];
+        for (int i = 0; i < pieceRows.length; i++) pieceRows[i] = buf.getShort() & 0xFFFF;
+
+        String statusName = status < STATUSES.length ? STATUSES[status] : "PLAYING";
+        if (prediction != null) {
+            // Trạng thái server + các input server chưa áp dụng
+            ownPlayerId = playerId;
+            synchronized (prediction) {
+                GameStateDTO predicted = prediction.reconcile(stack.seed, stack.cells, pieceId, pieceY, pieceRows,
+                        score, level, statusName, next, pieces, inputSeq);
+                if (predicted != null) {
+                    listener.onFrame(playerId, predicted);
+                    return;
+                }
+            }
+        }
+
+        GameStateDTO state = new GameStateDTO(
+                render(stack.cells, pieceId, pieceY, pieceRows),
+                score, level, statusName,
+                pieceId < BLOCKS.length ? BLOCKS[pieceId] : null,
+                next < BLOCKS.length ? BLOCKS[next] : null);
+        listener.onFrame(playerId, state);
+    }
+
+    /** Một lần resync cho tới keyframe kế tiếp */
+    private void requestResync() {
+        if (resyncRequested) return;
+        resyncRequested = true;
+        sendInput(IN_RESYNC);
+    }
+
+    /** Board để vẽ: copy stack rồi tô block đang rơi lên */
+    private static int[][] render(int[][] stack, int pieceId, int pieceY, int[] pieceRows) {
+        int[][] board = new int[stack.length][];
+        for (int y = 0; y < stack.length; y++) board[y] = stack[y].clone();
+        for (int i = 0; i < pieceRows.length; i++) {
+            int y = pieceY + i;
+            if (y < 0 || y >= board.length) continue;
+            for (int bits = pieceRows[i]; bits != 0; bits &= bits - 1) {
+                board[y][Integer.numberOfTrailingZeros(bits)] = pieceId;
+            }
+        }
+        return board;
+    }
+}
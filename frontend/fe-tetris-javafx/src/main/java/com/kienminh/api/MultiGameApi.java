@@ -1,25 +1,25 @@
 package com.kienminh.api;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.kienminh.model.GameStateDTO;
 import com.kienminh.util.HttpClientUtil;
 import com.kienminh.util.SessionManager;
 
 public class MultiGameApi {
 
-    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectReader STATE_READER = HttpClientUtil.readerFor(GameStateDTO.class);
 
     /**
      * Bắt đầu game multiplayer cho roomId
      */
     public static GameStateDTO start(Long roomId) {
         try {
-            String response = HttpClientUtil.post(
+            return HttpClientUtil.post(
                     "/api/multigame/start/" + roomId,
                     "{}", // backend không nhận null
-                    SessionManager.getToken()
+                    SessionManager.getToken(),
+                    STATE_READER
             );
-            return mapper.readValue(response, GameStateDTO.class);
         } catch (Exception e) {
             System.err.println("[MultiGameApi] Error starting game: " + e.getMessage());
             return null;
@@ -38,12 +38,12 @@ public class MultiGameApi {
             default -> throw new IllegalArgumentException("Invalid move: " + action);
         };
         try {
-            String response = HttpClientUtil.post(
+            return HttpClientUtil.post(
                     "/api/multigame/player/" + playerId + endpoint,
                     "{}", // backend không nhận null
-                    SessionManager.getToken()
+                    SessionManager.getToken(),
+                    STATE_READER
             );
-            return mapper.readValue(response, GameStateDTO.class);
         } catch (Exception e) {
             System.err.println("[MultiGameApi] Error moving player: " + e.getMessage());
             return null;
@@ -55,11 +55,11 @@ public class MultiGameApi {
      */
     public static GameStateDTO getPlayerState(Long playerId) {
         try {
-            String response = HttpClientUtil.get(
+            return HttpClientUtil.get(
                     "/api/multigame/player/" + playerId + "/state",
-                    SessionManager.getToken()
+                    SessionManager.getToken(),
+                    STATE_READER
             );
-            return mapper.readValue(response, GameStateDTO.class);
         } catch (Exception e) {
             System.err.println("[MultiGameApi] Error getting player state: " + e.getMessage());
             return null;
@@ -1,60 +1,35 @@
 package com.kienminh.api;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.kienminh.model.PlayerDTO;
 import com.kienminh.model.RoomDTO;
 import com.kienminh.util.HttpClientUtil;
 import com.kienminh.util.SessionManager;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.HttpEntity;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 public class RoomApi {
-    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectReader ROOM_READER = HttpClientUtil.readerFor(RoomDTO.class);
 
     /** ✅ Tạo phòng mới */
     public static RoomDTO createRoom(String name) {
         try {
             String encodedName = URLEncoder.encode(name, StandardCharsets.UTF_8);
-            String url = HttpClientUtil.BASE_URL + "/api/rooms/create?roomName=" + encodedName;
-
-            try (CloseableHttpClient client = HttpClients.createDefault()) {
-                HttpPost request = new HttpPost(url);
-                String token = SessionManager.getToken();
-                if (token != null && !token.isEmpty()) {
-                    request.addHeader("Authorization", "Bearer " + token);
-                }
-
-                return client.execute(request, response -> {
-                    int status = response.getCode();
-                    HttpEntity entity = response.getEntity();
-                    String body = entity != null
-                            ? new String(entity.getContent().readAllBytes(), StandardCharsets.UTF_8)
-                            : "";
-
-                    if (status >= 200 && status < 300) {
-                        RoomDTO room = mapper.readValue(body, RoomDTO.class);
-                        SessionManager.setRoom(room.getId(), room.getName(), true);
-
-                        // 🧩 Lấy player hiện tại và lưu vào session
-                        PlayerDTO player = PlayerApi.getCurrentPlayer();
-                        if (player != null) {
-                            SessionManager.setPlayer(player);
-                            System.out.println("[RoomApi] ✅ Host PlayerID = " + player.getId());
-                        }
-
-                        return room;
-                    } else {
-                        System.err.println("❌ POST /api/rooms/create failed: " + status + " - " + body);
-                        return null;
-                    }
-                });
+            RoomDTO room = HttpClientUtil.post("/api/rooms/create?roomName=" + encodedName, null,
+                    SessionManager.getToken(), ROOM_READER);
+            if (room == null) return null;
+            SessionManager.setRoom(room.getId(), room.getName(), true);
+
+            // 🧩 Lấy player hiện tại và lưu vào session
+            PlayerDTO player = PlayerApi.getCurrentPlayer();
+            if (player != null) {
+                SessionManager.setPlayer(player);
+                System.out.println("[RoomApi] ✅ Host PlayerID = " + player.getId());
             }
+
+            return room;
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -64,8 +39,7 @@ public class RoomApi {
     /** ✅ Tham gia phòng */
     public static boolean joinRoom(Long roomId) {
         try {
-            String response = HttpClientUtil.post("/api/rooms/" + roomId + "/join", "{}", SessionManager.getToken());
-            RoomDTO room = mapper.readValue(response, RoomDTO.class);
+            RoomDTO room = HttpClientUtil.post("/api/rooms/" + roomId + "/join", "{}", SessionManager.getToken(), ROOM_READER);
             if (room != null && room.getId() != null) {
                 SessionManager.setRoom(room.getId(), room.getName(), false);
 
@@ -104,8 +78,7 @@ public class RoomApi {
     /** ✅ Lấy thông tin phòng */
     public static RoomDTO getRoom(Long roomId) {
         try {
-            String response = HttpClientUtil.get("/api/rooms/" + roomId, SessionManager.getToken());
-            return mapper.readValue(response, RoomDTO.class);
+            return HttpClientUtil.get("/api/rooms/" + roomId, SessionManager.getToken(), ROOM_READER);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -115,10 +88,9 @@ public class RoomApi {
     /** ✅ Lấy danh sách người chơi trong phòng */
     public static List<String> getRoomPlayers(Long roomId) {
         try {
-            String response = HttpClientUtil.get("/api/rooms/" + roomId, SessionManager.getToken());
-            RoomDTO room = mapper.readValue(response, RoomDTO.class);
+            RoomDTO room = HttpClientUtil.get("/api/rooms/" + roomId, SessionManager.getToken(), ROOM_READER);
 
-            if (room.getPlayers() != null) {
+            if (room != null && room.getPlayers() != null) {
                 return room.getPlayers().stream()
                         .map(PlayerDTO::getUsername)
                         .toList();
@@ -1,14 +1,13 @@
 package com.kienminh.api;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.kienminh.model.ActionDTO;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.kienminh.model.GameStateDTO;
 import com.kienminh.util.HttpClientUtil;
 import com.kienminh.util.SessionManager;
 
 public class SoloGameApi {
 
-    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectReader STATE_READER = HttpClientUtil.readerFor(GameStateDTO.class);
 
     /**
      * Bắt đầu một ván solo game cho playerId
@@ -16,13 +15,12 @@ public class SoloGameApi {
     public static GameStateDTO start(Long playerId) {
         try {
             // Gửi body mặc định "{}" để backend không nhận null
-            String response = HttpClientUtil.post(
+            return HttpClientUtil.post(
                     "/api/solo/" + playerId + "/start",
                     "{}", // backend không nhận null
-                    SessionManager.getToken()
+                    SessionManager.getToken(),
+                    STATE_READER
             );
-
-            return mapper.readValue(response, GameStateDTO.class);
         } catch (Exception e) {
             System.err.println("[SoloGameApi] Error starting solo game: " + e.getMessage());
             return null;
@@ -37,14 +35,13 @@ public class SoloGameApi {
             if (action == null || action.isBlank()) return null;
 
             // Gửi action qua query param, body null
-            String response = HttpClientUtil.post(
+            return HttpClientUtil.post(
                     "/api/solo/" + playerId + "/action?action=" + action,
                     "",  // body rỗng
-                    SessionManager.getToken()
+                    SessionManager.getToken(),
+                    STATE_READER
             );
 
-            return mapper.readValue(response, GameStateDTO.class);
-
         } catch (Exception e) {
             System.err.println("[SoloGameApi] Error sending action: " + e.getMessage());
             return null;
@@ -57,11 +54,11 @@ public class SoloGameApi {
      */
     public static GameStateDTO getState(Long playerId) {
         try {
-            String response = HttpClientUtil.get(
+            return HttpClientUtil.get(
                     "/api/solo/" + playerId + "/state",
-                    SessionManager.getToken()
+                    SessionManager.getToken(),
+                    STATE_READER
             );
-            return mapper.readValue(response, GameStateDTO.class);
         } catch (Exception e) {
             System.err.println("[SoloGameApi] Error getting state: " + e.getMessage());
             return null;
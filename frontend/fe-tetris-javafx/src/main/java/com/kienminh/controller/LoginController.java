@@ -1,6 +1,7 @@
 package com.kienminh.controller;
 
 import com.kienminh.api.AuthApi;
+import com.kienminh.util.NetworkExecutor;
 import com.kienminh.util.SceneUtil;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -25,13 +26,13 @@ public class LoginController {
             return;
         }
 
-        boolean success = AuthApi.login(username, password);
-
-        if (success) {
-            SceneUtil.switchScene("main_menu.fxml");
-        } else {
-            new Alert(Alert.AlertType.ERROR, "Sai tài khoản hoặc mật khẩu!").showAndWait();
-        }
+        NetworkExecutor.submit(() -> AuthApi.login(username, password), success -> {
+            if (success) {
+                SceneUtil.switchScene("main_menu.fxml");
+            } else {
+                new Alert(Alert.AlertType.ERROR, "Sai tài khoản hoặc mật khẩu!").showAndWait();
+            }
+        });
     }
 
     @FXML
@@ -1,18 +1,19 @@
 package com.kienminh.controller;
 
+import com.kienminh.api.GameStreamClient;
 import com.kienminh.api.MultiGameApi;
 import com.kienminh.model.GameStateDTO;
+import com.kienminh.util.BoardRenderer;
+import com.kienminh.util.NetworkExecutor;
 import com.kienminh.util.SceneUtil;
 import com.kienminh.util.SessionManager;
 import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.input.KeyEvent;
-import javafx.scene.paint.Color;
 
 public class MultiGameController {
 
@@ -21,10 +22,15 @@ public class MultiGameController {
     @FXML private Label levelLabel;
     @FXML private Label statusLabel;
 
-    private GraphicsContext gc;
+    private BoardRenderer boardRenderer;   // chỉ vẽ lại các ô đổi so với frame trước
     private Long playerId;
     private GameStateDTO gameState;
     private AnimationTimer gameLoop;
+    private GameStreamClient stream;   // /stream/game: frame nhị phân + input 1 byte
+
+    // HTTP chạy ngoài FX thread: poll trạng thái chỉ giữ request mới nhất, input gửi đúng thứ tự
+    private final NetworkExecutor.Latest<GameStateDTO> stateRequests = new NetworkExecutor.Latest<>();
+    private final NetworkExecutor.Sequence actionRequests = new NetworkExecutor.Sequence();
     private final int blockSize = 25;
 
     // --- Nhận state khởi tạo từ backend ---
@@ -36,22 +42,16 @@ public class MultiGameController {
 
     @FXML
     public void initialize() {
-        gc = gameCanvas.getGraphicsContext2D();
+        boardRenderer = new BoardRenderer(gameCanvas, blockSize);
         playerId = SessionManager.getPlayerId();
 
         // Lấy state ban đầu từ host hoặc backend
-        gameState = initialState != null ? initialState : MultiGameApi.getPlayerState(playerId);
-        if (gameState == null) {
-            statusLabel.setText("Không thể tải trạng thái trò chơi!");
-            return;
+        if (initialState != null) {
+            begin(initialState);
+        } else {
+            NetworkExecutor.submit(() -> MultiGameApi.getPlayerState(playerId), this::begin);
         }
 
-        drawBoard();
-        updateLabels();
-
-        // Bắt đầu vòng lặp game
-        startGameLoop();
-
         // Gắn KeyEvent
         Platform.runLater(() -> {
             gameCanvas.setFocusTraversable(true);
@@ -62,6 +62,23 @@ public class MultiGameController {
         });
     }
 
+    private void begin(GameStateDTO state) {
+        gameState = state;
+        if (gameState == null) {
+            statusLabel.setText("Không thể tải trạng thái trò chơi!");
+            return;
+        }
+
+        drawBoard();
+        updateLabels();
+
+        // Nhận frame do server đẩy; polling chỉ còn là dự phòng khi stream chưa mở
+        stream = GameStreamClient.connectRoom(this::onStreamFrame);
+
+        // Bắt đầu vòng lặp game
+        startGameLoop();
+    }
+
     private void startGameLoop() {
         if (gameLoop != null) gameLoop.stop();
 
@@ -70,7 +87,7 @@ public class MultiGameController {
             @Override
             public void handle(long now) {
                 if (now - lastUpdate >= 500_000_000) { // 0.5s
-                    refreshState();
+                    if ((stream == null || !stream.isOpen()) && !stateRequests.isInFlight()) refreshState();
                     lastUpdate = now;
                 }
             }
@@ -78,14 +95,30 @@ public class MultiGameController {
         gameLoop.start();
     }
 
-    private void refreshState() {
-        GameStateDTO updated = MultiGameApi.getPlayerState(playerId);
-        if (updated != null) {
-            gameState = updated;
+    /** Frame từ stream (thread WebSocket): chỉ lấy board của mình, vẽ trên FX thread */
+    private void onStreamFrame(long framePlayerId, GameStateDTO state) {
+        if (playerId == null || framePlayerId != playerId) return;
+        Platform.runLater(() -> {
+            if (gameState != null && "GAME_OVER".equalsIgnoreCase(gameState.getStatus())) return;
+            gameState = state;
             drawBoard();
             updateLabels();
             checkGameOver();
-        }
+        });
+    }
+
+    private void refreshState() {
+        stateRequests.submit(() -> MultiGameApi.getPlayerState(playerId), this::showState);
+    }
+
+    /** Kết quả HTTP (trên FX thread) */
+    private void showState(GameStateDTO updated) {
+        if (updated == null) return;
+        if (gameState != null && "GAME_OVER".equalsIgnoreCase(gameState.getStatus())) return;
+        gameState = updated;
+        drawBoard();
+        updateLabels();
+        checkGameOver();
     }
 
     private void handleKey(KeyEvent event) {
@@ -100,14 +133,14 @@ public class MultiGameController {
             default -> null;
         };
 
-        if (action != null) {
-            GameStateDTO updated = MultiGameApi.move(playerId, action);
-            if (updated != null) {
-                gameState = updated;
-                drawBoard();
-                updateLabels();
-                checkGameOver();
-            }
+        if (action != null && stream != null && stream.isOpen()) {
+            // Kết quả về qua frame kế tiếp của stream
+            stream.send(action);
+            event.consume();
+        } else if (action != null) {
+            // Poll đang chạy có thể trả về trạng thái trước input này → bỏ
+            stateRequests.cancel();
+            actionRequests.submit(() -> MultiGameApi.move(playerId, action), this::showState);
             event.consume();
         }
     }
@@ -115,31 +148,7 @@ public class MultiGameController {
     private void drawBoard() {
         if (gameState == null || gameState.getBoard() == null) return;
 
-        int[][] grid = gameState.getBoard();
-        gc.clearRect(0, 0, gameCanvas.getWidth(), gameCanvas.getHeight());
-
-        for (int y = 0; y < grid.length; y++) {
-            for (int x = 0; x < grid[y].length; x++) {
-                int val = grid[y][x];
-                gc.setFill(getColorForBlock(val));
-                gc.fillRect(x * blockSize, y * blockSize, blockSize, blockSize);
-                gc.setStroke(Color.DARKGRAY);
-                gc.strokeRect(x * blockSize, y * blockSize, blockSize, blockSize);
-            }
-        }
-    }
-
-    private Color getColorForBlock(int val) {
-        return switch (val) {
-            case 1 -> Color.CYAN;
-            case 2 -> Color.YELLOW;
-            case 3 -> Color.PURPLE;
-            case 4 -> Color.LIMEGREEN;
-            case 5 -> Color.RED;
-            case 6 -> Color.BLUE;
-            case 7 -> Color.ORANGE;
-            default -> Color.BLACK;
-        };
+        boardRenderer.draw(gameState.getBoard());
     }
 
     private void updateLabels() {
@@ -165,11 +174,13 @@ public class MultiGameController {
 
     @FXML
     private void onBack() {
-        if (gameLoop != null) gameLoop.stop();
+        stop();
         SceneUtil.switchScene("main_menu.fxml");
     }
 
     public void stop() {
         if (gameLoop != null) gameLoop.stop();
+        stateRequests.cancel();
+        if (stream != null) stream.close();
     }
 }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.kienminh.api.AuthApi;
 import com.kienminh.model.UserDTO;
 import com.kienminh.util.AuthGuard;
+import com.kienminh.util.NetworkExecutor;
 import com.kienminh.util.SceneUtil;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -18,7 +19,10 @@ public class ProfileController {
     public void initialize() {
         AuthGuard.requireLogin();
 
-        JsonNode me = AuthApi.me();
+        NetworkExecutor.submit(AuthApi::me, this::showProfile);
+    }
+
+    private void showProfile(JsonNode me) {
         if (me != null) {
             // Map JsonNode sang UserDTO
             UserDTO user = new UserDTO();
@@ -1,6 +1,7 @@
 package com.kienminh.controller;
 
 import com.kienminh.api.AuthApi;
+import com.kienminh.util.NetworkExecutor;
 import com.kienminh.util.SceneUtil;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -25,14 +26,14 @@ public class RegisterController {
             return;
         }
 
-        boolean success = AuthApi.register(username, password);
-
-        if (success) {
-            new Alert(Alert.AlertType.INFORMATION, "Đăng ký thành công!").showAndWait();
-            SceneUtil.switchScene("login.fxml");
-        } else {
-            new Alert(Alert.AlertType.ERROR, "Đăng ký thất bại! Vui lòng thử lại.").showAndWait();
-        }
+        NetworkExecutor.submit(() -> AuthApi.register(username, password), success -> {
+            if (success) {
+                new Alert(Alert.AlertType.INFORMATION, "Đăng ký thành công!").showAndWait();
+                SceneUtil.switchScene("login.fxml");
+            } else {
+                new Alert(Alert.AlertType.ERROR, "Đăng ký thất bại! Vui lòng thử lại.").showAndWait();
+            }
+        });
     }
     @FXML
     private void onLoginRedirect() {
@@ -3,6 +3,7 @@ package com.kienminh.controller;
 import com.kienminh.api.RoomApi;
 import com.kienminh.model.RoomDTO;
 import com.kienminh.util.AuthGuard;
+import com.kienminh.util.NetworkExecutor;
 import com.kienminh.util.SceneUtil;
 import javafx.fxml.FXML;
 import javafx.scene.control.TextField;
@@ -25,26 +26,28 @@ public class RoomController {
     @FXML
     private void onCreateRoom() {
         String name = roomNameField.getText();
-        RoomDTO room = RoomApi.createRoom(name);
-        if (room != null) {
-            showAlert("Room created: " + room.getName());
-            SceneUtil.switchScene("waiting_room.fxml");
-        } else {
-            showAlert("Failed to create room");
-        }
+        NetworkExecutor.submit(() -> RoomApi.createRoom(name), (RoomDTO room) -> {
+            if (room != null) {
+                showAlert("Room created: " + room.getName());
+                SceneUtil.switchScene("waiting_room.fxml");
+            } else {
+                showAlert("Failed to create room");
+            }
+        });
     }
 
     @FXML
     private void onJoinRoom() {
         try {
             Long roomId = Long.parseLong(roomIdField.getText());
-            boolean joined = RoomApi.joinRoom(roomId);
-            if (joined) {
-                showAlert("Joined room " + roomId);
-                SceneUtil.switchScene("waiting_room.fxml");
-            } else {
-                showAlert("Join failed");
-            }
+            NetworkExecutor.submit(() -> RoomApi.joinRoom(roomId), joined -> {
+                if (joined) {
+                    showAlert("Joined room " + roomId);
+                    SceneUtil.switchScene("waiting_room.fxml");
+                } else {
+                    showAlert("Join failed");
+                }
+            });
         } catch (NumberFormatException e) {
             showAlert("Invalid room ID");
         }
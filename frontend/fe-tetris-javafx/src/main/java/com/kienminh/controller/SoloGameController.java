@@ -1,10 +1,13 @@
 package com.kienminh.controller;
 
+import com.kienminh.api.GameStreamClient;
 import com.kienminh.api.PlayerApi;
 import com.kienminh.api.SoloGameApi;
 import com.kienminh.model.GameStateDTO;
 import com.kienminh.model.PlayerDTO;
 import com.kienminh.util.AuthGuard;
+import com.kienminh.util.BoardRenderer;
+import com.kienminh.util.NetworkExecutor;
 import com.kienminh.util.SceneUtil;
 import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
@@ -27,11 +30,16 @@ public class SoloGameController {
     @FXML private Label currentBlockLabel;
     @FXML private Button playAgainButton;
 
-    private GraphicsContext gc;      // Board canvas
+    private BoardRenderer boardRenderer;   // Board canvas, chỉ vẽ lại các ô đổi so với frame trước
     private GraphicsContext nextGc;  // Next block canvas
     private Long playerId;
     private GameStateDTO gameState;
     private AnimationTimer gameLoop;
+    private GameStreamClient stream;   // server đẩy frame khi ván đổi, input được dự đoán ngay trên client
+
+    // HTTP chạy ngoài FX thread: poll trạng thái chỉ giữ request mới nhất, input gửi đúng thứ tự
+    private final NetworkExecutor.Latest<GameStateDTO> stateRequests = new NetworkExecutor.Latest<>();
+    private final NetworkExecutor.Sequence actionRequests = new NetworkExecutor.Sequence();
 
     private final int blockSize = 25;
     private final int nextBlockSize = 15;
@@ -40,18 +48,20 @@ public class SoloGameController {
     public void initialize() {
         AuthGuard.requireLogin();
 
-        gc = gameCanvas.getGraphicsContext2D();
+        boardRenderer = new BoardRenderer(gameCanvas, blockSize);
         nextGc = nextBlockCanvas.getGraphicsContext2D();
         playAgainButton.setVisible(false); // ẩn mặc định
 
-        PlayerDTO player = PlayerApi.getCurrentPlayer();
-        if (player == null || player.getId() == null) {
-            statusLabel.setText("Không lấy được thông tin người chơi!");
-            return;
-        }
-        playerId = player.getId();
+        NetworkExecutor.submit(PlayerApi::getCurrentPlayer, player -> {
+            if (player == null || player.getId() == null) {
+                statusLabel.setText("Không lấy được thông tin người chơi!");
+                return;
+            }
+            playerId = player.getId();
 
-        startNewGame();
+            startNewGame();
+            stream = GameStreamClient.connectSolo(this::onStreamFrame);
+        });
 
         Platform.runLater(() -> {
             gameCanvas.setFocusTraversable(true);
@@ -61,7 +71,11 @@ public class SoloGameController {
     }
 
     private void startNewGame() {
-        gameState = SoloGameApi.start(playerId);
+        NetworkExecutor.submit(() -> SoloGameApi.start(playerId), this::onGameStarted);
+    }
+
+    private void onGameStarted(GameStateDTO state) {
+        gameState = state;
         if (gameState == null) {
             statusLabel.setText("Không thể bắt đầu game!");
             return;
@@ -78,7 +92,8 @@ public class SoloGameController {
             @Override
             public void handle(long now) {
                 if (now - lastUpdate >= 500_000_000) { // 0.5s
-                    refreshState();
+                    // Polling chỉ là dự phòng khi stream chưa mở / mất kết nối
+                    if ((stream == null || !stream.isOpen()) && !stateRequests.isInFlight()) refreshState();
                     lastUpdate = now;
                 }
             }
@@ -86,15 +101,31 @@ public class SoloGameController {
         gameLoop.start();
     }
 
-    private void refreshState() {
-        GameStateDTO updated = SoloGameApi.getState(playerId);
-        if (updated != null) {
-            gameState = updated;
+    /** Frame từ stream (đã đối chiếu dự đoán) hoặc trạng thái dự đoán sau phím bấm → vẽ trên FX thread */
+    private void onStreamFrame(long framePlayerId, GameStateDTO state) {
+        Platform.runLater(() -> {
+            if (gameState != null && "GAME_OVER".equalsIgnoreCase(gameState.getStatus())) return;
+            gameState = state;
             drawBoard();
             drawNextBlock();
             updateLabels();
             checkGameOver();
-        }
+        });
+    }
+
+    private void refreshState() {
+        stateRequests.submit(() -> SoloGameApi.getState(playerId), this::showState);
+    }
+
+    /** Kết quả HTTP (trên FX thread) */
+    private void showState(GameStateDTO updated) {
+        if (updated == null) return;
+        if (gameState != null && "GAME_OVER".equalsIgnoreCase(gameState.getStatus())) return;
+        gameState = updated;
+        drawBoard();
+        drawNextBlock();
+        updateLabels();
+        checkGameOver();
     }
 
     private void handleKey(KeyEvent event) {
@@ -109,15 +140,14 @@ public class SoloGameController {
             default -> null;
         };
 
-        if (action != null) {
-            GameStateDTO updated = SoloGameApi.sendAction(playerId, action);
-            if (updated != null) {
-                gameState = updated;
-                drawBoard();
-                drawNextBlock();
-                updateLabels();
-                checkGameOver();
-            }
+        if (action != null && stream != null && stream.isOpen()) {
+            // Vẽ ngay trạng thái dự đoán; frame server sau đó sửa lại nếu đoán sai
+            stream.send(action);
+            event.consume();
+        } else if (action != null) {
+            // Poll đang chạy có thể trả về trạng thái trước input này → bỏ
+            stateRequests.cancel();
+            actionRequests.submit(() -> SoloGameApi.sendAction(playerId, action), this::showState);
             event.consume();
         }
     }
@@ -148,18 +178,7 @@ public class SoloGameController {
     private void drawBoard() {
         if (gameState == null || gameState.getBoard() == null) return;
 
-        int[][] grid = gameState.getBoard();
-        gc.clearRect(0, 0, gameCanvas.getWidth(), gameCanvas.getHeight());
-
-        for (int y = 0; y < grid.length; y++) {
-            for (int x = 0; x < grid[y].length; x++) {
-                int val = grid[y][x];
-                gc.setFill(getColorForBlock(val));
-                gc.fillRect(x * blockSize, y * blockSize, blockSize, blockSize);
-                gc.setStroke(Color.DARKGRAY);
-                gc.strokeRect(x * blockSize, y * blockSize, blockSize, blockSize);
-            }
-        }
+        boardRenderer.draw(gameState.getBoard());
     }
 
     private void drawNextBlock() {
@@ -209,19 +228,6 @@ public class SoloGameController {
         };
     }
 
-    private Color getColorForBlock(int val) {
-        return switch (val) {
-            case 1 -> Color.CYAN;
-            case 2 -> Color.YELLOW;
-            case 3 -> Color.PURPLE;
-            case 4 -> Color.LIMEGREEN;
-            case 5 -> Color.RED;
-            case 6 -> Color.BLUE;
-            case 7 -> Color.ORANGE;
-            default -> Color.BLACK;
-        };
-    }
-
     private void updateLabels() {
         if (gameState == null) return;
         scoreLabel.setText("Score: " + gameState.getScore());
@@ -233,6 +239,8 @@ public class SoloGameController {
     @FXML
     private void onBack() {
         if (gameLoop != null) gameLoop.stop();
+        stateRequests.cancel();
+        if (stream != null) stream.close();
         SceneUtil.switchScene("main_menu.fxml");
     }
 }
@@ -3,6 +3,7 @@ package com.kienminh.controller;
 import com.kienminh.api.MultiGameApi;
 import com.kienminh.api.RoomApi;
 import com.kienminh.model.GameStateDTO;
+import com.kienminh.util.NetworkExecutor;
 import com.kienminh.util.SceneUtil;
 import com.kienminh.util.SessionManager;
 import javafx.application.Platform;
@@ -26,7 +27,7 @@ public class WaitingRoomController {
         roomId = SessionManager.getRoomId();
         roomNameLabel.setText("Room: " + SessionManager.getRoomName());
         startButton.setDisable(!SessionManager.isHost());
-        new Thread(this::updatePlayersLoop).start();
+        Thread.ofVirtual().name("room-players").start(this::updatePlayersLoop);
     }
 
     private void updatePlayersLoop() {
@@ -52,21 +53,21 @@ public class WaitingRoomController {
             }
 
             // Gọi API start game
-            GameStateDTO gameState = MultiGameApi.start(roomId);
+            NetworkExecutor.submit(() -> MultiGameApi.start(roomId), (GameStateDTO gameState) -> {
+                if (gameState != null) {
+                    System.out.println("[MultiGame] Game started successfully!");
+                    // Lưu trạng thái game nếu cần (ví dụ pass sang controller của scene mới)
+                    MultiGameController.setInitialGameState(gameState);
 
-            if (gameState != null) {
-                System.out.println("[MultiGame] Game started successfully!");
-                // Lưu trạng thái game nếu cần (ví dụ pass sang controller của scene mới)
-                MultiGameController.setInitialGameState(gameState);
+                    // Dừng bất cứ timer hoặc loop cũ nếu có
+                    running = false;
 
-                // Dừng bất cứ timer hoặc loop cũ nếu có
-                running = false;
-
-                // Chuyển sang scene game
-                SceneUtil.switchScene("multi_game.fxml");
-            } else {
-                System.err.println("[MultiGame] Failed to start game. Check backend or network.");
-            }
+                    // Chuyển sang scene game
+                    SceneUtil.switchScene("multi_game.fxml");
+                } else {
+                    System.err.println("[MultiGame] Failed to start game. Check backend or network.");
+                }
+            });
         } else {
             System.err.println("[MultiGame] You are not the host!");
         }
@@ -76,7 +77,6 @@ public class WaitingRoomController {
     @FXML
     private void onLeaveRoom() {
         running = false;
-        RoomApi.leaveRoom(roomId);
-        SceneUtil.switchScene("room.fxml");
+        NetworkExecutor.submit(() -> RoomApi.leaveRoom(roomId), left -> SceneUtil.switchScene("room.fxml"));
     }
 }
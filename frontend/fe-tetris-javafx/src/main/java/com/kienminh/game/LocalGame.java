@@ -0,0 +1,313 @@
+package com.kienminh.game;
+
+import com.kienminh.model.GameStateDTO;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Bản sao phía client của luật chơi server (Board + GameState backend), dùng để dự đoán input.
+ * Phải khớp từng bước với server: cùng bảng xoay, wall kick, vị trí spawn, cách tính điểm
+ * và cùng chuỗi block sinh từ seed. Gravity không chạy ở đây – chỉ server tick.
+ * Không thread-safe.
+ */
+public final class LocalGame {
+
+    /** Cùng thứ tự với enum BlockType của server: id ô = index + 1 */
+    private static final int[][][] SHAPES = {
+            {{1, 1, 1, 1}},
+            {{1, 1}, {1, 1}},
+            {{0, 1, 0}, {1, 1, 1}},
+            {{0, 1, 1}, {1, 1, 0}},
+            {{1, 1, 0}, {0, 1, 1}},
+            {{1, 0, 0}, {1, 1, 1}},
+            {{0, 0, 1}, {1, 1, 1}},
+    };
+    private static final String[] NAMES = {"I", "O", "T", "S", "Z", "J", "L"};
+    private static final int ROTATIONS = 4;
+
+    /** MASKS[type][rotation][row]: bit x = ô ở cột x của bounding box; WIDTHS tương ứng */
+    private static final int[][][] MASKS = new int[SHAPES.length][ROTATIONS][];
+    private static final int[][] WIDTHS = new int[SHAPES.length][ROTATIONS];
+
+    static {
+        for (int t = 0; t < SHAPES.length; t++) {
+            int[][] shape = SHAPES[t];
+            for (int r = 0; r < ROTATIONS; r++) {
+                int[] masks = new int[shape.length];
+                for (int i = 0; i < shape.length; i++) {
+                    for (int j = 0; j < shape[i].length; j++) {
+                        if (shape[i][j] != 0) masks[i] |= 1 << j;
+                    }
+                }
+                MASKS[t][r] = masks;
+                WIDTHS[t][r] = shape[0].length;
+                shape = rotateClockwise(shape);
+            }
+        }
+    }
+
+    /** Chuỗi block của một seed: block thứ n (từ 0) là lần rút thứ n của new Random(seed), giống Board.init */
+    public static final class PieceSequence {
+        private final long seed;
+        private final Random random;
+        private byte[] types = new byte[64];
+        private int size;
+
+        public PieceSequence(long seed) {
+            this.seed = seed;
+            this.random = new Random(seed);
+        }
+
+        public long seed() {
+            return seed;
+        }
+
+        int typeAt(int index) {
+            while (size <= index) {
+                if (size == types.length) types = Arrays.copyOf(types, size * 2);
+                types[size++] = (byte) random.nextInt(SHAPES.length);
+            }
+            return types[index];
+        }
+    }
+
+    private final PieceSequence sequence;
+    private final int width;
+    private final int height;
+    private final int fullRow;
+    private final int[][] grid;   // color plane
+    private final int[] rows;     // bitboard giống Board.rows
+
+    private int type = -1;        // -1 = không có block đang rơi
+    private int rotation;
+    private int x;
+    private int y;
+    private int score;
+    private int level;
+    private int pieces;
+    private boolean over;
+
+    private LocalGame(PieceSequence sequence, int[][] grid, int score, int level, int pieces) {
+        this.sequence = sequence;
+        this.height = grid.length;
+        this.width = height == 0 ? 0 : grid[0].length;
+        this.fullRow = (1 << width) - 1;
+        this.grid = grid;
+        this.rows = new int[height];
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                if (grid[r][c] != 0) rows[r] |= 1 << c;
+            }
+        }
+        this.score = score;
+        this.level = level;
+        this.pieces = pieces;
+    }
+
+    /**
+     * Trạng thái server của một frame. Cột 0 của bounding box luôn có ô, nên x = số bit 0 cuối
+     * của OR các hàng; rotation là hướng đầu tiên có mask khớp (các hướng trùng mask xoay ra giống nhau).
+     * @return null nếu frame không khớp chuỗi block của seed – khi đó không dự đoán
+     */
+    public static LocalGame fromFrame(PieceSequence sequence, int[][] stack, int pieceId, int pieceY, int[] pieceRows,
+                                      int score, int level, int pieces, int nextId) {
+        int[][] grid = new int[stack.length][];
+        for (int r = 0; r < stack.length; r++) grid[r] = stack[r].clone();
+        LocalGame game = new LocalGame(sequence, grid, score, level, pieces);
+
+        if (nextId != 0 && sequence.typeAt(pieces + 1) != nextId - 1) return null;
+        if (pieceId == 0) return game;
+        int type = pieceId - 1;
+        if (type >= SHAPES.length || sequence.typeAt(pieces) != type) return null;
+
+        int bits = 0;
+        for (int row : pieceRows) bits |= row;
+        if (bits == 0) return null;
+        int px = Integer.numberOfTrailingZeros(bits);
+        for (int r = 0; r < ROTATIONS; r++) {
+            if (matches(MASKS[type][r], pieceRows, px)) {
+                game.type = type;
+                game.rotation = r;
+                game.x = px;
+                game.y = pieceY;
+                return game;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(int[] masks, int[] rows, int x) {
+        if (masks.length != rows.length) return false;
+        for (int i = 0; i < masks.length; i++) {
+            if (masks[i] << x != rows[i]) return false;
+        }
+        return true;
+    }
+
+    /** LEFT / RIGHT / ROTATE / TICK / DROP – giống GameAction của server */
+    public void apply(String action) {
+        if (over || type < 0) return;
+        switch (action) {
+            case "LEFT" -> move(x - 1, y);
+            case "RIGHT" -> move(x + 1, y);
+            case "ROTATE" -> rotate();
+            case "TICK" -> tick();
+            case "DROP" -> drop();
+            default -> { }
+        }
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+
+    /** Board đã tô block đang rơi; status lấy từ server (game over không dự đoán) */
+    public GameStateDTO toDTO(String status) {
+        int[][] board = new int[height][];
+        for (int r = 0; r < height; r++) board[r] = grid[r].clone();
+        if (type >= 0) {
+            int[] masks = MASKS[type][rotation];
+            for (int i = 0; i < masks.length; i++) {
+                int row = y + i;
+                if (row < 0 || row >= height) continue;
+                for (int bits = masks[i] << x; bits != 0; bits &= bits - 1) {
+                    board[row][Integer.numberOfTrailingZeros(bits)] = type + 1;
+                }
+            }
+        }
+        return new GameStateDTO(board, score, level, status,
+                type >= 0 ? NAMES[type] : null, NAMES[sequence.typeAt(pieces + 1)]);
+    }
+
+    // --- Luật chơi (GameState.tick/drop, Board.move/rotate/lock/clear/spawn) ---
+
+    private boolean move(int nx, int ny) {
+        if (collision(nx, ny, MASKS[type][rotation])) return false;
+        x = nx;
+        y = ny;
+        return true;
+    }
+
+    private void rotate() {
+        int next = (rotation + 1) & (ROTATIONS - 1);
+        int[] masks = MASKS[type][next];
+        int kickX;
+        if (!collision(x, y, masks)) kickX = x;
+        else if (!collision(x - 1, y, masks)) kickX = x - 1;
+        else if (!collision(x + 1, y, masks)) kickX = x + 1;
+        else return;
+        rotation = next;
+        x = kickX;
+    }
+
+    private void tick() {
+        if (move(x, y + 1)) return;
+        lock();
+        pieces++;
+        int lines = clearLines();
+        if (lines > 0) {
+            score += scoreForLines(lines);
+            levelUpCheck();
+        }
+        spawn();
+    }
+
+    private void drop() {
+        while (!collision(x, y + 1, MASKS[type][rotation])) y++;
+        lock();
+        pieces++;
+        int lines = clearLines();
+        if (lines > 0) score += scoreForLines(lines);
+        score += 10;
+        levelUpCheck();
+        spawn();
+    }
+
+    private void spawn() {
+        type = sequence.typeAt(pieces);
+        rotation = 0;
+        int[] masks = MASKS[type][0];
+        x = width / 2 - WIDTHS[type][0] / 2;
+        y = -masks.length + 1;
+        if (collision(x, y, masks)) over = true;
+    }
+
+    private void lock() {
+        int[] masks = MASKS[type][rotation];
+        for (int i = 0; i < masks.length; i++) {
+            int row = y + i;
+            if (row < 0 || row >= height) continue;
+            int shifted = shift(masks[i], x);
+            if (shifted < 0) continue;
+            rows[row] |= shifted;
+            for (int bits = shifted; bits != 0; bits &= bits - 1) {
+                grid[row][Integer.numberOfTrailingZeros(bits)] = type + 1;
+            }
+        }
+        type = -1;
+    }
+
+    private int clearLines() {
+        int write = height - 1;
+        for (int read = height - 1; read >= 0; read--) {
+            if (rows[read] == fullRow) continue;
+            rows[write] = rows[read];
+            grid[write] = grid[read];
+            write--;
+        }
+        int cleared = write + 1;
+        for (int r = write; r >= 0; r--) {
+            rows[r] = 0;
+            grid[r] = new int[width];
+        }
+        return cleared;
+    }
+
+    private boolean collision(int nx, int ny, int[] masks) {
+        for (int i = 0; i < masks.length; i++) {
+            if (masks[i] == 0) continue;
+            int shifted = shift(masks[i], nx);
+            if (shifted < 0) return true;
+            int row = ny + i;
+            if (row >= height) return true;
+            if (row < 0) continue;   // vùng spawn phía trên board
+            if ((rows[row] & shifted) != 0) return true;
+        }
+        return false;
+    }
+
+    /** Mask dịch tới cột nx, -1 nếu có ô lọt ra ngoài trái/phải */
+    private int shift(int mask, int nx) {
+        if (nx >= 0) {
+            int shifted = mask << nx;
+            return (shifted & ~fullRow) != 0 ? -1 : shifted;
+        }
+        return (mask & ((1 << -nx) - 1)) != 0 ? -1 : mask >>> -nx;
+    }
+
+    private void levelUpCheck() {
+        int newLevel = score / 1000 + 1;
+        if (newLevel > level) level = newLevel;
+    }
+
+    private static int scoreForLines(int lines) {
+        return switch (lines) {
+            case 1 -> 100;
+            case 2 -> 300;
+            case 3 -> 500;
+            case 4 -> 800;
+            default -> lines * 100;
+        };
+    }
+
+    private static int[][] rotateClockwise(int[][] shape) {
+        int rowCount = shape.length;
+        int cols = shape[0].length;
+        int[][] rotated = new int[cols][rowCount];
+        for (int i = 0; i < rowCount; i++)
+            for (int j = 0; j < cols; j++)
+                rotated[j][rowCount - 1 - i] = shape[i][j];
+        return rotated;
+    }
+}
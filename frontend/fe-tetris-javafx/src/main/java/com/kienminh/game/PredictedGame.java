@@ -0,0 +1,74 @@
+package com.kienminh.game;
+
+import com.kienminh.model.GameStateDTO;
+
+import java.util.ArrayDeque;
+
+/**
+ * Dự đoán phía client cho ván solo.
+ * Input vừa bấm được áp dụng ngay lên bản dự đoán. Mỗi frame server (kèm seq input cuối server đã áp dụng)
+ * là trạng thái gốc mới: bỏ các input đã được áp dụng, chạy lại các input còn lại lên đó (rollback + replay).
+ * Dự đoán sai vì vậy tự sửa ở frame kế tiếp. Game over chỉ lấy từ server.
+ * Thread-safe: input từ FX thread, frame từ thread WebSocket.
+ */
+public class PredictedGame {
+
+    /** Server không ACK (vd ván đã dừng) thì không giữ input mãi */
+    private static final int MAX_PENDING = 256;
+
+    private record PendingInput(long seq, String action) {}
+
+    private final ArrayDeque<PendingInput> pending = new ArrayDeque<>();
+
+    private LocalGame.PieceSequence sequence;
+    private LocalGame predicted;
+    private String status;
+
+    /**
+     * Ghi nhận input vừa gửi và áp dụng lên bản dự đoán.
+     * @return trạng thái dự đoán để vẽ ngay, hoặc null nếu chưa có frame server để dự đoán
+     */
+    public synchronized GameStateDTO input(long seq, String action) {
+        if (pending.size() >= MAX_PENDING) pending.removeFirst();
+        pending.addLast(new PendingInput(seq, action));
+        if (predicted == null) return null;
+        predicted.apply(action);
+        return predicted.toDTO(status);
+    }
+
+    /**
+     * Frame server mới: thay trạng thái gốc rồi replay các input server chưa áp dụng.
+     * @param seed seed chuỗi block (0 = server không chia sẻ → không dự đoán)
+     * @param inputSeq seq input cuối server đã áp dụng
+     * @return trạng thái dự đoán, hoặc null nếu không dự đoán được (dùng nguyên frame server)
+     */
+    public synchronized GameStateDTO reconcile(long seed, int[][] stack, int pieceId, int pieceY, int[] pieceRows,
+                                               int score, int level, String status, int nextId,
+                                               int pieces, long inputSeq) {
+        this.status = status;
+        if (seed == 0) {
+            predicted = null;
+            return null;
+        }
+        if (sequence == null || sequence.seed() != seed) {
+            // Ván mới: input của ván cũ không còn ý nghĩa
+            sequence = new LocalGame.PieceSequence(seed);
+            pending.clear();
+        }
+        while (!pending.isEmpty() && pending.peekFirst().seq() <= inputSeq) pending.removeFirst();
+
+        LocalGame server = "PLAYING".equals(status)
+                ? LocalGame.fromFrame(sequence, stack, pieceId, pieceY, pieceRows, score, level, pieces, nextId)
+                : null;
+        if (server == null) {
+            predicted = null;
+            return null;
+        }
+        predicted = server;
+        for (PendingInput input : pending) {
+            predicted.apply(input.action());
+            if (predicted.isOver()) break;
+        }
+        return predicted.toDTO(status);
+    }
+}
@@ -0,0 +1,69 @@
+package com.kienminh.util;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+/**
+ * Vẽ board lên Canvas theo vùng bẩn: nhớ giá trị ô đã vẽ ở frame trước và chỉ vẽ lại các ô đã đổi.
+ * Một bước di chuyển chỉ đổi khoảng 8 ô trên 200, nên mỗi board tốn vài lệnh vẽ thay vì clear + 400 lệnh.
+ * Chỉ dùng trên FX thread.
+ */
+public class BoardRenderer {
+
+    /** Màu theo id ô (0 = trống, 1..7 = BlockType I O T S Z J L) */
+    private static final Color[] COLORS = {
+            Color.BLACK, Color.CYAN, Color.YELLOW, Color.PURPLE,
+            Color.LIMEGREEN, Color.RED, Color.BLUE, Color.ORANGE
+    };
+    private static final Color GRID_COLOR = Color.DARKGRAY;
+
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final int cellSize;
+
+    /** Giá trị đã vẽ của từng ô; null = phải vẽ lại toàn bộ */
+    private int[][] drawn;
+
+    public BoardRenderer(Canvas canvas, int cellSize) {
+        this.canvas = canvas;
+        this.gc = canvas.getGraphicsContext2D();
+        this.cellSize = cellSize;
+    }
+
+    public void draw(int[][] board) {
+        if (board == null || board.length == 0) return;
+        if (drawn == null || drawn.length != board.length || drawn[0].length != board[0].length) {
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            drawn = new int[board.length][board[0].length];
+            for (int[] row : drawn) Arrays.fill(row, -1);
+        }
+
+        gc.setStroke(GRID_COLOR);
+        Color fill = null;
+        for (int y = 0; y < board.length; y++) {
+            int[] row = board[y];
+            int[] drawnRow = drawn[y];
+            for (int x = 0; x < row.length; x++) {
+                int value = row[x];
+                if (drawnRow[x] == value) continue;
+                drawnRow[x] = value;
+
+                Color color = value > 0 && value < COLORS.length ? COLORS[value] : COLORS[0];
+                if (color != fill) {
+                    gc.setFill(color);
+                    fill = color;
+                }
+                gc.fillRect(x * cellSize, y * cellSize, cellSize, cellSize);
+                gc.strokeRect(x * cellSize, y * cellSize, cellSize, cellSize);
+            }
+        }
+    }
+
+    /** Canvas bị vẽ đè/đổi kích thước: frame kế tiếp vẽ lại toàn bộ */
+    public void invalidate() {
+        drawn = null;
+    }
+}
@@ -1,141 +1,160 @@
 package com.kienminh.util;
 
-import org.apache.hc.client5.http.classic.methods.*;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.HttpEntity;
-import org.apache.hc.core5.http.io.entity.StringEntity;
-import org.apache.hc.core5.http.ContentType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP tới backend qua một HttpClient dùng chung cho cả app: connection pool + keep-alive
+ * (HTTP/2 nếu server hỗ trợ), không mở kết nối mới cho mỗi request.
+ * Mỗi method có bản async trả CompletableFuture; bản có ObjectReader parse thẳng từ byte của body.
+ * Response không phải 2xx → log lỗi và trả null (giống trước).
+ */
 public class HttpClientUtil {
 
     public static final String BASE_URL = "http://localhost:8080";
 
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build();
+
+    /** Dùng chung cho mọi API; ObjectReader tạo từ đây là immutable, giữ làm static final */
+    public static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** HttpClient dùng chung (vd cho WebSocket) */
+    public static HttpClient client() {
+        return CLIENT;
+    }
+
+    public static ObjectReader readerFor(Class<?> type) {
+        return MAPPER.readerFor(type);
+    }
+
+    // --- Đồng bộ: body dạng String ---
+
     /** Gửi request GET */
     public static String get(String path, String token) throws IOException {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpGet request = new HttpGet(BASE_URL + path);
-            if (token != null && !token.isEmpty()) {
-                request.addHeader("Authorization", "Bearer " + token);
-            }
-
-            return client.execute(request, response -> {
-                int statusCode = response.getCode();
-                HttpEntity entity = response.getEntity();
-                String body = entity != null
-                        ? new String(entity.getContent().readAllBytes(), StandardCharsets.UTF_8)
-                        : "";
-
-                // ✅ In log để kiểm tra rõ lỗi
-                System.out.println("[HTTP GET] " + path + " -> " + statusCode);
-                System.out.println("[HTTP BODY] " + body);
-
-                if (statusCode >= 200 && statusCode < 300) {
-                    return body;
-                } else {
-                    System.err.println("[HTTP ERROR] GET " + path + " failed: " + statusCode);
-                    return null;
-                }
-            });
-        }
+        return body("GET", path, send(request(path, token).GET().build()));
     }
 
-
     /** Gửi request POST */
     public static String post(String path, String json, String token) throws IOException {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpPost request = new HttpPost(BASE_URL + path);
-            request.addHeader("Content-Type", "application/json");
-            if (token != null && !token.isEmpty()) {
-                request.addHeader("Authorization", "Bearer " + token);
-            }
-
-            // Chỉ set entity nếu json != null && !json.isEmpty()
-            if (json != null && !json.isEmpty()) {
-                request.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
-            }
-
-            return client.execute(request, response -> {
-                int statusCode = response.getCode();
-                HttpEntity entity = response.getEntity();
-                if (statusCode >= 200 && statusCode < 300) {
-                    return entity != null
-                            ? new String(entity.getContent().readAllBytes(), StandardCharsets.UTF_8)
-                            : "";
-                } else {
-                    String body = entity != null
-                            ? new String(entity.getContent().readAllBytes(), StandardCharsets.UTF_8)
-                            : "";
-                    System.err.println("POST " + path + " failed: " + statusCode + " - " + body);
-                    return null;
-                }
-            });
-        }
+        return body("POST", path, send(jsonRequest(path, token).POST(bodyOf(json)).build()));
     }
 
+    /** Gửi request PUT */
+    public static String put(String path, String json, String token) throws IOException {
+        if (json == null || json.isEmpty()) json = "{}";
+        return body("PUT", path, send(jsonRequest(path, token).PUT(bodyOf(json)).build()));
+    }
 
     /** Gửi request DELETE */
     public static String delete(String path, String token) throws IOException {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpDelete request = new HttpDelete(BASE_URL + path);
-            if (token != null && !token.isEmpty()) {
-                request.addHeader("Authorization", "Bearer " + token);
-            }
-
-            return client.execute(request, response -> {
-                int statusCode = response.getCode();
-                HttpEntity entity = response.getEntity();
-
-                if (statusCode >= 200 && statusCode < 300) {
-                    return entity != null
-                            ? new String(entity.getContent().readAllBytes(), StandardCharsets.UTF_8)
-                            : "";
-                } else {
-                    String body = entity != null
-                            ? new String(entity.getContent().readAllBytes(), StandardCharsets.UTF_8)
-                            : "";
-                    System.err.println("DELETE " + path + " failed: " + statusCode + " - " + body);
-                    return null;
-                }
-            });
+        return body("DELETE", path, send(request(path, token).DELETE().build()));
+    }
+
+    // --- Đồng bộ: parse bằng ObjectReader ---
+
+    public static <T> T get(String path, String token, ObjectReader reader) throws IOException {
+        return parse("GET", path, send(request(path, token).GET().build()), reader);
+    }
+
+    public static <T> T post(String path, String json, String token, ObjectReader reader) throws IOException {
+        return parse("POST", path, send(jsonRequest(path, token).POST(bodyOf(json)).build()), reader);
+    }
+
+    // --- Bất đồng bộ ---
+
+    public static CompletableFuture<String> getAsync(String path, String token) {
+        return sendAsync(request(path, token).GET().build()).thenApply(response -> body("GET", path, response));
+    }
+
+    public static CompletableFuture<String> postAsync(String path, String json, String token) {
+        return sendAsync(jsonRequest(path, token).POST(bodyOf(json)).build())
+                .thenApply(response -> body("POST", path, response));
+    }
+
+    public static <T> CompletableFuture<T> getAsync(String path, String token, ObjectReader reader) {
+        return sendAsync(request(path, token).GET().build())
+                .thenApply(response -> parseUnchecked("GET", path, response, reader));
+    }
+
+    public static <T> CompletableFuture<T> postAsync(String path, String json, String token, ObjectReader reader) {
+        return sendAsync(jsonRequest(path, token).POST(bodyOf(json)).build())
+                .thenApply(response -> parseUnchecked("POST", path, response, reader));
+    }
+
+    // --- Nội bộ ---
+
+    private static HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(BASE_URL + path)).timeout(REQUEST_TIMEOUT);
+        if (token != null && !token.isEmpty()) {
+            builder.header("Authorization", "Bearer " + token);
         }
+        return builder;
     }
 
-    /** Gửi request PUT */
-    public static String put(String path, String json, String token) throws IOException {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpPut request = new HttpPut(BASE_URL + path);
-            request.addHeader("Content-Type", "application/json");
-            if (token != null && !token.isEmpty()) {
-                request.addHeader("Authorization", "Bearer " + token);
-            }
-
-            if (json == null || json.isEmpty()) {
-                json = "{}";
-            }
-            request.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
-
-            System.out.println("PUT " + path + " body: " + json);
-
-            return client.execute(request, response -> {
-                int statusCode = response.getCode();
-                HttpEntity entity = response.getEntity();
-
-                if (statusCode >= 200 && statusCode < 300) {
-                    return entity != null
-                            ? new String(entity.getContent().readAllBytes(), StandardCharsets.UTF_8)
-                            : "";
-                } else {
-                    String body = entity != null
-                            ? new String(entity.getContent().readAllBytes(), StandardCharsets.UTF_8)
-                            : "";
-                    System.err.println("PUT " + path + " failed: " + statusCode + " - " + body);
-                    return null;
-                }
-            });
+    private static HttpRequest.Builder jsonRequest(String path, String token) {
+        return request(path, token).header("Content-Type", "application/json");
+    }
+
+    /** Chỉ gửi body nếu json != null && !json.isEmpty() */
+    private static HttpRequest.BodyPublisher bodyOf(String json) {
+        return json == null || json.isEmpty()
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8);
+    }
+
+    private static HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        try {
+            return CLIENT.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request interrupted: " + request.uri());
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request) {
+        return CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static boolean isSuccess(String method, String path, HttpResponse<byte[]> response) {
+        int statusCode = response.statusCode();
+        if (statusCode >= 200 && statusCode < 300) return true;
+        System.err.println("[HTTP ERROR] " + method + " " + path + " failed: " + statusCode + " - "
+                + new String(response.body(), StandardCharsets.UTF_8));
+        return false;
+    }
+
+    private static String body(String method, String path, HttpResponse<byte[]> response) {
+        return isSuccess(method, path, response) ? new String(response.body(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static <T> T parse(String method, String path, HttpResponse<byte[]> response, ObjectReader reader)
+            throws IOException {
+        if (!isSuccess(method, path, response) || response.body().length == 0) return null;
+        return reader.readValue(response.body());
+    }
+
+    private static <T> T parseUnchecked(String method, String path, HttpResponse<byte[]> response, ObjectReader reader) {
+        try {
+            return parse(method, path, response, reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 }
@@ -0,0 +1,82 @@
+package com.kienminh.util;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Mọi lời gọi mạng của UI đi qua đây: mỗi lời gọi chạy trên một virtual thread,
+ * kết quả được đưa về FX thread qua Platform.runLater. FX thread không bao giờ chờ HTTP,
+ * nên backend chậm không làm đứng hình hay nghẽn phím.
+ */
+public final class NetworkExecutor {
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("net-", 0).factory());
+
+    private NetworkExecutor() {}
+
+    /** Chạy call ngoài FX thread; onResult chạy trên FX thread */
+    public static <T> Future<?> submit(Supplier<T> call, Consumer<T> onResult) {
+        return EXECUTOR.submit(() -> deliver(call, onResult));
+    }
+
+    private static <T> void deliver(Supplier<T> call, Consumer<T> onResult) {
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            System.err.println("[NetworkExecutor] Call failed: " + e.getMessage());
+            result = null;
+        }
+        if (Thread.currentThread().isInterrupted()) return;   // đã bị hủy
+        T value = result;
+        Platform.runLater(() -> onResult.accept(value));
+    }
+
+    /**
+     * Request trạng thái: chỉ kết quả mới nhất có ý nghĩa.
+     * cancel() (vd khi có input mới) hủy request đang chạy và bỏ kết quả về muộn của nó.
+     * Chỉ dùng trên FX thread.
+     */
+    public static final class Latest<T> {
+        private Future<?> inFlight;
+        private long generation;
+
+        /** Hủy request đang chạy (nếu có) rồi gửi request mới */
+        public void submit(Supplier<T> call, Consumer<T> onResult) {
+            cancel();
+            long mine = generation;
+            inFlight = NetworkExecutor.submit(call, result -> {
+                if (mine != generation) return;   // đã có request mới hơn
+                inFlight = null;
+                onResult.accept(result);
+            });
+        }
+
+        /** Còn request chưa trả kết quả về FX thread */
+        public boolean isInFlight() {
+            return inFlight != null;
+        }
+
+        public void cancel() {
+            generation++;
+            if (inFlight != null) inFlight.cancel(true);
+            inFlight = null;
+        }
+    }
+
+    /** Request phải tới server đúng thứ tự gửi (vd input): chạy lần lượt, không hủy, không bỏ */
+    public static final class Sequence {
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        public synchronized <T> void submit(Supplier<T> call, Consumer<T> onResult) {
+            tail = tail.thenRunAsync(() -> deliver(call, onResult), EXECUTOR);
+        }
+    }
+}
@@ -24,6 +24,9 @@ const TETRIMINO_SHAPES = {
   L: [[0, 0, 1], [1, 1, 1], [0, 0, 0]],
 };
 
+// Action REST → tên input của kênh WebSocket
+const INPUT_NAMES = { moveLeft: "LEFT", moveRight: "RIGHT", rotate: "ROTATE", tick: "TICK", drop: "DROP" };
+
 const getApiUrl = () => {
   return import.meta.env.VITE_API_URL;
 };
@@ -51,6 +54,10 @@ export default function MultiGame() {
 
   const intervalRef = useRef(null);
   const stompClientRef = useRef(null);
+  // Luồng TICK_UPDATE của từng player: board/seq của frame cuối, là base để áp delta
+  const streamsRef = useRef({});
+  // Seq input kế tiếp của player hiện tại
+  const inputSeqRef = useRef(1);
 
   const API = axios.create({ baseURL: getApiUrl() });
   API.interceptors.request.use((config) => {
@@ -84,6 +91,88 @@ export default function MultiGame() {
     return screenSize.width >= 992;
   }, [screenSize.width]);
 
+  // Áp một frame (K = keyframe, D = delta) lên luồng của player; null nếu lệch seq
+  const applyTickFrame = (message) => {
+    const streams = streamsRef.current;
+    const prev = streams[message.p];
+
+    if (message.k === "K") {
+      streams[message.p] = {
+        seq: message.s,
+        version: message.v,
+        board: message.board,
+        score: message.score,
+        level: message.level,
+        status: message.status,
+        nextBlock: message.nextBlock,
+      };
+      return streams[message.p];
+    }
+
+    if (!prev || prev.resyncing || message.s !== prev.seq + 1) return null;
+
+    // Mỗi phần tử c = (y * width + x) * 8 + value; chỉ copy các hàng có ô đổi
+    const width = prev.board[0]?.length || 10;
+    const board = prev.board.slice();
+    for (const packed of message.c || []) {
+      const index = packed >> 3;
+      const y = Math.floor(index / width);
+      if (board[y] === prev.board[y]) board[y] = prev.board[y].slice();
+      board[y][index % width] = packed & 7;
+    }
+
+    streams[message.p] = {
+      ...prev,
+      seq: message.s,
+      version: message.v,
+      board,
+      ...(message.score !== undefined && { score: message.score }),
+      ...(message.level !== undefined && { level: message.level }),
+      ...(message.status !== undefined && { status: message.status }),
+      ...(message.nextBlock !== undefined && { nextBlock: message.nextBlock }),
+    };
+    return streams[message.p];
+  };
+
+  // Áp các TICK_UPDATE (một ROOM_FRAME chứa frame của cả room) rồi cập nhật state một lần
+  const applyTickFrames = (client, frames) => {
+    const updated = {};
+    for (const frame of frames) {
+      // ACK input của một player đi chung ROOM_FRAME, không phải frame board
+      if (frame.type === "ACK") continue;
+      const stream = applyTickFrame(frame);
+      if (stream) updated[frame.p] = stream;
+      else requestResync(client, frame.p);
+    }
+    if (Object.keys(updated).length === 0) return;
+
+    setGameStates((prev) => {
+      const next = { ...prev };
+      for (const [playerId, stream] of Object.entries(updated)) {
+        next[playerId] = {
+          ...prev[playerId],
+          board: stream.board,
+          score: stream.score,
+          level: stream.level,
+          status: stream.status,
+          nextBlock: stream.nextBlock,
+          version: stream.version,
+        };
+      }
+      return next;
+    });
+  };
+
+  // Lỡ frame → xin keyframe một lần, bỏ qua delta cho tới khi keyframe tới
+  const requestResync = (client, playerId) => {
+    const streams = streamsRef.current;
+    if (streams[playerId]?.resyncing) return;
+    streams[playerId] = { ...streams[playerId], resyncing: true };
+    if (client.connected) {
+      client.publish({ destination: `/app/room/resync/${roomId}/${playerId}` });
+    }
+  };
+
   const setupWebSocket = useCallback(() => {
     const token = localStorage.getItem("token");
     const socket = new SockJS(`${getBaseUrl()}/ws`);
@@ -118,17 +207,10 @@ export default function MultiGame() {
               console.log("✅ Room game over - Rankings received");
               setRoomGameOver(true);
               if (message.rankings) setRankings(message.rankings);
+            } else if (message.type === "ROOM_FRAME") {
+              applyTickFrames(client, message.frames || []);
             } else if (message.type === "TICK_UPDATE") {
-              setGameStates((prev) => ({
-                ...prev,
-                [message.playerId]: {
-                  board: message.board,
-                  score: message.score,
-                  level: message.level,
-                  status: message.status,
-                  nextBlock: message.nextBlock,
-                },
-              }));
+              applyTickFrames(client, [message]);
             } else if (message.type === "GAME_START" && String(message.roomId) === String(roomId)) {
               console.log("🎮 GAME_START received, game is starting.");
             }
@@ -182,7 +264,15 @@ export default function MultiGame() {
   const fetchStates = useCallback(async () => {
     try {
       const res = await API.get(`/multigame/room/${roomId}/states`);
-      setGameStates(res.data || {});
+      const polled = res.data || {};
+      // Giữ board từ luồng TICK_UPDATE nếu nó mới hơn bản vừa poll
+      for (const [playerId, stream] of Object.entries(streamsRef.current)) {
+        const state = polled[playerId];
+        if (state && stream.board && stream.version > (state.version ?? 0)) {
+          polled[playerId] = { ...state, board: stream.board, score: stream.score, level: stream.level, status: stream.status, version: stream.version };
+        }
+      }
+      setGameStates(polled);
     } catch (e) {
       console.error("❌ fetchStates:", e);
     }
@@ -226,6 +316,17 @@ export default function MultiGame() {
 
   const sendAction = useCallback(
     async (playerId, action) => {
+      // Qua WebSocket: không chờ response, kết quả về bằng frame của room
+      const client = stompClientRef.current;
+      if (client && client.connected) {
+        const seq = inputSeqRef.current++;
+        client.publish({
+          destination: `/app/room/input/${roomId}/${playerId}`,
+          body: JSON.stringify({ s: seq, t: Date.now(), a: [INPUT_NAMES[action]] }),
+        });
+        return;
+      }
+
       try {
         await API.post(`/multigame/player/${playerId}/${action}`);
         await fetchStates();
@@ -233,7 +334,7 @@ export default function MultiGame() {
         console.error("❌ sendAction:", e);
       }
     },
-    [fetchStates]
+    [fetchStates, roomId]
   );
 
   const handleBackToLobby = useCallback(async () => {
@@ -1,5 +1,7 @@
 import { useState, useEffect, useCallback, useRef } from "react";
 import axios from "axios";
+import { Client } from "@stomp/stompjs";
+import SockJS from "sockjs-client";
 import "../css/SoloGame.css"; 
 import { useParams, useNavigate } from "react-router-dom";
 
@@ -68,9 +70,13 @@ export default function SoloGame() {
   const [gameState, setGameState] = useState(null);
   const [playerId, setPlayerId] = useState(null);
   const [error, setError] = useState("");
-  const intervalRef = useRef(null);
   const navigate = useNavigate();
-  const pollingActiveRef = useRef(false);
+  const stompClientRef = useRef(null);
+  // Luồng frame của ván: board/seq của frame cuối, là base để áp delta
+  const streamRef = useRef(null);
+  // Seq input kế tiếp và seq cuối server đã ACK
+  const inputSeqRef = useRef(1);
+  const ackedSeqRef = useRef(0);
 
   // Get base URL without /auth
   const getApiUrl = () => {
@@ -78,6 +84,10 @@ export default function SoloGame() {
     return baseUrl.replace('/auth', '');
   };
 
+  const getBaseUrl = () => {
+    return import.meta.env.VITE_API_URL.replace('/api', '');
+  };
+
   const API = axios.create({
     baseURL: `${getApiUrl()}/solo`,
   });
@@ -93,7 +103,7 @@ export default function SoloGame() {
 
   // Start game
   const startGame = async () => {
-    stopPolling();
+    stopStream();
     if (!userId) {
       setError("UserId not found");
       return;
@@ -103,70 +113,155 @@ export default function SoloGame() {
       const data = res.data;
       setGameState(data);
       setPlayerId(data.playerId);
-      pollingActiveRef.current = true;
-      startPolling(data.playerId);
+      startStream(data.playerId);
     } catch (err) {
       console.error(err);
       setError(err.response?.data?.error || "Cannot start game");
     }
   };
 
-  // Polling trạng thái game
-  const startPolling = (pId) => {
-    stopPolling();
-    pollingActiveRef.current = true;
-    intervalRef.current = setInterval(async () => {
-      // ✅ Double-check polling is still active
-      if (!pollingActiveRef.current) return;
-
-      try {
-        const res = await API.get(`/${pId}/state`);
-        const data = res.data;
-        setGameState(data);
-
-        // ✅ Stop polling when game over is detected
-        if (data.status === "GAME_OVER") {
-          pollingActiveRef.current = false;
-          stopPolling();
-          console.log("Game Over detected, polling stopped");
-        }
-      } catch (err) {
-        console.error("Fetch state error:", err);
-        // ✅ Stop polling if game not found
-        if (err.response?.status === 400 || err.response?.data?.error?.includes("not found")) {
-          pollingActiveRef.current = false;
-          stopPolling();
-          console.log("Game not found, polling stopped");
-        }
-      }
-    }, 500);
+  // Áp một frame (K = keyframe, D = delta) lên luồng của ván; null nếu lệch seq
+  const applyFrame = (message) => {
+    const prev = streamRef.current;
+
+    if (message.k === "K") {
+      streamRef.current = {
+        seq: message.s,
+        version: message.v,
+        board: message.board,
+        score: message.score,
+        level: message.level,
+        status: message.status,
+        nextBlock: message.nextBlock,
+      };
+      return streamRef.current;
+    }
+
+    if (!prev || prev.resyncing || message.s !== prev.seq + 1) return null;
+
+    // Mỗi phần tử c = (y * width + x) * 8 + value; chỉ copy các hàng có ô đổi
+    const width = prev.board[0]?.length || 10;
+    const board = prev.board.slice();
+    for (const packed of message.c || []) {
+      const index = packed >> 3;
+      const y = Math.floor(index / width);
+      if (board[y] === prev.board[y]) board[y] = prev.board[y].slice();
+      board[y][index % width] = packed & 7;
+    }
+
+    streamRef.current = {
+      ...prev,
+      seq: message.s,
+      version: message.v,
+      board,
+      ...(message.score !== undefined && { score: message.score }),
+      ...(message.level !== undefined && { level: message.level }),
+      ...(message.status !== undefined && { status: message.status }),
+      ...(message.nextBlock !== undefined && { nextBlock: message.nextBlock }),
+    };
+    return streamRef.current;
   };
 
-  const stopPolling = () => {
-    pollingActiveRef.current = false;
-    if (intervalRef.current) {
-      clearInterval(intervalRef.current);
-      intervalRef.current = null;
+  // Lỡ frame → xin keyframe một lần, bỏ qua delta cho tới khi keyframe tới
+  const requestResync = (client, pId) => {
+    if (streamRef.current?.resyncing) return;
+    streamRef.current = { ...streamRef.current, resyncing: true };
+    if (client.connected) {
+      client.publish({ destination: `/app/solo/resync/${pId}` });
+    }
+  };
+
+  // Server đẩy frame lên /topic/solo/{playerId} mỗi khi ván đổi, thay cho poll /state
+  const startStream = (pId) => {
+    stopStream();
+    const token = localStorage.getItem("token");
+    const client = new Client({
+      webSocketFactory: () => new SockJS(`${getBaseUrl()}/ws`),
+      connectHeaders: { token: token },
+      reconnectDelay: 5000,
+      onConnect: () => {
+        client.subscribe(`/topic/solo/${pId}`, (frame) => {
+          try {
+            const message = JSON.parse(frame.body);
+            if (message.type === "ACK") {
+              ackedSeqRef.current = message.s;
+              return;
+            }
+            if (message.type !== "TICK_UPDATE") return;
+
+            const stream = applyFrame(message);
+            if (!stream) {
+              requestResync(client, pId);
+              return;
+            }
+            setGameState((prev) => ({
+              ...prev,
+              board: stream.board,
+              score: stream.score,
+              level: stream.level,
+              status: stream.status,
+              nextBlock: stream.nextBlock,
+              version: stream.version,
+            }));
+
+            if (stream.status === "GAME_OVER") {
+              console.log("Game Over detected, stream closed");
+              stopStream();
+            }
+          } catch (e) {
+            console.error("❌ Solo frame parse error:", e);
+          }
+        });
+
+        // Vừa subscribe (hoặc reconnect): xin keyframe thay vì chờ keyframe định kỳ
+        streamRef.current = null;
+        requestResync(client, pId);
+      },
+      onStompError: (frame) => {
+        console.error("❌ STOMP error:", frame);
+      },
+    });
+
+    client.activate();
+    stompClientRef.current = client;
+  };
+
+  const stopStream = () => {
+    const client = stompClientRef.current;
+    stompClientRef.current = null;
+    streamRef.current = null;
+    if (client && client.active) {
+      client.deactivate();
     }
   };
 
   useEffect(() => {
     startGame();
-    return stopPolling;
+    return stopStream;
   }, [userId]);
 
-  // Gửi action
+  // Gửi action: qua WebSocket (seq + ACK, kết quả về bằng frame) khi đã kết nối, REST khi chưa
   const sendAction = async (action) => {
     if (!gameState || gameState.status === "GAME_OVER") return;
+
+    const client = stompClientRef.current;
+    if (client && client.connected) {
+      const seq = inputSeqRef.current++;
+      client.publish({
+        destination: `/app/solo/input/${playerId}`,
+        body: JSON.stringify({ s: seq, t: Date.now(), a: [action] }),
+      });
+      return;
+    }
+
     try {
       const res = await API.post(`/${playerId}/action`, null, { params: { action } });
-      setGameState(res.data);
+      // Frame của stream có thể đã tới trước response này
+      setGameState((prev) => (prev && prev.version > res.data.version ? prev : res.data));
 
-      // ✅ Stop polling immediately if game ends from this action
       if (res.data.status === "GAME_OVER") {
-        pollingActiveRef.current = false;
-        stopPolling();
-        console.log("Game Over from action, polling stopped");
+        stopStream();
+        console.log("Game Over from action, stream closed");
       }
     } catch (err) {
       console.error(err);